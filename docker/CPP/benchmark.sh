@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# 对比 C++ 沙箱镜像使用预编译头前后的编译耗时。
+# 用法：docker/CPP/benchmark.sh [镜像名] [次数]，镜像默认按本目录 Dockerfile 构建为 code-sandbox/cpp:13-pch
+set -euo pipefail
+
+IMAGE="${1:-code-sandbox/cpp:13-pch}"
+RUNS="${2:-10}"
+DIR="$(cd "$(dirname "$0")" && pwd)"
+
+if [ -z "${1:-}" ]; then
+  docker build -t "$IMAGE" "$DIR"
+fi
+
+# 在一个容器内循环执行，先用预编译头，再把 .gch 改名后测不使用预编译头的耗时
+docker run --rm --network none -e RUNS="$RUNS" "$IMAGE" bash -c '
+set -e
+mkdir -p /tmp/bench && cd /tmp/bench
+cat > main.cpp <<"CPP"
+#include <bits/stdc++.h>
+using namespace std;
+int main() {
+    int n;
+    cin >> n;
+    vector<long long> a(n);
+    for (auto &x : a) cin >> x;
+    sort(a.begin(), a.end());
+    map<long long, int> cnt;
+    for (auto x : a) cnt[x]++;
+    cout << accumulate(a.begin(), a.end(), 0LL) << " " << cnt.size() << "\n";
+    return 0;
+}
+CPP
+HEADER=$(echo "#include <bits/stdc++.h>" | g++ -O2 -std=c++17 -x c++ -M - | tr " \\\\" "\n\n" | grep "/bits/stdc++\.h$")
+if ! g++ /tmp/bench/main.cpp -O2 -std=c++17 -o /tmp/bench/main -H 2>&1 | grep -qF "! $HEADER.gch"; then
+  echo "预编译头未生效: $HEADER.gch" >&2
+  exit 1
+fi
+
+measure() {
+  local label="$1"
+  local start end
+  start=$(date +%s%N)
+  for _ in $(seq "$RUNS"); do g++ /tmp/bench/main.cpp -O2 -std=c++17 -o /tmp/bench/main; done
+  end=$(date +%s%N)
+  awk -v label="$label" -v total="$((end - start))" -v runs="$RUNS" \
+    "BEGIN { printf \"%-24s %8.1f ms\\n\", label, total / runs / 1000000 }"
+}
+
+measure "g++ (pch)"
+mv "$HEADER.gch" "$HEADER.gch.off"
+measure "g++ (baseline)"
+'
@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# 把语言镜像导出为命名空间后端（sandbox.namespace）使用的根文件系统，并保存镜像的环境变量。
+# 用法：docker/export-rootfs.sh <镜像名> <目标目录>，如 docker/export-rootfs.sh gcc:13 /var/lib/code-sandbox/rootfs/cpp
+set -euo pipefail
+
+IMAGE="${1:?请指定镜像名}"
+TARGET="${2:?请指定目标目录}"
+
+if [ -e "$TARGET" ] && [ -n "$(ls -A "$TARGET")" ]; then
+  echo "目标目录非空: $TARGET" >&2
+  exit 1
+fi
+mkdir -p "$TARGET"
+
+CONTAINER="$(docker create "$IMAGE")"
+trap 'docker rm -f "$CONTAINER" > /dev/null' EXIT
+docker export "$CONTAINER" | tar -x -C "$TARGET"
+
+# 挂载点：/app 为工作目录，/tmp 为 tmpfs，/proc 在每个用例内新挂载，/dev 只绑定常用设备
+cd "$TARGET"
+rm -rf app tmp proc dev
+mkdir -p app tmp proc dev
+touch dev/null dev/zero dev/random dev/urandom
+
+docker image inspect -f '{{range .Config.Env}}{{println .}}{{end}}' "$IMAGE" | sed '/^$/d' > .sandbox-env
+echo "已导出 $IMAGE 到 $TARGET"
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# 对比 Java 沙箱镜像开启 CDS 与启动参数前后的 javac、java 启动耗时。
+# 用法：docker/java/benchmark.sh [镜像名] [次数]，镜像默认按本目录 Dockerfile 构建为 code-sandbox/java:8-cds
+set -euo pipefail
+
+IMAGE="${1:-code-sandbox/java:8-cds}"
+RUNS="${2:-20}"
+DIR="$(cd "$(dirname "$0")" && pwd)"
+
+if [ -z "${1:-}" ]; then
+  docker build -t "$IMAGE" "$DIR"
+fi
+
+# 在一个容器内循环执行，排除容器创建开销，与沙箱在常驻容器中 exec 的方式一致
+docker run --rm --network none -e RUNS="$RUNS" "$IMAGE" bash -c '
+set -e
+TOOLS_JAR="$JAVA_HOME/lib/tools.jar"
+CDS=/opt/sandbox/cds
+JAVAC_FLAGS="-J-XX:TieredStopAtLevel=1 -J-XX:+UseSerialGC -J-Xshare:auto -J-XX:+UnlockDiagnosticVMOptions -J-XX:SharedArchiveFile=$CDS/javac.jsa -J-Xbootclasspath/a:$TOOLS_JAR"
+JAVA_FLAGS="-XX:+UseSerialGC -Xshare:auto -XX:+UnlockDiagnosticVMOptions -XX:SharedArchiveFile=$CDS/run.jsa"
+mkdir -p /tmp/bench && sed "s/class Warmup/class Main/" $CDS/Warmup.java > /tmp/bench/Main.java
+cd /tmp/bench
+
+measure() {
+  local label="$1"; shift
+  local start end
+  start=$(date +%s%N)
+  for _ in $(seq "$RUNS"); do "$@" > /dev/null; done
+  end=$(date +%s%N)
+  awk -v label="$label" -v total="$((end - start))" -v runs="$RUNS" \
+    "BEGIN { printf \"%-24s %8.1f ms\\n\", label, total / runs / 1000000 }"
+}
+
+run_main() { printf "3\n1 2 3\n" | java "$@" -cp /tmp/bench Main; }
+
+measure "javac (baseline)" javac -encoding UTF-8 Main.java
+measure "javac (cds + flags)" javac $JAVAC_FLAGS -encoding UTF-8 Main.java
+measure "java (baseline)" run_main
+measure "java (cds + flags)" run_main $JAVA_FLAGS
+'
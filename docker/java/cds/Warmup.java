@@ -0,0 +1,57 @@
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Scanner;
+import java.util.StringTokenizer;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 生成 CDS 类列表用的典型用户程序，覆盖常见的输入输出和集合类
+ */
+public class Warmup {
+
+    public static void main(String[] args) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        StringTokenizer tokenizer = new StringTokenizer(reader.readLine());
+        int n = Integer.parseInt(tokenizer.nextToken());
+        Scanner scanner = new Scanner(reader.readLine());
+        List<Integer> list = new ArrayList<>();
+        while (scanner.hasNextInt()) {
+            list.add(scanner.nextInt());
+        }
+        Map<Integer, Integer> hashMap = new HashMap<>();
+        TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+        PriorityQueue<Integer> priorityQueue = new PriorityQueue<>(Collections.reverseOrder());
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        LinkedList<Integer> linkedList = new LinkedList<>();
+        for (int value : list) {
+            hashMap.merge(value, 1, Integer::sum);
+            treeMap.put(value, value * 2);
+            priorityQueue.offer(value);
+            deque.push(value);
+            linkedList.add(value);
+        }
+        int[] array = list.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(array);
+        StringBuilder builder = new StringBuilder();
+        builder.append(n).append(' ').append(new HashSet<>(list).size()).append(' ')
+                .append(new TreeSet<>(list).first()).append(' ').append(priorityQueue.peek());
+        PrintWriter writer = new PrintWriter(System.out);
+        writer.println(builder);
+        writer.println(String.format("%.2f", BigInteger.valueOf(array[array.length - 1]).pow(3).doubleValue()));
+        writer.flush();
+        System.out.println(treeMap.firstKey() + deque.peek() + linkedList.getLast());
+    }
+}
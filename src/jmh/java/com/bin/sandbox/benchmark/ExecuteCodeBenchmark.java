@@ -0,0 +1,73 @@
+package com.bin.sandbox.benchmark;
+
+import com.bin.sandbox.model.ExecuteCodeRequest;
+import com.bin.sandbox.model.ExecuteCodeResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code executeCode} 的编排开销：写入代码文件、调度用例、规范化和汇总输出、删除工作目录，容器执行由替身直接返回。
+ * {@code outputBytes} 为一次提交全部用例的输出总量，平均分到各用例。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExecuteCodeBenchmark {
+
+    @Param({"1024", "1048576", "52428800"})
+    private int outputBytes;
+
+    @Param({"1", "100"})
+    private int caseCount;
+
+    private StandInSandbox sandbox;
+
+    private ExecuteCodeRequest executeCodeRequest;
+
+    private PrintStream stdout;
+
+    @Setup
+    public void setup() {
+        stdout = System.out;
+        System.setOut(Payloads.discardingStream());
+        sandbox = new StandInSandbox(Payloads.output(Math.max(1, outputBytes / caseCount), true));
+        List<String> inputList = new ArrayList<>(caseCount);
+        for (int i = 0; i < caseCount; i++) {
+            inputList.add(i + " " + (i + 1) + "\n");
+        }
+        executeCodeRequest = ExecuteCodeRequest.builder()
+                .language("stand-in")
+                .code("print(input())")
+                .inputList(inputList)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sandbox.destroy();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public ExecuteCodeResponse executeCode() {
+        return sandbox.executeCode(executeCodeRequest);
+    }
+}
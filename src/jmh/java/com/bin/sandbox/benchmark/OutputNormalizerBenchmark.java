@@ -0,0 +1,46 @@
+package com.bin.sandbox.benchmark;
+
+import com.bin.sandbox.judge.OutputNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 输出规范化（{@code normalizeOutput}）：已规范化的输出只扫描一遍直接返回，否则统一换行并去掉行尾空白和末尾空行。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OutputNormalizerBenchmark {
+
+    @Param({"1024", "1048576", "52428800"})
+    private int outputBytes;
+
+    @Param({"true", "false"})
+    private boolean normalized;
+
+    private String output;
+
+    @Setup
+    public void setup() {
+        output = Payloads.output(outputBytes, normalized);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return OutputNormalizer.normalize(output);
+    }
+}
@@ -0,0 +1,130 @@
+package com.bin.sandbox.benchmark;
+
+import com.bin.sandbox.model.ExecuteMessage;
+import com.bin.sandbox.utils.BoundedOutputBuffer;
+import com.bin.sandbox.utils.ProcessUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取程序输出：本地进程路径 {@link ProcessUtils}（按行读取流），以及容器路径按数据帧写入
+ * {@link BoundedOutputBuffer} 后解码并规范化。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OutputReadBenchmark {
+
+    /**
+     * Docker 日志流单帧的常见大小
+     */
+    private static final int FRAME_SIZE = 8 * 1024;
+
+    @Param({"1024", "1048576", "52428800"})
+    private int outputBytes;
+
+    private byte[] output;
+
+    private byte[][] frames;
+
+    private PrintStream stdout;
+
+    @Setup
+    public void setup() {
+        stdout = System.out;
+        System.setOut(Payloads.discardingStream());
+        output = Payloads.output(outputBytes, true).getBytes(StandardCharsets.UTF_8);
+        frames = new byte[(output.length + FRAME_SIZE - 1) / FRAME_SIZE][];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = Arrays.copyOfRange(output, i * FRAME_SIZE, Math.min(output.length, (i + 1) * FRAME_SIZE));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public ExecuteMessage processReadStream() {
+        return ProcessUtils.runProcessAndGetMessage(new StandInProcess(output), "运行");
+    }
+
+    @Benchmark
+    public String containerFrames() {
+        BoundedOutputBuffer buffer = new BoundedOutputBuffer(Integer.MAX_VALUE);
+        for (byte[] frame : frames) {
+            buffer.append(frame);
+        }
+        return buffer.toNormalizedString();
+    }
+
+    /**
+     * 已结束的进程，标准输出为预置内容
+     */
+    private static class StandInProcess extends Process {
+
+        private final byte[] stdout;
+
+        StandInProcess(byte[] stdout) {
+            this.stdout = stdout;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new DiscardingOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(stdout);
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    private static class DiscardingOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+    }
+}
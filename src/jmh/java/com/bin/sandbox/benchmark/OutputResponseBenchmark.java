@@ -0,0 +1,76 @@
+package com.bin.sandbox.benchmark;
+
+import com.bin.sandbox.model.ExecuteCodeResponse;
+import com.bin.sandbox.model.ExecuteMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 汇总输出响应（{@code getOutputResponse}），{@code outputBytes} 为一次提交全部用例的输出总量，平均分到各用例。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OutputResponseBenchmark {
+
+    @Param({"1024", "1048576", "52428800"})
+    private int outputBytes;
+
+    @Param({"1", "100"})
+    private int caseCount;
+
+    private StandInSandbox sandbox;
+
+    private List<ExecuteMessage> executeMessageList;
+
+    private PrintStream stdout;
+
+    @Setup
+    public void setup() {
+        stdout = System.out;
+        System.setOut(Payloads.discardingStream());
+        sandbox = new StandInSandbox("");
+        executeMessageList = new ArrayList<>(caseCount);
+        for (int i = 0; i < caseCount; i++) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(0);
+            // 容器输出读取时已规范化
+            executeMessage.setMessage(Payloads.output(Math.max(1, outputBytes / caseCount), true));
+            executeMessage.setErrorMessage("");
+            executeMessage.setTime(1L);
+            executeMessage.setMemory(16 * 1024 * 1024L);
+            executeMessage.setTimeout(false);
+            executeMessage.setOutputLimitExceeded(false);
+            executeMessageList.add(executeMessage);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sandbox.destroy();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public ExecuteCodeResponse getOutputResponse() {
+        return sandbox.getOutputResponse(executeMessageList);
+    }
+}
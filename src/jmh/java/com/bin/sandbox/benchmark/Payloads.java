@@ -0,0 +1,57 @@
+package com.bin.sandbox.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * 基准测试负载：按行生成的程序输出，行长与常见判题输出相近。
+ */
+final class Payloads {
+
+    private static final String LINE = "12345 67890 abcdef 3.1415926";
+
+    private Payloads() {
+    }
+
+    /**
+     * 生成指定大小的输出
+     *
+     * @param bytes      大小（字节）
+     * @param normalized 是否已规范化；否则使用 CRLF 换行、行尾带空格、末尾带空行
+     * @return 输出
+     */
+    static String output(int bytes, boolean normalized) {
+        String lineEnd = normalized ? "\n" : "  \r\n";
+        StringBuilder sb = new StringBuilder(bytes + LINE.length() + lineEnd.length());
+        while (sb.length() < bytes) {
+            sb.append(LINE).append(lineEnd);
+        }
+        sb.setLength(bytes);
+        if (normalized) {
+            // 截断后去掉行尾空格，保持已规范化
+            while (sb.length() > 0 && sb.charAt(sb.length() - 1) == ' ') {
+                sb.setLength(sb.length() - 1);
+            }
+        } else {
+            sb.append("\r\n\r\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 丢弃输出的打印流，屏蔽沙箱的控制台日志，只保留构造日志字符串的开销
+     *
+     * @return 打印流
+     */
+    static PrintStream discardingStream() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package com.bin.sandbox.benchmark;
+
+import com.bin.sandbox.DockerCodeSandboxTemplate;
+import com.bin.sandbox.config.ExecutionProperties;
+import com.bin.sandbox.model.ExecOptions;
+import com.bin.sandbox.model.ExecResult;
+import com.bin.sandbox.model.ExecuteCodeRequest;
+import com.bin.sandbox.model.ExecuteMessage;
+import com.bin.sandbox.scheduler.CaseExecutor;
+import com.github.dockerjava.api.DockerClient;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 不连接 Docker 的替身沙箱：写文件、调度用例、规范化和汇总输出走真实代码，容器内执行直接返回预置输出，
+ * 用于测量 {@code executeCode} 除容器外的编排开销。
+ */
+class StandInSandbox extends DockerCodeSandboxTemplate {
+
+    private static final String CONTAINER_ID = "stand-in";
+
+    private final String output;
+
+    StandInSandbox(String output) {
+        this.output = output;
+        CaseExecutor caseExecutor = new CaseExecutor();
+        inject(caseExecutor, CaseExecutor.class, "executionProperties", new ExecutionProperties());
+        caseExecutor.init();
+        inject(this, DockerCodeSandboxTemplate.class, "caseExecutor", caseExecutor);
+    }
+
+    void destroy() {
+        try {
+            Field field = DockerCodeSandboxTemplate.class.getDeclaredField("caseExecutor");
+            field.setAccessible(true);
+            ((CaseExecutor) field.get(this)).destroy();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public InputStream stdIn(String input) {
+        return buildStdIn(input);
+    }
+
+    @Override
+    public List<ExecuteMessage> runFile(File userCodeFile, ExecuteCodeRequest executeCodeRequest) {
+        return runInLanes(null, Collections.singletonList(CONTAINER_ID), userCodeFile, executeCodeRequest);
+    }
+
+    @Override
+    protected ExecResult execInContainer(DockerClient dockerClient, String containerId, String[] cmd, String input,
+                                         ExecOptions options) {
+        ExecResult execResult = new ExecResult();
+        execResult.setExitCode(0);
+        execResult.setStdout(options.isNormalizeStdout() ? normalizeOutput(output) : output);
+        execResult.setStderr("");
+        execResult.setTime(1L);
+        execResult.setMaxMemory(16 * 1024 * 1024L);
+        execResult.setTimeout(false);
+        execResult.setOutputLimitExceeded(false);
+        return execResult;
+    }
+
+    @Override
+    protected String getDockerImage() {
+        return CONTAINER_ID;
+    }
+
+    @Override
+    protected String[] buildCompileCommand(File userCodeFile) {
+        return null;
+    }
+
+    @Override
+    protected String[] buildRunCommand(File userCodeFile) {
+        return new String[]{"cat"};
+    }
+
+    private static void inject(Object target, Class<?> owner, String name, Object value) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bin.sandbox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构造用例标准输入（{@code buildStdIn}）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StdInBenchmark {
+
+    @Param({"1024", "1048576", "52428800"})
+    private int inputBytes;
+
+    private StandInSandbox sandbox;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        sandbox = new StandInSandbox("");
+        input = Payloads.output(inputBytes, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sandbox.destroy();
+    }
+
+    @Benchmark
+    public InputStream buildStdIn() {
+        return sandbox.stdIn(input);
+    }
+}
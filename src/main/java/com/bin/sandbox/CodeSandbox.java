@@ -3,6 +3,9 @@ package com.bin.sandbox;
 import com.bin.sandbox.model.ExecuteCodeRequest;
 import com.bin.sandbox.model.ExecuteCodeResponse;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 代码沙箱接口定义
  */
@@ -14,4 +17,18 @@ public interface CodeSandbox {
      * @return
      */
     ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest);
+
+    /**
+     * 批量执行同一语言的代码，结果顺序与请求一致
+     *
+     * @param executeCodeRequestList 请求列表
+     * @return 响应列表
+     */
+    default List<ExecuteCodeResponse> executeBatch(List<ExecuteCodeRequest> executeCodeRequestList) {
+        List<ExecuteCodeResponse> executeCodeResponseList = new ArrayList<>();
+        for (ExecuteCodeRequest executeCodeRequest : executeCodeRequestList) {
+            executeCodeResponseList.add(executeCode(executeCodeRequest));
+        }
+        return executeCodeResponseList;
+    }
 }
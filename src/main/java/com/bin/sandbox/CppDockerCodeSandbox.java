@@ -1,9 +1,13 @@
 package com.bin.sandbox;
 
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.lang.UUID;
+import cn.hutool.core.util.StrUtil;
+import com.bin.sandbox.config.CppProperties;
+import com.bin.sandbox.constant.LanguageConstant;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Resource;
 import org.springframework.stereotype.Component;
 
 /**
@@ -12,35 +16,46 @@ import org.springframework.stereotype.Component;
 @Component("cppDockerCodeSandBox")
 public class CppDockerCodeSandbox extends DockerCodeSandboxTemplate {
 
-    private static final String GLOBAL_CODE_DIR_NAME = "tmpCode";
-
     private static final String GLOBAL_CPP_FILE_NAME = "main.cpp";
 
     private static final String EXECUTABLE_NAME = "main";
 
     private static final String DEFAULT_IMAGE = "gcc:13";
 
+    /**
+     * Compile flags. docker/CPP/Dockerfile precompiles bits/stdc++.h with the same CXXFLAGS;
+     * g++ only loads the .gch when the flags match, so keep both in sync.
+     */
+    private static final String[] COMPILE_FLAGS = {"-O2", "-std=c++17"};
+
+    @Resource
+    private CppProperties cppProperties;
+
     @Override
-    public File saveCodeToFile(String code) {
-        String userDir = System.getProperty("user.dir");
-        String globalCodePathName = userDir + File.separator + GLOBAL_CODE_DIR_NAME;
-        if (!FileUtil.exist(globalCodePathName)) {
-            FileUtil.mkdir(globalCodePathName);
-        }
-
-        String userCodeParentPath = globalCodePathName + File.separator + UUID.randomUUID();
-        String userCodePath = userCodeParentPath + File.separator + GLOBAL_CPP_FILE_NAME;
-        return FileUtil.writeString(code, userCodePath, StandardCharsets.UTF_8);
+    protected String getCodeFileName() {
+        return GLOBAL_CPP_FILE_NAME;
     }
 
     @Override
     protected String getDockerImage() {
-        return DEFAULT_IMAGE;
+        return cppProperties == null || StrUtil.isBlank(cppProperties.getImage())
+                ? DEFAULT_IMAGE
+                : cppProperties.getImage();
+    }
+
+    @Override
+    protected String getLanguage() {
+        return LanguageConstant.CPP;
     }
 
     @Override
     protected String[] buildCompileCommand(File userCodeFile) {
-        return new String[]{"g++", "/app/" + GLOBAL_CPP_FILE_NAME, "-O2", "-std=c++17", "-o", "/app/" + EXECUTABLE_NAME};
+        List<String> command = new ArrayList<>();
+        command.add("g++");
+        command.add("/app/" + GLOBAL_CPP_FILE_NAME);
+        command.addAll(Arrays.asList(COMPILE_FLAGS));
+        command.addAll(Arrays.asList("-o", "/app/" + EXECUTABLE_NAME));
+        return command.toArray(new String[0]);
     }
 
     @Override
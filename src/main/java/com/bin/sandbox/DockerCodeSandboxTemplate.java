@@ -3,19 +3,43 @@ package com.bin.sandbox;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.StrUtil;
-import com.bin.sandbox.config.DockerClientFactory;
+import com.bin.sandbox.cache.CompileCache;
+import com.bin.sandbox.cgroup.ContainerCgroup;
+import com.bin.sandbox.cgroup.ContainerCgroupLocator;
+import com.bin.sandbox.cgroup.MemoryPeakTracker;
+import com.bin.sandbox.cgroup.SubmissionCgroup;
+import com.bin.sandbox.config.ExecutionProperties;
+import com.bin.sandbox.config.LimitProperties;
+import com.bin.sandbox.constant.VerdictConstant;
+import com.bin.sandbox.image.ImageManager;
+import com.bin.sandbox.judge.OutputComparator;
+import com.bin.sandbox.judge.OutputHasher;
+import com.bin.sandbox.judge.OutputNormalizer;
+import com.bin.sandbox.metrics.SandboxMetrics;
+import com.bin.sandbox.model.ExecOptions;
 import com.bin.sandbox.model.ExecResult;
 import com.bin.sandbox.model.ExecuteCodeRequest;
 import com.bin.sandbox.model.ExecuteCodeResponse;
 import com.bin.sandbox.model.ExecuteMessage;
 import com.bin.sandbox.model.JudgeInfo;
+import com.bin.sandbox.model.ResourceLimits;
+import com.bin.sandbox.namespace.NamespaceRunner;
+import com.bin.sandbox.pool.ContainerPool;
+import com.bin.sandbox.pool.ContainerPoolManager;
+import com.bin.sandbox.pool.PooledContainer;
+import com.bin.sandbox.scheduler.AdmissionRejectedException;
+import com.bin.sandbox.scheduler.AdmissionScheduler;
+import com.bin.sandbox.scheduler.CaseExecutor;
+import com.bin.sandbox.scheduler.CpuCoreAllocator;
+import com.bin.sandbox.utils.BoundedOutputBuffer;
+import com.bin.sandbox.utils.TarUtils;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.CreateContainerCmd;
-import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.ExecCreateCmd;
 import com.github.dockerjava.api.command.ExecCreateCmdResponse;
 import com.github.dockerjava.api.command.ExecStartCmd;
-import com.github.dockerjava.api.command.PullImageCmd;
+import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.command.StatsCmd;
 import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.Bind;
@@ -25,38 +49,129 @@ import com.github.dockerjava.api.model.Statistics;
 import com.github.dockerjava.api.model.StreamType;
 import com.github.dockerjava.api.model.Volume;
 import com.github.dockerjava.core.command.ExecStartResultCallback;
-import com.github.dockerjava.core.command.PullImageResultCallback;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StopWatch;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Docker 代码沙箱模板
  */
+@Slf4j
 public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
 
     private static final String GLOBAL_CODE_DIR_NAME = "tmpCode";
     private static final String GLOBAL_JAVA_CLASS_NAME = "Main.java";
     private static final long DEFAULT_RUN_TIMEOUT = 5000L;
+    private static final long DEFAULT_MEMORY_LIMIT_MB = 100L;
     private static final long DEFAULT_COMPILE_TIMEOUT = 10000L;
-    private static final long PULL_TIMEOUT = 5 * 60 * 1000L;
+    private static final String[] KEEP_ALIVE_COMMAND = {"sleep", "infinity"};
+    private static final String[] KILL_ALL_COMMAND = {"sh", "-c", "kill -9 -1 2>/dev/null; true"};
+    private static final long CPU_POLL_INTERVAL = 20L;
+    protected static final int DEFAULT_OUTPUT_LIMIT = 4 * 1024 * 1024;
+    private static final long MB = 1024 * 1024L;
+    private static final int SIGKILL_EXIT_CODE = 137;
+    private static final String TMPFS_OPTIONS = "rw,exec,nosuid,size=64m";
+    private static final String[] TAR_EXTRACT_COMMAND = {"tar", "-x", "-f", "-", "-C", "/app"};
+    private static final String[] TAR_CREATE_COMMAND = {"tar", "-c", "-f", "-", "-C", "/app", "."};
+
+    @Resource
+    private DockerClient dockerClient;
+
+    @Resource
+    private ContainerPoolManager containerPoolManager;
+
+    @Resource
+    private ExecutionProperties executionProperties;
+
+    @Resource
+    private LimitProperties limitProperties;
+
+    @Resource
+    private CompileCache compileCache;
+
+    @Resource
+    private CaseExecutor caseExecutor;
+
+    @Resource
+    private ContainerCgroupLocator containerCgroupLocator;
+
+    @Resource
+    private ImageManager imageManager;
+
+    @Resource
+    private CpuCoreAllocator cpuCoreAllocator;
+
+    @Resource
+    private AdmissionScheduler admissionScheduler;
+
+    @Resource
+    private SandboxMetrics sandboxMetrics;
+
+    @Resource
+    private NamespaceRunner namespaceRunner;
+
+    /**
+     * 向镜像管理器和容器池注册当前语言镜像，使用命名空间后端时不依赖 Docker，不注册
+     */
+    @PostConstruct
+    public void registerImage() {
+        if (isNamespaceBackend()) {
+            return;
+        }
+        imageManager.registerImage(getDockerImage());
+        if (containerPoolManager != null && containerPoolManager.isEnabled()) {
+            containerPoolManager.registerPool(getDockerImage(),
+                    (dockerClient, workspacePath) -> createWorkspaceContainer(dockerClient, workspacePath, true));
+        }
+    }
 
+    /**
+     * 领取准入许可后执行提交
+     *
+     * @throws AdmissionRejectedException 排队已满或排队超时
+     */
     @Override
     public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
-        List<String> inputList = executeCodeRequest.getInputList();
+        return admitAndExecute(executeCodeRequest, () -> executeAdmitted(executeCodeRequest));
+    }
+
+    private ExecuteCodeResponse executeAdmitted(ExecuteCodeRequest executeCodeRequest) {
         String code = executeCodeRequest.getCode();
-        if (inputList == null || inputList.isEmpty()) {
-            inputList = new ArrayList<>();
-            inputList.add("");
+        if (isNamespaceBackend()) {
+            return executeInNamespace(executeCodeRequest);
+        }
+        if (containerPoolManager != null && containerPoolManager.isEnabled()) {
+            return executeInPooledContainer(executeCodeRequest);
+        }
+        if (isArchiveWorkspace()) {
+            return executeInArchiveContainer(executeCodeRequest);
+        }
+        if (executionProperties != null && executionProperties.isSingleContainer()) {
+            return executeInSingleContainer(executeCodeRequest);
         }
 
         File userCodeFile = null;
@@ -65,22 +180,17 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
             userCodeFile = saveCodeToFile(code);
 
             // 2. 编译代码为 class
-            ExecuteMessage compileFileExecuteMessage = compileFile(userCodeFile);
-            System.out.println(compileFileExecuteMessage);
+            File compileTarget = userCodeFile;
+            compileWithCache(code, userCodeFile, () -> compileFile(compileTarget));
 
             // 3. 运行代码并收集输出
-            List<ExecuteMessage> executeMessageList = runFile(userCodeFile, inputList);
+            List<ExecuteMessage> executeMessageList = runFile(userCodeFile, executeCodeRequest);
 
             // 4. 汇总输出响应
             return getOutputResponse(executeMessageList);
         } catch (Exception e) {
             // 编译错误 / 沙箱内部异常，不应抛出 500，统一返回结构化响应
-            ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
-            executeCodeResponse.setOutputList(new ArrayList<>());
-            executeCodeResponse.setMessage(e.getMessage());
-            executeCodeResponse.setStatus(2);
-            executeCodeResponse.setJudgeInfo(new JudgeInfo());
-            return executeCodeResponse;
+            return getErrorResponse(e);
         } finally {
             // 5. 清理文件
             if (userCodeFile != null) {
@@ -93,175 +203,1419 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
     }
 
     /**
-     * 保存用户代码到文件。
+     * 批量执行同一语言的提交。
+     * <p>
+     * 单容器模式和内存工作目录模式下每条通道只创建一个容器，依次处理领取到的提交，提交之间清理进程和工作目录后复用，
+     * 镜像检查和容器创建按通道而不是按提交进行；容器池模式、多容器模式和命名空间后端直接并发执行单个提交。
      *
-     * @param code 用户代码
-     * @return 代码文件
+     * @param executeCodeRequestList 请求列表
+     * @return 响应列表，顺序与请求一致
      */
-    public File saveCodeToFile(String code) {
-        String userDir = System.getProperty("user.dir");
-        String globalCodePathName = userDir + File.separator + GLOBAL_CODE_DIR_NAME;
-        if (!FileUtil.exist(globalCodePathName)) {
-            FileUtil.mkdir(globalCodePathName);
+    @Override
+    public List<ExecuteCodeResponse> executeBatch(List<ExecuteCodeRequest> executeCodeRequestList) {
+        int requestCount = executeCodeRequestList.size();
+        if (requestCount == 0) {
+            return new ArrayList<>();
+        }
+        int batchParallelism = executionProperties == null ? 1 : executionProperties.getBatchParallelism();
+        int laneCount = Math.max(1, Math.min(batchParallelism, requestCount));
+        boolean poolEnabled = containerPoolManager != null && containerPoolManager.isEnabled();
+        boolean shareContainer = executionProperties != null
+                && (executionProperties.isSingleContainer() || executionProperties.isArchiveWorkspace());
+        if (poolEnabled || !shareContainer || isNamespaceBackend()) {
+            return caseExecutor.runBatch(laneCount, requestCount, (lane, index) -> {
+                try {
+                    return executeCode(executeCodeRequestList.get(index));
+                } catch (AdmissionRejectedException e) {
+                    return getErrorResponse(e);
+                }
+            });
+        }
+        String[] laneWorkspacePaths = new String[laneCount];
+        String[] laneContainerIds = new String[laneCount];
+        long[] laneMemoryLimits = new long[laneCount];
+        try {
+            return caseExecutor.runBatch(laneCount, requestCount, (lane, index) -> {
+                ExecuteCodeRequest executeCodeRequest = executeCodeRequestList.get(index);
+                try {
+                    return admitAndExecute(executeCodeRequest, () -> executeInBatchContainer(executeCodeRequest,
+                            lane, laneWorkspacePaths, laneContainerIds, laneMemoryLimits));
+                } catch (AdmissionRejectedException e) {
+                    return getErrorResponse(e);
+                }
+            });
+        } finally {
+            for (int lane = 0; lane < laneCount; lane++) {
+                if (laneContainerIds[lane] != null) {
+                    cleanupContainer(dockerClient, laneContainerIds[lane]);
+                }
+                if (laneWorkspacePaths[lane] != null) {
+                    FileUtil.del(laneWorkspacePaths[lane]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在通道复用的容器中编译并运行单个提交，结束后清理容器，清理失败时丢弃容器由下一个提交重建
+     *
+     * @param executeCodeRequest 执行请求
+     * @param lane               通道下标
+     * @param laneWorkspacePaths 各通道工作目录
+     * @param laneContainerIds   各通道容器 id
+     * @param laneMemoryLimits   各通道容器当前的内存上限
+     * @return 输出响应
+     */
+    private ExecuteCodeResponse executeInBatchContainer(ExecuteCodeRequest executeCodeRequest, int lane,
+                                                        String[] laneWorkspacePaths, String[] laneContainerIds,
+                                                        long[] laneMemoryLimits) {
+        String code = executeCodeRequest.getCode();
+        boolean archiveWorkspace = isArchiveWorkspace();
+        long memoryLimit = resolveLimits(executeCodeRequest).getContainerMemoryBytes();
+        try {
+            if (laneContainerIds[lane] == null) {
+                if (laneWorkspacePaths[lane] == null && !archiveWorkspace) {
+                    laneWorkspacePaths[lane] = createWorkspacePath();
+                    FileUtil.mkdir(laneWorkspacePaths[lane]);
+                }
+                laneContainerIds[lane] = createWorkspaceContainer(dockerClient, laneWorkspacePaths[lane], memoryLimit);
+                laneMemoryLimits[lane] = memoryLimit;
+            } else if (laneMemoryLimits[lane] != memoryLimit) {
+                updateContainerMemory(dockerClient, laneContainerIds[lane], memoryLimit);
+                laneMemoryLimits[lane] = memoryLimit;
+            }
+            String containerId = laneContainerIds[lane];
+            File userCodeFile;
+            if (archiveWorkspace) {
+                userCodeFile = writeCodeToContainer(code, containerId);
+                compileInArchiveWorkspace(code, containerId, userCodeFile);
+            } else {
+                File codeFile = saveCodeToFile(code, laneWorkspacePaths[lane]);
+                userCodeFile = codeFile;
+                compileWithCache(code, codeFile, () -> compileInContainer(dockerClient, containerId, codeFile));
+            }
+            List<ExecuteMessage> executeMessageList = runInLanes(dockerClient,
+                    Collections.singletonList(containerId), userCodeFile, executeCodeRequest);
+            return getOutputResponse(executeMessageList);
+        } catch (Exception e) {
+            return getErrorResponse(e);
+        } finally {
+            if (laneContainerIds[lane] != null && !scrubContainer(laneContainerIds[lane], laneWorkspacePaths[lane])) {
+                cleanupContainer(dockerClient, laneContainerIds[lane]);
+                laneContainerIds[lane] = null;
+                if (laneWorkspacePaths[lane] != null) {
+                    FileUtil.clean(laneWorkspacePaths[lane]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 领取准入许可后执行提交，记录排队和整次提交的耗时
+     *
+     * @param executeCodeRequest 执行请求
+     * @param execution          获准后的执行
+     * @return 输出响应
+     * @throws AdmissionRejectedException 排队已满或排队超时
+     */
+    private ExecuteCodeResponse admitAndExecute(ExecuteCodeRequest executeCodeRequest,
+                                                Supplier<ExecuteCodeResponse> execution) {
+        long startNanos = System.nanoTime();
+        String outcome = SandboxMetrics.OUTCOME_ERROR;
+        if (sandboxMetrics != null) {
+            sandboxMetrics.submissionStarted();
         }
+        try {
+            AdmissionScheduler.Permit permit;
+            try {
+                permit = timed(SandboxMetrics.PHASE_QUEUE, () -> admit(executeCodeRequest));
+            } catch (AdmissionRejectedException e) {
+                outcome = SandboxMetrics.OUTCOME_REJECTED;
+                throw e;
+            }
+            try {
+                ExecuteCodeResponse executeCodeResponse = execution.get();
+                outcome = getSubmissionOutcome(executeCodeResponse);
+                return executeCodeResponse;
+            } finally {
+                releasePermit(permit);
+            }
+        } finally {
+            if (sandboxMetrics != null) {
+                sandboxMetrics.submissionFinished();
+                sandboxMetrics.recordSubmission(getLanguage(), outcome, startNanos);
+            }
+        }
+    }
 
-        String userCodeParentPath = globalCodePathName + File.separator + UUID.randomUUID();
-        String userCodePath = userCodeParentPath + File.separator + GLOBAL_JAVA_CLASS_NAME;
-        return FileUtil.writeString(code, userCodePath, StandardCharsets.UTF_8);
+    private static String getSubmissionOutcome(ExecuteCodeResponse executeCodeResponse) {
+        Integer status = executeCodeResponse == null ? null : executeCodeResponse.getStatus();
+        if (status == null || status == 2) {
+            return SandboxMetrics.OUTCOME_ERROR;
+        }
+        return status == 1 ? SandboxMetrics.OUTCOME_SUCCESS : SandboxMetrics.OUTCOME_FAILURE;
     }
 
     /**
-     * 删除文件。
+     * 计时执行阶段，抛出异常时结果为 failure
      *
-     * @param userCodeFile 代码文件
-     * @return 是否删除成功
+     * @param phase  阶段
+     * @param action 阶段动作
+     * @param <T>    结果类型
+     * @return 动作结果
      */
-    public boolean deleteFile(File userCodeFile) {
-        if (userCodeFile.getParentFile() != null) {
-            String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
-            boolean del = FileUtil.del(userCodeParentPath);
-            System.out.println("删除" + (del ? "成功" : "失败"));
-            return del;
+    protected <T> T timed(String phase, Supplier<T> action) {
+        if (sandboxMetrics == null) {
+            return action.get();
+        }
+        return sandboxMetrics.timePhase(phase, getLanguage(), action);
+    }
+
+    /**
+     * 记录阶段耗时
+     *
+     * @param phase         阶段
+     * @param outcome       结果
+     * @param durationNanos 耗时（纳秒）
+     */
+    protected void recordPhase(String phase, String outcome, long durationNanos) {
+        if (sandboxMetrics != null) {
+            sandboxMetrics.recordPhase(phase, getLanguage(), outcome, durationNanos);
+        }
+    }
+
+    /**
+     * 按提交占用的容器数和内存上限领取准入许可
+     *
+     * @param executeCodeRequest 执行请求
+     * @return 许可，未启用准入控制时为 null
+     * @throws AdmissionRejectedException 排队已满或排队超时
+     */
+    private AdmissionScheduler.Permit admit(ExecuteCodeRequest executeCodeRequest) {
+        if (admissionScheduler == null || !admissionScheduler.isEnabled()) {
+            return null;
+        }
+        int containerCount = getCaseLaneCount(getInputList(executeCodeRequest).size());
+        long memoryBytes = resolveLimits(executeCodeRequest).getContainerMemoryBytes() * containerCount;
+        return admissionScheduler.acquire(executeCodeRequest.getCaller(), getLanguage(), memoryBytes);
+    }
+
+    private void releasePermit(AdmissionScheduler.Permit permit) {
+        if (admissionScheduler != null) {
+            admissionScheduler.release(permit);
+        }
+    }
+
+    /**
+     * 清理容器内进程、工作目录、临时目录、共享内存和消息队列，容器内仍有残留时视为失败
+     *
+     * @param containerId   容器 id
+     * @param workspacePath 工作目录，内存工作目录时为 null
+     * @return 是否清理干净
+     */
+    private boolean scrubContainer(String containerId, String workspacePath) {
+        try {
+            ExecResult execResult = execInContainer(dockerClient, containerId, ContainerPool.SCRUB_COMMAND, null,
+                    DEFAULT_COMPILE_TIMEOUT, false, false);
+            if (Boolean.TRUE.equals(execResult.getTimeout())
+                    || execResult.getExitCode() == null || execResult.getExitCode() != 0) {
+                return false;
+            }
+            return workspacePath == null || FileUtil.isDirEmpty(new File(workspacePath));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 获取用例停止条件，请求开启快速失败时遇到首个失败用例即停止调度
+     *
+     * @param executeCodeRequest 执行请求
+     * @return 停止条件，未开启时返回 null
+     */
+    protected Predicate<ExecuteMessage> getStopCondition(ExecuteCodeRequest executeCodeRequest) {
+        return Boolean.TRUE.equals(executeCodeRequest.getFailFast()) ? this::isCaseFailed : null;
+    }
+
+    /**
+     * 用例是否失败，判定规则与 {@link #getOutputResponse(List)} 一致：输出超限、超时、有标准错误，
+     * 或提供期望输出时判定结果不是 AC
+     *
+     * @param executeMessage 执行信息
+     * @return 是否失败
+     */
+    protected boolean isCaseFailed(ExecuteMessage executeMessage) {
+        if (executeMessage.getVerdict() != null) {
+            return !VerdictConstant.ACCEPTED.equals(executeMessage.getVerdict());
+        }
+        return Boolean.TRUE.equals(executeMessage.getOutputLimitExceeded())
+                || Boolean.TRUE.equals(executeMessage.getTimeout())
+                || StrUtil.isNotBlank(executeMessage.getErrorMessage());
+    }
+
+    /**
+     * 获取输入用例，未提供时按一个空输入运行
+     *
+     * @param executeCodeRequest 执行请求
+     * @return 输入列表
+     */
+    protected List<String> getInputList(ExecuteCodeRequest executeCodeRequest) {
+        List<String> inputList = executeCodeRequest.getInputList();
+        if (inputList == null || inputList.isEmpty()) {
+            inputList = new ArrayList<>();
+            inputList.add("");
+        }
+        return inputList;
+    }
+
+    /**
+     * 在预热容器中编译并运行，工作目录由容器池在归还时清理；执行异常、有用例超时或输出超限时容器不复用。
+     *
+     * @param executeCodeRequest 执行请求
+     * @return 输出响应
+     */
+    protected ExecuteCodeResponse executeInPooledContainer(ExecuteCodeRequest executeCodeRequest) {
+        List<String> inputList = getInputList(executeCodeRequest);
+        String code = executeCodeRequest.getCode();
+        ContainerPool containerPool = containerPoolManager.getPool(getDockerImage());
+        long memoryLimit = resolveLimits(executeCodeRequest).getContainerMemoryBytes();
+        PooledContainer container = null;
+        List<PooledContainer> extraContainers = new ArrayList<>();
+        boolean reusable = false;
+        try {
+            container = containerPool.lease();
+            applyMemoryLimit(container, memoryLimit);
+            File userCodeFile = saveCodeToFile(code, container.getWorkspacePath());
+            String containerId = container.getContainerId();
+            compileWithCache(code, userCodeFile, () -> compileInContainer(dockerClient, containerId, userCodeFile));
+
+            // 并行运行时额外租用容器，复制代码和编译产物到各自的工作目录
+            List<String> laneContainerIds = new ArrayList<>();
+            laneContainerIds.add(containerId);
+            int extraLaneCount = getCaseLaneCount(inputList.size()) - 1;
+            for (int i = 0; i < extraLaneCount; i++) {
+                PooledContainer extraContainer = containerPool.tryLease();
+                if (extraContainer == null) {
+                    break;
+                }
+                extraContainers.add(extraContainer);
+                applyMemoryLimit(extraContainer, memoryLimit);
+                copyWorkspace(userCodeFile.getParentFile(), extraContainer.getWorkspacePath());
+                laneContainerIds.add(extraContainer.getContainerId());
+            }
+            List<ExecuteMessage> executeMessageList = runInLanes(dockerClient, laneContainerIds, userCodeFile,
+                    executeCodeRequest);
+            ExecuteCodeResponse executeCodeResponse = getOutputResponse(executeMessageList);
+            reusable = isContainerReusable(executeMessageList);
+            return executeCodeResponse;
+        } catch (Exception e) {
+            return getErrorResponse(e);
+        } finally {
+            // 归还时的清理命令同时作为健康检查，失败的容器会被退役
+            boolean containerReusable = reusable;
+            containerPool.release(container, containerReusable);
+            extraContainers.forEach(extraContainer -> containerPool.release(extraContainer, containerReusable));
+        }
+    }
+
+    /**
+     * 超时或输出超限的用例被强制结束，可能留下难以清理的状态，该次租用的容器都不再复用
+     *
+     * @param executeMessageList 执行信息列表，未调度的用例为 null
+     * @return 是否可以复用
+     */
+    private boolean isContainerReusable(List<ExecuteMessage> executeMessageList) {
+        for (ExecuteMessage executeMessage : executeMessageList) {
+            if (executeMessage != null && (Boolean.TRUE.equals(executeMessage.getTimeout())
+                    || Boolean.TRUE.equals(executeMessage.getOutputLimitExceeded()))) {
+                return false;
+            }
         }
         return true;
     }
 
     /**
-     * 获取镜像名
+     * 池化容器按默认限制创建，限制不同的提交租用后调整内存上限，下次租用时按需要再调整
      *
-     * @return 镜像名
+     * @param container   池化容器
+     * @param memoryLimit 容器内存上限（字节）
      */
-    protected abstract String getDockerImage();
+    private void applyMemoryLimit(PooledContainer container, long memoryLimit) {
+        long currentLimit = container.getMemoryLimit() > 0
+                ? container.getMemoryLimit()
+                : getDefaultLimits().getContainerMemoryBytes();
+        if (currentLimit != memoryLimit) {
+            updateContainerMemory(dockerClient, container.getContainerId(), memoryLimit);
+            container.setMemoryLimit(memoryLimit);
+        }
+    }
 
     /**
-     * 生成编译命令
+     * 由同一个容器完成编译和运行：编译阶段以 root 写入 /app，运行阶段以降权用户执行，
+     * 每次提交只需一次容器创建、启动和删除。
      *
-     * @param userCodeFile 代码文件
-     * @return 编译命令
+     * @param executeCodeRequest 执行请求
+     * @return 输出响应
      */
-    protected abstract String[] buildCompileCommand(File userCodeFile);
+    protected ExecuteCodeResponse executeInSingleContainer(ExecuteCodeRequest executeCodeRequest) {
+        List<String> inputList = getInputList(executeCodeRequest);
+        String code = executeCodeRequest.getCode();
+        long memoryLimit = resolveLimits(executeCodeRequest).getContainerMemoryBytes();
+        File userCodeFile = null;
+        List<String> laneContainerIds = Collections.synchronizedList(new ArrayList<>());
+        try {
+            userCodeFile = saveCodeToFile(code);
+            String workspacePath = userCodeFile.getParentFile().getAbsolutePath();
+            String containerId = createWorkspaceContainer(dockerClient, workspacePath, memoryLimit);
+            laneContainerIds.add(containerId);
+            File compileTarget = userCodeFile;
+            compileWithCache(code, userCodeFile, () -> compileInContainer(dockerClient, containerId, compileTarget));
+
+            // 并行运行时额外创建挂载同一工作目录的容器，运行阶段降权，不会相互修改
+            int laneCount = getCaseLaneCount(inputList.size());
+            if (laneCount > 1) {
+                caseExecutor.runConcurrently(laneCount - 1, (lane, index) -> {
+                    String extraContainerId = createWorkspaceContainer(dockerClient, workspacePath, memoryLimit);
+                    laneContainerIds.add(extraContainerId);
+                    return extraContainerId;
+                });
+            }
+            List<ExecuteMessage> executeMessageList = runInLanes(dockerClient, laneContainerIds, userCodeFile,
+                    executeCodeRequest);
+            return getOutputResponse(executeMessageList);
+        } catch (Exception e) {
+            return getErrorResponse(e);
+        } finally {
+            laneContainerIds.forEach(laneContainerId -> cleanupContainer(dockerClient, laneContainerId));
+            if (userCodeFile != null) {
+                boolean deleted = deleteFile(userCodeFile);
+                if (!deleted) {
+                    System.err.println("删除文件失败, userCodeFilePath = " + userCodeFile.getAbsolutePath());
+                }
+            }
+        }
+    }
 
     /**
-     * 生成运行命令
+     * 在内存工作目录容器中编译并运行：/app 为容器内 tmpfs，代码和编译产物以内存 tar 写入，不读写宿主机目录
      *
-     * @param userCodeFile 代码文件
-     * @return 运行命令
+     * @param executeCodeRequest 执行请求
+     * @return 输出响应
      */
-    protected abstract String[] buildRunCommand(File userCodeFile);
+    protected ExecuteCodeResponse executeInArchiveContainer(ExecuteCodeRequest executeCodeRequest) {
+        List<String> inputList = getInputList(executeCodeRequest);
+        String code = executeCodeRequest.getCode();
+        long memoryLimit = resolveLimits(executeCodeRequest).getContainerMemoryBytes();
+        List<String> laneContainerIds = Collections.synchronizedList(new ArrayList<>());
+        try {
+            String containerId = createWorkspaceContainer(dockerClient, null, memoryLimit);
+            laneContainerIds.add(containerId);
+            File userCodeFile = writeCodeToContainer(code, containerId);
+            compileInArchiveWorkspace(code, containerId, userCodeFile);
+
+            // 并行运行时把编译后的工作目录整体复制到额外创建的容器
+            int laneCount = getCaseLaneCount(inputList.size());
+            if (laneCount > 1) {
+                byte[] workspaceArchive = readWorkspaceArchive(containerId);
+                caseExecutor.runConcurrently(laneCount - 1, (lane, index) -> {
+                    String extraContainerId = createWorkspaceContainer(dockerClient, null, memoryLimit);
+                    laneContainerIds.add(extraContainerId);
+                    writeWorkspaceArchive(extraContainerId, workspaceArchive);
+                    return extraContainerId;
+                });
+            }
+            List<ExecuteMessage> executeMessageList = runInLanes(dockerClient, laneContainerIds, userCodeFile,
+                    executeCodeRequest);
+            return getOutputResponse(executeMessageList);
+        } catch (Exception e) {
+            return getErrorResponse(e);
+        } finally {
+            laneContainerIds.forEach(laneContainerId -> cleanupContainer(dockerClient, laneContainerId));
+        }
+    }
 
     /**
-     * 获取编译超时
+     * 不经过 Docker，在本机新建的命名空间中编译并运行，编译和运行命令与容器相同。
+     * <p>
+     * 工作目录在宿主机上，编译阶段可写，运行阶段只读挂载，各准备一次命名空间，用例只新建轻量的嵌套命名空间；
+     * 每个提交一个 cgroup，编译和每个用例各占一个子 cgroup，耗时、CPU 时间和峰值内存均取自该用例自己的 cgroup。
+     * 程序固定以命名空间内的 65534 用户运行，不切换用户。
      *
-     * @return 超时毫秒
+     * @param executeCodeRequest 执行请求
+     * @return 输出响应
      */
-    protected long getCompileTimeoutMs() {
-        return DEFAULT_COMPILE_TIMEOUT;
+    protected ExecuteCodeResponse executeInNamespace(ExecuteCodeRequest executeCodeRequest) {
+        List<String> inputList = getInputList(executeCodeRequest);
+        String code = executeCodeRequest.getCode();
+        ResourceLimits limits = resolveLimits(executeCodeRequest);
+        int laneCount = getCaseLaneCount(inputList.size());
+        File userCodeFile = null;
+        SubmissionCgroup submissionCgroup = null;
+        try {
+            userCodeFile = saveCodeToFile(code);
+            submissionCgroup = namespaceRunner.createCgroup(limits.getContainerMemoryBytes(), laneCount);
+            SubmissionCgroup cgroup = submissionCgroup;
+            File compileTarget = userCodeFile;
+            compileWithCache(code, userCodeFile, () -> compileInNamespace(cgroup, compileTarget));
+            List<ExecuteMessage> executeMessageList = runInNamespace(cgroup, userCodeFile, executeCodeRequest,
+                    laneCount);
+            return getOutputResponse(executeMessageList);
+        } catch (Exception e) {
+            return getErrorResponse(e);
+        } finally {
+            if (submissionCgroup != null) {
+                submissionCgroup.close();
+            }
+            if (userCodeFile != null) {
+                boolean deleted = deleteFile(userCodeFile);
+                if (!deleted) {
+                    System.err.println("删除文件失败, userCodeFilePath = " + userCodeFile.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * 在命名空间中编译，/app 可写
+     *
+     * @param submissionCgroup 提交 cgroup
+     * @param userCodeFile     代码文件
+     * @return 编译信息
+     */
+    protected ExecuteMessage compileInNamespace(SubmissionCgroup submissionCgroup, File userCodeFile) {
+        String[] compileCommand = buildCompileCommand(userCodeFile);
+        if (compileCommand == null || compileCommand.length == 0) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(0);
+            return executeMessage;
+        }
+        try (NamespaceRunner.Workspace workspace = namespaceRunner.prepare(submissionCgroup, getLanguage(),
+                userCodeFile.getParentFile(), true)) {
+            ExecResult execResult = namespaceRunner.exec(submissionCgroup, workspace, compileCommand, null,
+                    ExecOptions.builder()
+                            .timeoutMs(getCompileTimeoutMs())
+                            .failOnTimeout(true)
+                            .build());
+            return toCompileMessage(execResult);
+        }
+    }
+
+    /**
+     * 在命名空间中按通道并行运行用例，各用例共用一个只读挂载工作目录的命名空间，快速失败和期望输出比对与容器路径一致
+     *
+     * @param submissionCgroup   提交 cgroup
+     * @param userCodeFile       代码文件
+     * @param executeCodeRequest 执行请求
+     * @param laneCount          通道数
+     * @return 执行信息列表，未调度的用例为 null
+     */
+    protected List<ExecuteMessage> runInNamespace(SubmissionCgroup submissionCgroup, File userCodeFile,
+                                                  ExecuteCodeRequest executeCodeRequest, int laneCount) {
+        List<String> inputList = getInputList(executeCodeRequest);
+        List<String> expectedOutputList = executeCodeRequest.getExpectedOutputList();
+        if (expectedOutputList != null && expectedOutputList.size() != inputList.size()) {
+            throw new RuntimeException("期望输出数量与输入数量不一致");
+        }
+        ResourceLimits limits = resolveLimits(executeCodeRequest);
+        String[] runCommand = buildRunCommand(userCodeFile, limits);
+        ExecOptions runOptions = buildRunOptions(limits);
+        boolean hashCompare = executionProperties != null && executionProperties.isHashCompare();
+        try (NamespaceRunner.Workspace workspace = namespaceRunner.prepare(submissionCgroup, getLanguage(),
+                userCodeFile.getParentFile(), false)) {
+            CaseExecutor.LaneTask<ExecuteMessage> caseTask = (lane, index) -> {
+                ExecOptions caseOptions = buildCaseOptions(runOptions, expectedOutputList, index, hashCompare);
+                long startNanos = System.nanoTime();
+                ExecResult execResult;
+                try {
+                    execResult = namespaceRunner.exec(submissionCgroup, workspace, runCommand, inputList.get(index),
+                            caseOptions);
+                } catch (RuntimeException e) {
+                    recordPhase(SandboxMetrics.PHASE_EXEC, SandboxMetrics.OUTCOME_ERROR,
+                            System.nanoTime() - startNanos);
+                    throw e;
+                }
+                recordPhase(SandboxMetrics.PHASE_EXEC, getExecOutcome(execResult), System.nanoTime() - startNanos);
+                return toExecuteMessage(execResult, expectedOutputList != null);
+            };
+            return caseExecutor.runOrdered(laneCount, inputList.size(), caseTask,
+                    getStopCondition(executeCodeRequest));
+        }
+    }
+
+    /**
+     * 是否使用命名空间后端
+     *
+     * @return 是否使用
+     */
+    protected boolean isNamespaceBackend() {
+        return namespaceRunner != null && namespaceRunner.isEnabled();
+    }
+
+    /**
+     * 计算用例并行通道数
+     *
+     * @param caseCount 用例数
+     * @return 通道数
+     */
+    protected int getCaseLaneCount(int caseCount) {
+        int caseParallelism = executionProperties == null ? 1 : executionProperties.getCaseParallelism();
+        return Math.max(1, Math.min(caseParallelism, caseCount));
+    }
+
+    /**
+     * 复制工作目录中的代码和编译产物，保留可执行权限
+     *
+     * @param sourceDir  源工作目录
+     * @param targetPath 目标工作目录
+     * @throws IOException 复制失败
+     */
+    protected void copyWorkspace(File sourceDir, String targetPath) throws IOException {
+        File[] files = sourceDir.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            Files.copy(file.toPath(), Paths.get(targetPath, file.getName()),
+                    StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 构建错误响应
+     *
+     * @param e 异常
+     * @return 响应
+     */
+    protected ExecuteCodeResponse getErrorResponse(Throwable e) {
+        ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
+        executeCodeResponse.setOutputList(new ArrayList<>());
+        executeCodeResponse.setMessage(e.getMessage());
+        executeCodeResponse.setStatus(2);
+        executeCodeResponse.setJudgeInfo(new JudgeInfo());
+        return executeCodeResponse;
+    }
+
+    /**
+     * 保存用户代码到文件。
+     *
+     * @param code 用户代码
+     * @return 代码文件
+     */
+    public File saveCodeToFile(String code) {
+        return saveCodeToFile(code, createWorkspacePath());
+    }
+
+    /**
+     * 生成新的工作目录路径
+     *
+     * @return 工作目录路径
+     */
+    protected String createWorkspacePath() {
+        String userDir = System.getProperty("user.dir");
+        String globalCodePathName = userDir + File.separator + GLOBAL_CODE_DIR_NAME;
+        if (!FileUtil.exist(globalCodePathName)) {
+            FileUtil.mkdir(globalCodePathName);
+        }
+        return globalCodePathName + File.separator + UUID.randomUUID();
+    }
+
+    /**
+     * 保存用户代码到指定目录。
+     *
+     * @param code               用户代码
+     * @param userCodeParentPath 代码目录
+     * @return 代码文件
+     */
+    public File saveCodeToFile(String code, String userCodeParentPath) {
+        String userCodePath = userCodeParentPath + File.separator + getCodeFileName();
+        return timed(SandboxMetrics.PHASE_SAVE, () -> FileUtil.writeString(code, userCodePath, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 删除文件。
+     *
+     * @param userCodeFile 代码文件
+     * @return 是否删除成功
+     */
+    public boolean deleteFile(File userCodeFile) {
+        if (userCodeFile.getParentFile() != null) {
+            String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
+            long startNanos = System.nanoTime();
+            boolean del = FileUtil.del(userCodeParentPath);
+            recordPhase(SandboxMetrics.PHASE_DELETE, del ? SandboxMetrics.OUTCOME_SUCCESS : SandboxMetrics.OUTCOME_FAILURE,
+                    System.nanoTime() - startNanos);
+            System.out.println("删除" + (del ? "成功" : "失败"));
+            return del;
+        }
+        return true;
+    }
+
+    /**
+     * 获取代码文件名
+     *
+     * @return 代码文件名
+     */
+    protected String getCodeFileName() {
+        return GLOBAL_JAVA_CLASS_NAME;
+    }
+
+    /**
+     * 获取镜像名
+     *
+     * @return 镜像名
+     */
+    protected abstract String getDockerImage();
+
+    /**
+     * 生成编译命令
+     *
+     * @param userCodeFile 代码文件
+     * @return 编译命令
+     */
+    protected abstract String[] buildCompileCommand(File userCodeFile);
+
+    /**
+     * 生成运行命令
+     *
+     * @param userCodeFile 代码文件
+     * @return 运行命令
+     */
+    protected abstract String[] buildRunCommand(File userCodeFile);
+
+    /**
+     * 按资源限制生成运行命令，需要把内存限制传给虚拟机的语言覆盖此方法
+     *
+     * @param userCodeFile 代码文件
+     * @param limits       资源限制
+     * @return 运行命令
+     */
+    protected String[] buildRunCommand(File userCodeFile, ResourceLimits limits) {
+        return buildRunCommand(userCodeFile);
+    }
+
+    /**
+     * 获取编译超时
+     *
+     * @return 超时毫秒
+     */
+    protected long getCompileTimeoutMs() {
+        return limitProperties == null ? DEFAULT_COMPILE_TIMEOUT : limitProperties.getCompileTimeoutMs();
+    }
+
+    /**
+     * 获取语言标识，用于查找语言限制倍数
+     *
+     * @return 语言标识，为空时不调整限制
+     */
+    protected String getLanguage() {
+        return null;
+    }
+
+    /**
+     * 计算请求的资源限制：未指定或不合法时使用默认限制，超出上限时按上限执行，再乘以语言倍数
+     *
+     * @param executeCodeRequest 执行请求
+     * @return 资源限制
+     */
+    protected ResourceLimits resolveLimits(ExecuteCodeRequest executeCodeRequest) {
+        long timeLimitMs = DEFAULT_RUN_TIMEOUT;
+        long memoryLimitMb = DEFAULT_MEMORY_LIMIT_MB;
+        LimitProperties.LanguageProfile profile = null;
+        if (limitProperties != null) {
+            timeLimitMs = limitProperties.getDefaultTimeLimitMs();
+            memoryLimitMb = limitProperties.getDefaultMemoryLimitMb();
+            Long requestTimeLimitMs = executeCodeRequest == null ? null : executeCodeRequest.getTimeLimitMs();
+            if (requestTimeLimitMs != null && requestTimeLimitMs > 0) {
+                timeLimitMs = Math.min(requestTimeLimitMs, limitProperties.getMaxTimeLimitMs());
+            }
+            Long requestMemoryLimitMb = executeCodeRequest == null ? null : executeCodeRequest.getMemoryLimitMb();
+            if (requestMemoryLimitMb != null && requestMemoryLimitMb > 0) {
+                memoryLimitMb = Math.min(requestMemoryLimitMb, limitProperties.getMaxMemoryLimitMb());
+            }
+            if (getLanguage() != null && limitProperties.getProfiles() != null) {
+                profile = limitProperties.getProfiles().get(getLanguage());
+            }
+        }
+        if (profile == null) {
+            return new ResourceLimits(timeLimitMs, memoryLimitMb * MB, memoryLimitMb * MB);
+        }
+        long memoryLimitBytes = (long) (memoryLimitMb * profile.getMemoryFactor()) * MB;
+        return new ResourceLimits((long) (timeLimitMs * profile.getTimeFactor()), memoryLimitBytes,
+                memoryLimitBytes + profile.getMemoryOverheadMb() * MB);
+    }
+
+    /**
+     * 请求未指定限制时的资源限制，预先创建的容器按此设置内存上限
+     *
+     * @return 资源限制
+     */
+    protected ResourceLimits getDefaultLimits() {
+        return resolveLimits(null);
+    }
+
+    /**
+     * 获取运行阶段的容器内用户
+     *
+     * @return uid:gid，为空时使用镜像默认用户
+     */
+    protected String getRunUser() {
+        return executionProperties == null ? null : executionProperties.getRunUser();
+    }
+
+    /**
+     * 按 CPU 时间判定超时时的墙钟时间上限倍数
+     *
+     * @return 倍数
+     */
+    protected double getWallTimeFactor() {
+        return executionProperties == null ? 1.0 : executionProperties.getWallTimeFactor();
+    }
+
+    /**
+     * 运行时是否统计内存
+     *
+     * @return 是否统计内存
+     */
+    protected boolean trackMemoryOnRun() {
+        return true;
+    }
+
+    /**
+     * 编译代码
+     *
+     * @param userCodeFile 代码文件
+     * @return 编译信息
+     */
+    public ExecuteMessage compileFile(File userCodeFile) {
+        String[] compileCommand = buildCompileCommand(userCodeFile);
+        if (compileCommand == null || compileCommand.length == 0) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(0);
+            return executeMessage;
+        }
+        String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
+        String containerId = null;
+        try {
+            containerId = createContainer(dockerClient, userCodeParentPath, false);
+            startContainer(containerId);
+            return compileInContainer(dockerClient, containerId, userCodeFile);
+        } finally {
+            cleanupContainer(dockerClient, containerId);
+        }
+    }
+
+    /**
+     * 编译代码，命中编译缓存时直接复制产物到工作目录并跳过编译
+     *
+     * @param code         用户代码
+     * @param userCodeFile 代码文件
+     * @param compiler     未命中时执行的编译
+     * @return 编译信息
+     */
+    protected ExecuteMessage compileWithCache(String code, File userCodeFile, Supplier<ExecuteMessage> compiler) {
+        File workspace = userCodeFile.getParentFile();
+        return compileWithCache(code, userCodeFile, compiler,
+                cacheKey -> compileCache.restore(cacheKey, workspace),
+                cacheKey -> compileCache.store(cacheKey, workspace, userCodeFile.getName()));
+    }
+
+    /**
+     * 在内存工作目录中编译，命中缓存时把产物以 tar 写入容器，未命中时编译后从容器读取产物写入缓存
+     *
+     * @param code         用户代码
+     * @param containerId  容器 id
+     * @param userCodeFile 容器内代码文件（仅文件名有效）
+     * @return 编译信息
+     */
+    protected ExecuteMessage compileInArchiveWorkspace(String code, String containerId, File userCodeFile) {
+        return compileWithCache(code, userCodeFile, () -> compileInContainer(dockerClient, containerId, userCodeFile),
+                cacheKey -> {
+                    Map<String, byte[]> artifacts = compileCache.restoreArtifacts(cacheKey);
+                    if (artifacts == null) {
+                        return false;
+                    }
+                    writeWorkspaceArchive(containerId, TarUtils.pack(artifacts));
+                    return true;
+                },
+                cacheKey -> {
+                    Map<String, byte[]> artifacts = TarUtils.unpack(readWorkspaceArchive(containerId));
+                    artifacts.remove(userCodeFile.getName());
+                    compileCache.storeArtifacts(cacheKey, artifacts);
+                });
+    }
+
+    /**
+     * 各执行路径共用的编译流程：查缓存、编译、写缓存，记录编译耗时和编译信息
+     *
+     * @param code         用户代码
+     * @param userCodeFile 代码文件
+     * @param compiler     未命中时执行的编译
+     * @param restorer     按缓存键恢复产物，返回是否命中
+     * @param storer       编译成功后按缓存键保存产物
+     * @return 编译信息
+     */
+    private ExecuteMessage compileWithCache(String code, File userCodeFile, Supplier<ExecuteMessage> compiler,
+                                            Predicate<String> restorer, Consumer<String> storer) {
+        long startNanos = System.nanoTime();
+        String outcome = SandboxMetrics.OUTCOME_FAILURE;
+        try {
+            String cacheKey = buildCompileCacheKey(code, userCodeFile);
+            ExecuteMessage executeMessage;
+            if (cacheKey != null && restorer.test(cacheKey)) {
+                outcome = SandboxMetrics.OUTCOME_CACHED;
+                executeMessage = getCompileCacheHitMessage();
+            } else {
+                executeMessage = compiler.get();
+                if (cacheKey != null) {
+                    storer.accept(cacheKey);
+                }
+                outcome = SandboxMetrics.OUTCOME_SUCCESS;
+            }
+            log.debug("编译完成, outcome = {}, message = {}", outcome, executeMessage);
+            return executeMessage;
+        } finally {
+            recordPhase(SandboxMetrics.PHASE_COMPILE, outcome, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 计算编译缓存键
+     *
+     * @param code         用户代码
+     * @param userCodeFile 代码文件
+     * @return 缓存键，不使用缓存时返回 null
+     */
+    private String buildCompileCacheKey(String code, File userCodeFile) {
+        String[] compileCommand = buildCompileCommand(userCodeFile);
+        if (compileCache == null || !compileCache.isEnabled() || compileCommand == null || compileCommand.length == 0) {
+            return null;
+        }
+        return compileCache.buildKey(getClass().getSimpleName(), getDockerImage(), compileCommand, code);
+    }
+
+    private ExecuteMessage getCompileCacheHitMessage() {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setExitValue(0);
+        executeMessage.setMessage("编译缓存命中");
+        executeMessage.setTime(0L);
+        return executeMessage;
+    }
+
+    /**
+     * 把代码以内存 tar 写入容器 /app
+     *
+     * @param code        用户代码
+     * @param containerId 容器 id
+     * @return 容器内代码文件（仅文件名有效）
+     */
+    protected File writeCodeToContainer(String code, String containerId) {
+        String codeFileName = getCodeFileName();
+        return timed(SandboxMetrics.PHASE_SAVE, () -> {
+            writeWorkspaceArchive(containerId, TarUtils.pack(
+                    Collections.singletonMap(codeFileName, code.getBytes(StandardCharsets.UTF_8))));
+            return new File(codeFileName);
+        });
+    }
+
+    /**
+     * 以 root 把 tar 解包到容器 /app，经 exec 标准输入传输，不依赖宿主机目录，也适用于 tmpfs 和只读根文件系统
+     *
+     * @param containerId 容器 id
+     * @param archive     tar 字节
+     */
+    protected void writeWorkspaceArchive(String containerId, byte[] archive) {
+        execAsRoot(containerId, TAR_EXTRACT_COMMAND, archive);
+    }
+
+    /**
+     * 以 root 把容器 /app 打包为 tar
+     *
+     * @param containerId 容器 id
+     * @return tar 字节
+     */
+    protected byte[] readWorkspaceArchive(String containerId) {
+        return execAsRoot(containerId, TAR_CREATE_COMMAND, null);
+    }
+
+    /**
+     * 以 root 在容器内执行命令并等待结束，用于传输工作目录等内部操作
+     *
+     * @param containerId 容器 id
+     * @param cmd         命令
+     * @param stdin       标准输入，为 null 时不附加
+     * @return 标准输出字节
+     */
+    protected byte[] execAsRoot(String containerId, String[] cmd, byte[] stdin) {
+        ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
+                .withCmd(cmd)
+                .withUser("0")
+                .withAttachStdin(stdin != null)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .exec();
+        String execId = execCreateCmdResponse.getId();
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        StringBuilder stderr = new StringBuilder();
+        ExecStartCmd execStartCmd = dockerClient.execStartCmd(execId);
+        if (stdin != null) {
+            execStartCmd.withStdIn(new ByteArrayInputStream(stdin));
+        }
+        try {
+            boolean completed = execStartCmd.exec(new ExecStartResultCallback() {
+                @Override
+                public void onNext(Frame frame) {
+                    if (StreamType.STDERR.equals(frame.getStreamType())) {
+                        stderr.append(new String(frame.getPayload(), StandardCharsets.UTF_8));
+                    } else {
+                        stdout.write(frame.getPayload(), 0, frame.getPayload().length);
+                    }
+                }
+            }).awaitCompletion(DEFAULT_COMPILE_TIMEOUT, TimeUnit.MILLISECONDS);
+            if (!completed) {
+                throw new RuntimeException("容器命令执行超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("容器命令执行被中断", e);
+        }
+        Long exitCode = dockerClient.inspectExecCmd(execId).exec().getExitCodeLong();
+        if (exitCode == null || exitCode != 0) {
+            throw new RuntimeException("容器命令执行失败: " + stderr);
+        }
+        return stdout.toByteArray();
+    }
+
+    /**
+     * 是否使用内存工作目录
+     *
+     * @return 是否使用
+     */
+    protected boolean isArchiveWorkspace() {
+        return executionProperties != null && executionProperties.isArchiveWorkspace();
+    }
+
+    /**
+     * 在已启动的容器中编译代码
+     *
+     * @param dockerClient docker 客户端
+     * @param containerId  容器 id
+     * @param userCodeFile 代码文件
+     * @return 编译信息
+     */
+    protected ExecuteMessage compileInContainer(DockerClient dockerClient, String containerId, File userCodeFile) {
+        String[] compileCommand = buildCompileCommand(userCodeFile);
+        if (compileCommand == null || compileCommand.length == 0) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(0);
+            return executeMessage;
+        }
+        ExecResult execResult = execInContainer(
+                dockerClient,
+                containerId,
+                compileCommand,
+                null,
+                getCompileTimeoutMs(),
+                false,
+                true
+        );
+        return toCompileMessage(execResult);
+    }
+
+    /**
+     * 转换编译结果，编译失败时以标准错误抛出
+     *
+     * @param execResult 编译命令执行结果
+     * @return 编译信息
+     */
+    private ExecuteMessage toCompileMessage(ExecResult execResult) {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setExitValue(execResult.getExitCode());
+        executeMessage.setMessage(execResult.getStdout());
+        executeMessage.setErrorMessage(execResult.getStderr());
+        executeMessage.setTime(execResult.getTime());
+        if (execResult.getExitCode() == null || execResult.getExitCode() != 0) {
+            String errorMessage = execResult.getStderr();
+            if (StrUtil.isBlank(errorMessage)) {
+                errorMessage = "编译失败";
+            }
+            throw new RuntimeException(errorMessage);
+        }
+        return executeMessage;
+    }
+
+    /**
+     * 运行代码
+     *
+     * @param userCodeFile 代码文件
+     * @param inputList    输入列表
+     * @return 执行信息列表
+     */
+    public List<ExecuteMessage> runFile(File userCodeFile, List<String> inputList) {
+        return runFile(userCodeFile, ExecuteCodeRequest.builder().inputList(inputList).build());
+    }
+
+    /**
+     * 按请求运行代码，支持快速失败和期望输出比对
+     *
+     * @param userCodeFile       代码文件
+     * @param executeCodeRequest 执行请求
+     * @return 执行信息列表，未调度的用例为 null
+     */
+    public List<ExecuteMessage> runFile(File userCodeFile, ExecuteCodeRequest executeCodeRequest) {
+        String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
+        String containerId = null;
+        try {
+            containerId = createContainer(dockerClient, userCodeParentPath, true,
+                    resolveLimits(executeCodeRequest).getContainerMemoryBytes());
+            startContainer(containerId);
+            return runInLanes(dockerClient, Collections.singletonList(containerId), userCodeFile,
+                    executeCodeRequest);
+        } finally {
+            cleanupContainer(dockerClient, containerId);
+        }
+    }
+
+    /**
+     * 在已启动的容器中逐条运行输入用例
+     *
+     * @param dockerClient docker 客户端
+     * @param containerId  容器 id
+     * @param userCodeFile 代码文件
+     * @param inputList    输入列表
+     * @return 执行信息列表
+     */
+    protected List<ExecuteMessage> runInContainer(DockerClient dockerClient, String containerId, File userCodeFile,
+                                                  List<String> inputList) {
+        return runInLanes(dockerClient, Collections.singletonList(containerId), userCodeFile, inputList);
+    }
+
+    /**
+     * 在多个运行容器中并行执行用例，每个容器同一时刻只运行一个用例，输出顺序与输入一致
+     *
+     * @param dockerClient     docker 客户端
+     * @param laneContainerIds 运行容器 id 列表
+     * @param userCodeFile     代码文件
+     * @param inputList        输入列表
+     * @return 执行信息列表
+     */
+    protected List<ExecuteMessage> runInLanes(DockerClient dockerClient, List<String> laneContainerIds,
+                                              File userCodeFile, List<String> inputList) {
+        return runInLanes(dockerClient, laneContainerIds, userCodeFile,
+                ExecuteCodeRequest.builder().inputList(inputList).build());
+    }
+
+    /**
+     * 按请求在多个运行容器中并行执行用例。
+     * <p>
+     * 开启快速失败时某个用例失败后不再调度后续用例，已在运行的用例照常完成；提供期望输出时边读取边比对，
+     * 不保留程序输出，为每个用例给出判定结果。
+     *
+     * @param dockerClient       docker 客户端
+     * @param laneContainerIds   运行容器 id 列表
+     * @param userCodeFile       代码文件
+     * @param executeCodeRequest 执行请求
+     * @return 执行信息列表，未调度的用例为 null
+     */
+    protected List<ExecuteMessage> runInLanes(DockerClient dockerClient, List<String> laneContainerIds,
+                                              File userCodeFile, ExecuteCodeRequest executeCodeRequest) {
+        List<String> inputList = getInputList(executeCodeRequest);
+        List<String> expectedOutputList = executeCodeRequest.getExpectedOutputList();
+        if (expectedOutputList != null && expectedOutputList.size() != inputList.size()) {
+            throw new RuntimeException("期望输出数量与输入数量不一致");
+        }
+        ResourceLimits limits = resolveLimits(executeCodeRequest);
+        String[] runCommand = buildRunCommand(userCodeFile, limits);
+        ExecOptions runOptions = buildRunOptions(limits);
+        boolean hashCompare = executionProperties != null && executionProperties.isHashCompare();
+        CaseExecutor.LaneTask<ExecuteMessage> caseTask = (lane, index) -> {
+            ExecOptions caseOptions = buildCaseOptions(runOptions, expectedOutputList, index, hashCompare);
+            long startNanos = System.nanoTime();
+            ExecResult execResult;
+            try {
+                execResult = execInContainer(
+                        dockerClient,
+                        laneContainerIds.get(lane),
+                        runCommand,
+                        inputList.get(index),
+                        caseOptions
+                );
+            } catch (RuntimeException e) {
+                recordPhase(SandboxMetrics.PHASE_EXEC, SandboxMetrics.OUTCOME_ERROR, System.nanoTime() - startNanos);
+                throw e;
+            }
+            recordPhase(SandboxMetrics.PHASE_EXEC, getExecOutcome(execResult), System.nanoTime() - startNanos);
+            return toExecuteMessage(execResult, expectedOutputList != null);
+        };
+        LanePinning lanePinning = cpuCoreAllocator != null && cpuCoreAllocator.isEnabled()
+                ? new LanePinning(dockerClient, laneContainerIds) : null;
+        if (lanePinning != null) {
+            caseTask = lanePinning.pin(caseTask, ExecuteMessage::setCpuCore);
+        }
+        Predicate<ExecuteMessage> stopCondition = getStopCondition(executeCodeRequest);
+        try {
+            if (executionProperties == null || !executionProperties.isInProcessRun()) {
+                return caseExecutor.runOrdered(laneContainerIds.size(), inputList.size(), caseTask, stopCondition);
+            }
+            List<ExecuteMessage> executeMessageList = runInProcessLanes(dockerClient, laneContainerIds, userCodeFile,
+                    inputList, expectedOutputList, runOptions, limits, hashCompare, lanePinning);
+            // 同进程模式未完成的用例（不支持、回退、进程异常退出）逐进程补跑，快速失败时只补跑首个失败用例之前的
+            List<Integer> pendingIndexList = new ArrayList<>();
+            for (int index = 0; index < inputList.size(); index++) {
+                ExecuteMessage executeMessage = executeMessageList.get(index);
+                if (executeMessage == null) {
+                    pendingIndexList.add(index);
+                } else if (stopCondition != null && stopCondition.test(executeMessage)) {
+                    break;
+                }
+            }
+            if (pendingIndexList.isEmpty()) {
+                return executeMessageList;
+            }
+            CaseExecutor.LaneTask<ExecuteMessage> pendingTask = caseTask;
+            List<ExecuteMessage> pendingMessageList = caseExecutor.runOrdered(laneContainerIds.size(),
+                    pendingIndexList.size(), (lane, index) -> pendingTask.run(lane, pendingIndexList.get(index)),
+                    stopCondition);
+            for (int i = 0; i < pendingIndexList.size(); i++) {
+                executeMessageList.set(pendingIndexList.get(i), pendingMessageList.get(i));
+            }
+            return executeMessageList;
+        } finally {
+            if (lanePinning != null) {
+                lanePinning.unpinAll();
+            }
+        }
+    }
+
+    /**
+     * 按资源限制生成运行阶段的执行选项
+     *
+     * @param limits 资源限制
+     * @return 执行选项
+     */
+    private ExecOptions buildRunOptions(ResourceLimits limits) {
+        return ExecOptions.builder()
+                .timeoutMs(limits.getTimeLimitMs())
+                .memoryLimit(limits.getContainerMemoryBytes())
+                .trackMemory(trackMemoryOnRun())
+                .user(getRunUser())
+                .cpuTimeLimit(executionProperties != null && executionProperties.isCpuTimeLimit())
+                .outputLimit(executionProperties == null ? 0 : executionProperties.getOutputLimitKb() * 1024)
+                .normalizeStdout(true)
+                .build();
+    }
+
+    /**
+     * 提供期望输出时为单个用例附加期望输出或其哈希
+     *
+     * @param runOptions         运行选项
+     * @param expectedOutputList 期望输出列表，为 null 时原样返回
+     * @param index              用例下标
+     * @param hashCompare        是否只比对哈希
+     * @return 用例执行选项
+     */
+    private ExecOptions buildCaseOptions(ExecOptions runOptions, List<String> expectedOutputList, int index,
+                                         boolean hashCompare) {
+        if (expectedOutputList == null) {
+            return runOptions;
+        }
+        if (hashCompare) {
+            return runOptions.toBuilder()
+                    .expectedOutputHash(OutputHasher.of(expectedOutputList.get(index)))
+                    .build();
+        }
+        return runOptions.toBuilder()
+                .expectedOutput(normalizeOutput(expectedOutputList.get(index)))
+                .build();
+    }
+
+    /**
+     * 同进程模式：用例按通道轮流分组，每条通道用一个进程依次运行本组用例，再按期望输出判定
+     *
+     * @return 与输入等长的执行信息列表，未完成的用例为 null
+     */
+    private List<ExecuteMessage> runInProcessLanes(DockerClient dockerClient, List<String> laneContainerIds,
+                                                   File userCodeFile, List<String> inputList,
+                                                   List<String> expectedOutputList, ExecOptions runOptions,
+                                                   ResourceLimits limits, boolean hashCompare,
+                                                   LanePinning lanePinning) {
+        int groupCount = Math.min(laneContainerIds.size(), inputList.size());
+        List<List<Integer>> groupList = new ArrayList<>();
+        for (int group = 0; group < groupCount; group++) {
+            List<Integer> indexList = new ArrayList<>();
+            for (int index = group; index < inputList.size(); index += groupCount) {
+                indexList.add(index);
+            }
+            groupList.add(indexList);
+        }
+        CaseExecutor.LaneTask<List<ExecResult>> groupTask = (lane, group) -> {
+            List<String> groupInputList = new ArrayList<>();
+            for (Integer index : groupList.get(group)) {
+                groupInputList.add(inputList.get(index));
+            }
+            return runCasesInProcess(dockerClient, laneContainerIds.get(lane), userCodeFile, groupInputList,
+                    runOptions, limits);
+        };
+        if (lanePinning != null) {
+            // 一组用例在同一进程内依次运行，整组占用一个核心
+            groupTask = lanePinning.pin(groupTask, (execResultList, core) -> {
+                if (execResultList != null) {
+                    execResultList.forEach(execResult -> execResult.setCpuCore(core));
+                }
+            });
+        }
+        List<List<ExecResult>> groupResultList = caseExecutor.runOrdered(groupCount, groupCount, groupTask);
+        List<ExecuteMessage> executeMessageList = new ArrayList<>(Collections.nCopies(inputList.size(), null));
+        for (int group = 0; group < groupCount; group++) {
+            List<ExecResult> execResultList = groupResultList.get(group);
+            if (execResultList == null) {
+                continue;
+            }
+            for (int i = 0; i < execResultList.size(); i++) {
+                int index = groupList.get(group).get(i);
+                ExecResult execResult = execResultList.get(i);
+                if (execResult.getTime() != null) {
+                    recordPhase(SandboxMetrics.PHASE_EXEC, getExecOutcome(execResult),
+                            TimeUnit.MILLISECONDS.toNanos(execResult.getTime()));
+                }
+                if (expectedOutputList != null) {
+                    compareOutput(execResult, expectedOutputList.get(index), runOptions, hashCompare);
+                }
+                executeMessageList.set(index, toExecuteMessage(execResult, expectedOutputList != null));
+            }
+        }
+        return executeMessageList;
+    }
+
+    /**
+     * 在同一进程内依次运行多个用例的扩展点，返回结果按输入顺序排列，可以只覆盖前面一部分用例，
+     * 其余用例由沙箱逐进程补跑；语言不支持时返回 null
+     *
+     * @param dockerClient dockerClient
+     * @param containerId  运行容器 id
+     * @param userCodeFile 代码文件
+     * @param inputList    输入列表
+     * @param runOptions   运行选项，标准输出需按选项规范化
+     * @param limits       资源限制
+     * @return 执行结果列表
+     */
+    protected List<ExecResult> runCasesInProcess(DockerClient dockerClient, String containerId, File userCodeFile,
+                                                 List<String> inputList, ExecOptions runOptions,
+                                                 ResourceLimits limits) {
+        return null;
+    }
+
+    /**
+     * 对已取得完整标准输出的用例比对期望输出，比对后不再保留输出
+     *
+     * @param execResult     执行结果
+     * @param expectedOutput 期望输出
+     * @param runOptions     运行选项
+     * @param hashCompare    是否只比对哈希
+     */
+    private void compareOutput(ExecResult execResult, String expectedOutput, ExecOptions runOptions,
+                               boolean hashCompare) {
+        String stdout = execResult.getStdout() == null ? "" : execResult.getStdout();
+        if (hashCompare) {
+            boolean matched = OutputHasher.of(stdout).matches(OutputHasher.of(expectedOutput));
+            execResult.setOutputMatched(matched);
+            execResult.setMismatchMessage(matched ? null : "输出哈希不一致");
+        } else {
+            int outputLimit = runOptions.getOutputLimit() > 0 ? runOptions.getOutputLimit() : DEFAULT_OUTPUT_LIMIT;
+            OutputComparator outputComparator = new OutputComparator(normalizeOutput(expectedOutput), outputLimit);
+            outputComparator.append(stdout.getBytes(StandardCharsets.UTF_8));
+            outputComparator.finish();
+            execResult.setOutputMatched(outputComparator.isMatched());
+            execResult.setMismatchMessage(outputComparator.getMismatchMessage());
+        }
+        execResult.setStdout("");
+    }
+
+    private static String getExecOutcome(ExecResult execResult) {
+        if (Boolean.TRUE.equals(execResult.getTimeout())) {
+            return SandboxMetrics.OUTCOME_TIMEOUT;
+        }
+        if (Boolean.TRUE.equals(execResult.getOutputLimitExceeded())) {
+            return SandboxMetrics.OUTCOME_OUTPUT_LIMIT;
+        }
+        boolean exitedNormally = execResult.getExitCode() == null || execResult.getExitCode() == 0;
+        return exitedNormally ? SandboxMetrics.OUTCOME_SUCCESS : SandboxMetrics.OUTCOME_FAILURE;
     }
 
     /**
-     * 获取运行超时
+     * 转换为执行信息
      *
-     * @return 超时毫秒
+     * @param execResult 执行结果
+     * @param judge      是否给出判定结果
+     * @return 执行信息
      */
-    protected long getRunTimeoutMs() {
-        return DEFAULT_RUN_TIMEOUT;
+    protected ExecuteMessage toExecuteMessage(ExecResult execResult, boolean judge) {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setExitValue(execResult.getExitCode());
+        executeMessage.setMessage(execResult.getStdout());
+        executeMessage.setErrorMessage(execResult.getStderr());
+        executeMessage.setTime(execResult.getTime());
+        executeMessage.setMemory(execResult.getMaxMemory());
+        executeMessage.setCpuTime(execResult.getCpuTime());
+        executeMessage.setAllocatedBytes(execResult.getAllocatedBytes());
+        executeMessage.setTimeout(execResult.getTimeout());
+        executeMessage.setOutputLimitExceeded(execResult.getOutputLimitExceeded());
+        executeMessage.setCpuCore(execResult.getCpuCore());
+        if (judge) {
+            executeMessage.setVerdict(judgeVerdict(execResult));
+            executeMessage.setMismatchMessage(execResult.getMismatchMessage());
+        }
+        return executeMessage;
     }
 
     /**
-     * 运行时是否统计内存
+     * 判定单个用例结果：按退出码判定运行错误，标准错误只作为诊断信息（调试输出、虚拟机警告不影响判定）
      *
-     * @return 是否统计内存
+     * @param execResult 执行结果
+     * @return 判定结果
      */
-    protected boolean trackMemoryOnRun() {
-        return true;
+    protected String judgeVerdict(ExecResult execResult) {
+        if (Boolean.TRUE.equals(execResult.getOutputLimitExceeded())) {
+            return VerdictConstant.OUTPUT_LIMIT_EXCEEDED;
+        }
+        if (Boolean.TRUE.equals(execResult.getTimeout())) {
+            return VerdictConstant.TIME_LIMIT_EXCEEDED;
+        }
+        if (isMemoryLimitExceeded(execResult)) {
+            return VerdictConstant.MEMORY_LIMIT_EXCEEDED;
+        }
+        Integer exitCode = execResult.getExitCode();
+        if (exitCode != null && exitCode != 0) {
+            return VerdictConstant.RUNTIME_ERROR;
+        }
+        return Boolean.TRUE.equals(execResult.getOutputMatched())
+                ? VerdictConstant.ACCEPTED
+                : VerdictConstant.WRONG_ANSWER;
     }
 
     /**
-     * 编译代码
+     * 是否超出内存限制：用例运行期间发生内核 OOM。峰值内存扣除了编译后的页缓存等基线，不能据此与容器上限比较
      *
-     * @param userCodeFile 代码文件
-     * @return 编译信息
+     * @param execResult 执行结果
+     * @return 是否超出
      */
-    public ExecuteMessage compileFile(File userCodeFile) {
-        String[] compileCommand = buildCompileCommand(userCodeFile);
-        if (compileCommand == null || compileCommand.length == 0) {
-            ExecuteMessage executeMessage = new ExecuteMessage();
-            executeMessage.setExitValue(0);
-            return executeMessage;
-        }
-        String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
-        DockerClient dockerClient = DockerClientFactory.createClient();
-        String containerId = null;
-        try {
-            ensureImageExists(dockerClient, getDockerImage());
-            containerId = createContainer(dockerClient, userCodeParentPath, false);
-            dockerClient.startContainerCmd(containerId).exec();
-
-            ExecResult execResult = execInContainer(
-                    dockerClient,
-                    containerId,
-                    compileCommand,
-                    null,
-                    getCompileTimeoutMs(),
-                    false,
-                    true
-            );
-            ExecuteMessage executeMessage = new ExecuteMessage();
-            executeMessage.setExitValue(execResult.getExitCode());
-            executeMessage.setMessage(execResult.getStdout());
-            executeMessage.setErrorMessage(execResult.getStderr());
-            executeMessage.setTime(execResult.getTime());
-            if (execResult.getExitCode() == null || execResult.getExitCode() != 0) {
-                String errorMessage = execResult.getStderr();
-                if (StrUtil.isBlank(errorMessage)) {
-                    errorMessage = "编译失败";
-                }
-                throw new RuntimeException(errorMessage);
-            }
-            return executeMessage;
-        } finally {
-            cleanupContainer(dockerClient, containerId);
-        }
+    protected boolean isMemoryLimitExceeded(ExecResult execResult) {
+        return Boolean.TRUE.equals(execResult.getOomKilled());
     }
 
     /**
-     * 运行代码
+     * 读取容器的 OOMKilled 标记，容器内任一进程被内核 OOM 结束后置位，直到容器重启
      *
-     * @param userCodeFile 代码文件
-     * @param inputList    输入列表
-     * @return 执行信息列表
+     * @param dockerClient dockerClient
+     * @param containerId  容器 id
+     * @return 是否置位，读取失败时为 null
      */
-    public List<ExecuteMessage> runFile(File userCodeFile, List<String> inputList) {
-        String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
-        DockerClient dockerClient = DockerClientFactory.createClient();
-        String containerId = null;
-        List<ExecuteMessage> executeMessageList = new ArrayList<>();
+    private Boolean readContainerOomKilled(DockerClient dockerClient, String containerId) {
         try {
-            ensureImageExists(dockerClient, getDockerImage());
-            containerId = createContainer(dockerClient, userCodeParentPath, true);
-            dockerClient.startContainerCmd(containerId).exec();
-
-            String[] runCommand = buildRunCommand(userCodeFile);
-            for (String input : inputList) {
-                ExecResult execResult = execInContainer(
-                        dockerClient,
-                        containerId,
-                        runCommand,
-                        input,
-                        getRunTimeoutMs(),
-                        trackMemoryOnRun(),
-                        false
-                );
-                ExecuteMessage executeMessage = new ExecuteMessage();
-                executeMessage.setMessage(execResult.getStdout());
-                executeMessage.setErrorMessage(execResult.getStderr());
-                executeMessage.setTime(execResult.getTime());
-                executeMessage.setMemory(execResult.getMaxMemory());
-                executeMessageList.add(executeMessage);
-            }
-            return executeMessageList;
-        } finally {
-            cleanupContainer(dockerClient, containerId);
+            InspectContainerResponse.ContainerState state = dockerClient.inspectContainerCmd(containerId).exec()
+                    .getState();
+            return state == null ? null : state.getOOMKilled();
+        } catch (RuntimeException e) {
+            return null;
         }
     }
 
@@ -272,11 +1626,31 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
      * @return 输出响应
      */
     public ExecuteCodeResponse getOutputResponse(List<ExecuteMessage> executeMessageList) {
+        if (!executeMessageList.isEmpty() && executeMessageList.get(0) != null
+                && executeMessageList.get(0).getVerdict() != null) {
+            return getJudgeResponse(executeMessageList);
+        }
         ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
         List<String> outputList = new ArrayList<>();
         long maxTime = 0;
         long maxMemory = 0;
+        long maxCpuTime = 0;
+        Long maxAllocatedBytes = null;
         for (ExecuteMessage executeMessage : executeMessageList) {
+            if (executeMessage == null) {
+                // 快速失败时未调度的用例，之前必有失败用例
+                break;
+            }
+            if (Boolean.TRUE.equals(executeMessage.getOutputLimitExceeded())) {
+                executeCodeResponse.setMessage("输出超限");
+                executeCodeResponse.setStatus(3);
+                break;
+            }
+            if (Boolean.TRUE.equals(executeMessage.getTimeout())) {
+                executeCodeResponse.setMessage("运行超时");
+                executeCodeResponse.setStatus(3);
+                break;
+            }
             String errorMessage = executeMessage.getErrorMessage();
             if (StrUtil.isNotBlank(errorMessage)) {
                 executeCodeResponse.setMessage(errorMessage);
@@ -292,38 +1666,104 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
             if (mem != null && mem > 0) {
                 maxMemory = Math.max(maxMemory, mem);
             }
+            Long cpuTime = executeMessage.getCpuTime();
+            if (cpuTime != null) {
+                maxCpuTime = Math.max(maxCpuTime, cpuTime);
+            }
+            maxAllocatedBytes = maxOf(maxAllocatedBytes, executeMessage.getAllocatedBytes());
         }
         if (outputList.size() == executeMessageList.size()) {
             executeCodeResponse.setStatus(1);
         }
         System.out.println("当前输出: " + outputList);
         executeCodeResponse.setOutputList(outputList);
+        executeCodeResponse.setCpuCoreList(getCpuCoreList(executeMessageList));
         JudgeInfo judgeInfo = new JudgeInfo();
         judgeInfo.setTime(maxTime);
         judgeInfo.setMemory(maxMemory);
+        judgeInfo.setCpuTime(maxCpuTime);
+        judgeInfo.setAllocatedBytes(maxAllocatedBytes);
         executeCodeResponse.setJudgeInfo(judgeInfo);
         return executeCodeResponse;
     }
 
+    /**
+     * 构建判题响应：返回每个用例的判定结果，不返回程序输出；全部 AC 时状态为 1，
+     * 否则状态为 3，message 为首个未通过用例的判定结果，judgeInfo.message 为首个答案错误处的说明
+     *
+     * @param executeMessageList 执行信息列表
+     * @return 判题响应
+     */
+    protected ExecuteCodeResponse getJudgeResponse(List<ExecuteMessage> executeMessageList) {
+        ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
+        List<String> verdictList = new ArrayList<>();
+        JudgeInfo judgeInfo = new JudgeInfo();
+        long maxTime = 0;
+        long maxMemory = 0;
+        long maxCpuTime = 0;
+        Long maxAllocatedBytes = null;
+        String firstFailedVerdict = null;
+        for (ExecuteMessage executeMessage : executeMessageList) {
+            if (executeMessage == null) {
+                break;
+            }
+            String verdict = executeMessage.getVerdict();
+            verdictList.add(verdict);
+            if (firstFailedVerdict == null && !VerdictConstant.ACCEPTED.equals(verdict)) {
+                firstFailedVerdict = verdict;
+            }
+            if (judgeInfo.getMessage() == null && executeMessage.getMismatchMessage() != null) {
+                judgeInfo.setMessage("第 " + verdictList.size() + " 个用例" + executeMessage.getMismatchMessage());
+            }
+            if (executeMessage.getTime() != null) {
+                maxTime = Math.max(maxTime, executeMessage.getTime());
+            }
+            if (executeMessage.getMemory() != null) {
+                maxMemory = Math.max(maxMemory, executeMessage.getMemory());
+            }
+            if (executeMessage.getCpuTime() != null) {
+                maxCpuTime = Math.max(maxCpuTime, executeMessage.getCpuTime());
+            }
+            maxAllocatedBytes = maxOf(maxAllocatedBytes, executeMessage.getAllocatedBytes());
+        }
+        boolean accepted = firstFailedVerdict == null && verdictList.size() == executeMessageList.size();
+        executeCodeResponse.setStatus(accepted ? 1 : 3);
+        executeCodeResponse.setMessage(accepted ? VerdictConstant.ACCEPTED : firstFailedVerdict);
+        executeCodeResponse.setCpuCoreList(getCpuCoreList(executeMessageList));
+        executeCodeResponse.setOutputList(new ArrayList<>());
+        executeCodeResponse.setVerdictList(verdictList);
+        judgeInfo.setTime(maxTime);
+        judgeInfo.setMemory(maxMemory);
+        judgeInfo.setCpuTime(maxCpuTime);
+        judgeInfo.setAllocatedBytes(maxAllocatedBytes);
+        executeCodeResponse.setJudgeInfo(judgeInfo);
+        return executeCodeResponse;
+    }
 
+    private static Long maxOf(Long current, Long value) {
+        if (value == null || value < 0) {
+            return current;
+        }
+        return current == null ? value : Math.max(current, value);
+    }
 
     /**
-     * 去除行尾空白
+     * 每个用例运行时绑定的核心
      *
-     * @param line 行内容
-     * @return 处理后内容
+     * @param executeMessageList 执行信息列表
+     * @return 核心列表，未绑定核心时为 null
      */
-    protected String rtrimLine(String line) {
-        int end = line.length();
-        while (end > 0) {
-            char ch = line.charAt(end - 1);
-            if (ch == ' ' || ch == '\t') {
-                end--;
-            } else {
+    private static List<Integer> getCpuCoreList(List<ExecuteMessage> executeMessageList) {
+        List<Integer> cpuCoreList = new ArrayList<>();
+        boolean pinned = false;
+        for (ExecuteMessage executeMessage : executeMessageList) {
+            if (executeMessage == null) {
                 break;
             }
+            cpuCoreList.add(executeMessage.getCpuCore());
+            pinned |= executeMessage.getCpuCore() != null;
         }
-        return line.substring(0, end);
+        return pinned ? cpuCoreList : null;
     }
 
     /**
@@ -335,24 +1775,164 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
      * @return 容器 id
      */
     protected String createContainer(DockerClient dockerClient, String userCodeParentPath, boolean readonlyRootfs) {
+        return createContainer(dockerClient, userCodeParentPath, readonlyRootfs,
+                getDefaultLimits().getContainerMemoryBytes());
+    }
+
+    /**
+     * 按内存上限创建运行容器
+     *
+     * @param dockerClient       docker 客户端
+     * @param userCodeParentPath 代码目录
+     * @param readonlyRootfs     是否只读根文件系统
+     * @param memoryLimit        容器内存上限（字节）
+     * @return 容器 id
+     */
+    protected String createContainer(DockerClient dockerClient, String userCodeParentPath, boolean readonlyRootfs,
+                                     long memoryLimit) {
         CreateContainerCmd containerCmd = dockerClient.createContainerCmd(getDockerImage());
-        HostConfig hostConfig = new HostConfig();
-        hostConfig.withMemory(100 * 1000 * 1000L);
-        hostConfig.withMemorySwap(0L);
-        hostConfig.withCpuCount(1L);
-        hostConfig.withSecurityOpts(Arrays.asList("seccomp=unconfined"));
-        hostConfig.setBinds(new Bind(userCodeParentPath, new Volume("/app")));
+        HostConfig hostConfig = buildHostConfig(userCodeParentPath, memoryLimit);
 
-        CreateContainerResponse createContainerResponse = containerCmd
+        containerCmd
                 .withHostConfig(hostConfig)
                 .withNetworkDisabled(true)
                 .withReadonlyRootfs(readonlyRootfs)
                 .withAttachStdin(true)
                 .withAttachStderr(true)
                 .withAttachStdout(true)
-                .withTty(true)
+                .withTty(true);
+        return createWithImage(() -> containerCmd.exec().getId());
+    }
+
+    /**
+     * 创建并启动编译、运行共用的容器：只读根文件系统，/app 挂载工作目录，/tmp 使用 tmpfs 供编译器写临时文件
+     *
+     * @param dockerClient  docker 客户端
+     * @param workspacePath 工作目录，为 null 时 /app 挂载为容器内 tmpfs
+     * @param pooled        是否为池化容器
+     * @return 容器 id
+     */
+    protected String createWorkspaceContainer(DockerClient dockerClient, String workspacePath, boolean pooled) {
+        return createWorkspaceContainer(dockerClient, workspacePath, pooled
+                ? Collections.singletonMap(ContainerPoolManager.POOL_LABEL, getDockerImage())
+                : Collections.emptyMap());
+    }
+
+    /**
+     * 按内存上限创建并启动工作容器
+     *
+     * @param dockerClient  docker 客户端
+     * @param workspacePath 工作目录，为 null 时 /app 挂载为容器内 tmpfs
+     * @param memoryLimit   容器内存上限（字节）
+     * @return 容器 id
+     */
+    protected String createWorkspaceContainer(DockerClient dockerClient, String workspacePath, long memoryLimit) {
+        return createWorkspaceContainer(dockerClient, workspacePath, Collections.emptyMap(), memoryLimit);
+    }
+
+    /**
+     * 创建并启动带标签的工作容器
+     *
+     * @param dockerClient  docker 客户端
+     * @param workspacePath 工作目录，为 null 时 /app 挂载为容器内 tmpfs
+     * @param labels        容器标签
+     * @return 容器 id
+     */
+    protected String createWorkspaceContainer(DockerClient dockerClient, String workspacePath,
+                                              Map<String, String> labels) {
+        return createWorkspaceContainer(dockerClient, workspacePath, labels,
+                getDefaultLimits().getContainerMemoryBytes());
+    }
+
+    private String createWorkspaceContainer(DockerClient dockerClient, String workspacePath,
+                                            Map<String, String> labels, long memoryLimit) {
+        HostConfig hostConfig = buildHostConfig(workspacePath, memoryLimit);
+        Map<String, String> tmpFs = new HashMap<>();
+        tmpFs.put("/tmp", TMPFS_OPTIONS);
+        if (workspacePath == null) {
+            tmpFs.put("/app", TMPFS_OPTIONS + ",mode=755");
+        }
+        hostConfig.withTmpFs(tmpFs);
+        // 主进程只保持容器存活，避免镜像默认的 REPL 常驻内存计入用例峰值
+        CreateContainerCmd containerCmd = dockerClient.createContainerCmd(getDockerImage())
+                .withHostConfig(hostConfig)
+                .withLabels(labels)
+                .withCmd(KEEP_ALIVE_COMMAND)
+                .withNetworkDisabled(true)
+                .withReadonlyRootfs(true)
+                .withAttachStdin(true)
+                .withAttachStderr(true)
+                .withAttachStdout(true)
+                .withTty(true);
+        String containerId = createWithImage(() -> containerCmd.exec().getId());
+        try {
+            startContainer(containerId);
+        } catch (RuntimeException e) {
+            cleanupContainer(dockerClient, containerId);
+            throw e;
+        }
+        return containerId;
+    }
+
+    /**
+     * 构建容器资源限制
+     *
+     * @param userCodeParentPath 挂载到 /app 的宿主机目录，为 null 时不挂载
+     * @return 容器配置
+     */
+    protected HostConfig buildHostConfig(String userCodeParentPath) {
+        return buildHostConfig(userCodeParentPath, getDefaultLimits().getContainerMemoryBytes());
+    }
+
+    /**
+     * 按内存上限构建容器资源限制
+     *
+     * @param userCodeParentPath 挂载到 /app 的宿主机目录，为 null 时不挂载
+     * @param memoryLimit        容器内存上限（字节）
+     * @return 容器配置
+     */
+    protected HostConfig buildHostConfig(String userCodeParentPath, long memoryLimit) {
+        HostConfig hostConfig = new HostConfig();
+        hostConfig.withMemory(memoryLimit);
+        hostConfig.withMemorySwap(0L);
+        hostConfig.withCpuCount(1L);
+        hostConfig.withNanoCPUs(1000 * 1000 * 1000L);
+        hostConfig.withSecurityOpts(Arrays.asList("seccomp=unconfined"));
+        if (cpuCoreAllocator != null && cpuCoreAllocator.isEnabled()) {
+            hostConfig.withCpusetCpus(cpuCoreAllocator.getSharedCpuset());
+        }
+        if (userCodeParentPath != null) {
+            hostConfig.setBinds(new Bind(userCodeParentPath, new Volume("/app")));
+        }
+        return hostConfig;
+    }
+
+    /**
+     * 调整已创建容器的内存上限，用于复用的容器处理限制不同的提交
+     *
+     * @param dockerClient docker 客户端
+     * @param containerId  容器 id
+     * @param memoryLimit  容器内存上限（字节）
+     */
+    protected void updateContainerMemory(DockerClient dockerClient, String containerId, long memoryLimit) {
+        // 与创建时未指定交换分区的默认值一致
+        dockerClient.updateContainerCmd(containerId)
+                .withMemory(memoryLimit)
+                .withMemorySwap(memoryLimit * 2)
+                .exec();
+    }
+
+    /**
+     * 调整已创建容器可使用的核心
+     *
+     * @param dockerClient docker 客户端
+     * @param containerId  容器 id
+     * @param cpuset       核心列表，格式同 cpuset
+     */
+    protected void updateContainerCpuset(DockerClient dockerClient, String containerId, String cpuset) {
+        dockerClient.updateContainerCmd(containerId)
+                .withCpusetCpus(cpuset)
                 .exec();
-        return createContainerResponse.getId();
     }
 
     /**
@@ -369,33 +1949,86 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
      */
     protected ExecResult execInContainer(DockerClient dockerClient, String containerId, String[] cmd, String input,
                                          long timeoutMs, boolean trackMemory, boolean failOnTimeout) {
-        ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
+        return execInContainer(dockerClient, containerId, cmd, input, ExecOptions.builder()
+                .timeoutMs(timeoutMs)
+                .trackMemory(trackMemory)
+                .failOnTimeout(failOnTimeout)
+                .build());
+    }
+
+    /**
+     * 按执行选项执行容器命令并收集结果
+     * <p>
+     * 开启 CPU 时间限制且能读取容器 cgroup CPU 统计时，每隔 {@link #CPU_POLL_INTERVAL} 毫秒检查一次，
+     * CPU 时间超过上限或墙钟时间超过上限乘以倍数即判定超时；否则按墙钟时间判定。
+     * 运行阶段超时后结束容器内全部进程，避免残留进程影响同一容器中的后续用例。
+     *
+     * @param dockerClient docker 客户端
+     * @param containerId  容器 id
+     * @param cmd          执行命令
+     * @param input        标准输入
+     * @param options      执行选项
+     * @return 执行结果
+     */
+    protected ExecResult execInContainer(DockerClient dockerClient, String containerId, String[] cmd, String input,
+                                         ExecOptions options) {
+        ExecCreateCmd execCreateCmd = dockerClient.execCreateCmd(containerId)
                 .withCmd(cmd)
                 .withAttachStderr(true)
                 .withAttachStdin(true)
-                .withAttachStdout(true)
-                .exec();
+                .withAttachStdout(true);
+        if (StrUtil.isNotBlank(options.getUser())) {
+            execCreateCmd.withUser(options.getUser());
+        }
+        ExecCreateCmdResponse execCreateCmdResponse = execCreateCmd.exec();
         String execId = execCreateCmdResponse.getId();
-        StringBuilder stdout = new StringBuilder();
-        StringBuilder stderr = new StringBuilder();
+        int outputLimit = options.getOutputLimit() > 0 ? options.getOutputLimit() : DEFAULT_OUTPUT_LIMIT;
+        BoundedOutputBuffer stdout = new BoundedOutputBuffer(outputLimit);
+        BoundedOutputBuffer stderr = new BoundedOutputBuffer(outputLimit);
+        OutputComparator outputComparator = options.getExpectedOutput() == null
+                ? null
+                : new OutputComparator(options.getExpectedOutput(), outputLimit);
+        OutputHasher outputHasher = options.getExpectedOutputHash() == null
+                ? null
+                : new OutputHasher(outputLimit);
 
         ExecStartResultCallback execStartResultCallback = new ExecStartResultCallback() {
             @Override
             public void onNext(Frame frame) {
-                StreamType streamType = frame.getStreamType();
-                if (StreamType.STDERR.equals(streamType)) {
-                    stderr.append(new String(frame.getPayload(), StandardCharsets.UTF_8));
+                boolean withinLimit;
+                if (StreamType.STDERR.equals(frame.getStreamType())) {
+                    withinLimit = stderr.append(frame.getPayload());
+                } else if (outputComparator != null) {
+                    withinLimit = outputComparator.append(frame.getPayload());
+                } else if (outputHasher != null) {
+                    withinLimit = outputHasher.append(frame.getPayload());
                 } else {
-                    stdout.append(new String(frame.getPayload(), StandardCharsets.UTF_8));
+                    withinLimit = stdout.append(frame.getPayload());
+                }
+                if (!withinLimit) {
+                    // 超出上限后不再读取，释放等待线程，由其结束容器内进程
+                    try {
+                        close();
+                    } catch (IOException ignored) {
+                    }
                 }
-                super.onNext(frame);
             }
         };
 
         final long[] maxMemory = {0L};
+        long statsStartNanos = System.nanoTime();
+        ContainerCgroup containerCgroup = null;
+        if ((options.isTrackMemory() || options.isCpuTimeLimit()) && containerCgroupLocator != null) {
+            containerCgroup = containerCgroupLocator.locate(containerId);
+        }
+        MemoryPeakTracker memoryPeakTracker = null;
+        if (options.isTrackMemory() && containerCgroup != null) {
+            memoryPeakTracker = containerCgroup.startMemoryTracking();
+        }
         StatsCmd statsCmd = null;
         ResultCallback<Statistics> statisticsResultCallback = null;
-        if (trackMemory) {
+        if (options.isTrackMemory() && memoryPeakTracker == null) {
+            // 无法直接读取宿主机 cgroup（远程守护进程、内核不支持重置峰值等）时退回 docker stats 采样
             statsCmd = dockerClient.statsCmd(containerId);
             statisticsResultCallback = statsCmd.exec(new ResultCallback<Statistics>() {
                 @Override
@@ -422,6 +2055,17 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
                 }
             });
         }
+        long cpuStart = containerCgroup == null ? -1L : containerCgroup.readCpuUsageMicros();
+        // 内存超限以 OOM 事件判定：优先取容器 cgroup 的 oom_kill 计数，不可读时取容器的 OOMKilled 标记
+        long oomKillStart = options.isTrackMemory() && containerCgroup != null
+                ? containerCgroup.readOomKillCount()
+                : -1L;
+        Boolean oomKilledBefore = options.isTrackMemory() && oomKillStart < 0
+                ? readContainerOomKilled(dockerClient, containerId)
+                : null;
+        long statsNanos = System.nanoTime() - statsStartNanos;
+        long cpuTime = -1L;
+        boolean completed;
 
         StopWatch stopWatch = new StopWatch();
         try {
@@ -430,16 +2074,40 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
             if (input != null) {
                 execStartCmd.withStdIn(buildStdIn(input));
             }
-            boolean completed = execStartCmd.exec(execStartResultCallback)
-                    .awaitCompletion(timeoutMs, TimeUnit.MILLISECONDS);
+            execStartCmd.exec(execStartResultCallback);
+            if (options.isCpuTimeLimit() && cpuStart >= 0) {
+                completed = awaitWithCpuLimit(execStartResultCallback, containerCgroup, cpuStart, options.getTimeoutMs());
+            } else {
+                completed = execStartResultCallback.awaitCompletion(options.getTimeoutMs(), TimeUnit.MILLISECONDS);
+            }
             stopWatch.stop();
-            if (!completed && failOnTimeout) {
-                throw new RuntimeException("执行超时");
+            if (cpuStart >= 0) {
+                long cpuEnd = containerCgroup.readCpuUsageMicros();
+                cpuTime = cpuEnd < 0 ? -1L : (cpuEnd - cpuStart) / 1000L;
+            }
+            if (!completed) {
+                if (options.isFailOnTimeout()) {
+                    throw new RuntimeException("执行超时");
+                }
+                killContainerProcesses(dockerClient, containerId);
+            } else if (stdout.isOverflow() || stderr.isOverflow()
+                    || (outputComparator != null && outputComparator.isOverflow())
+                    || (outputHasher != null && outputHasher.isOverflow())) {
+                killContainerProcesses(dockerClient, containerId);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("执行被中断", e);
         } finally {
+            statsStartNanos = System.nanoTime();
+            if (memoryPeakTracker != null) {
+                try {
+                    maxMemory[0] = memoryPeakTracker.readPeak();
+                } catch (IOException ignored) {
+                } finally {
+                    memoryPeakTracker.close();
+                }
+            }
             if (statsCmd != null) {
                 try {
                     statsCmd.close();
@@ -452,62 +2120,148 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
                 } catch (Exception ignored) {
                 }
             }
+            if (options.isTrackMemory() || containerCgroup != null) {
+                recordPhase(SandboxMetrics.PHASE_STATS, SandboxMetrics.OUTCOME_SUCCESS,
+                        statsNanos + System.nanoTime() - statsStartNanos);
+            }
         }
 
         Long exitCode = dockerClient.inspectExecCmd(execId).exec().getExitCodeLong();
         ExecResult result = new ExecResult();
         result.setExitCode(exitCode == null ? null : exitCode.intValue());
-        result.setStdout(stdout.toString());
+        result.setStdout(options.isNormalizeStdout() ? stdout.toNormalizedString() : stdout.toString());
         result.setStderr(stderr.toString());
         result.setTime(stopWatch.getLastTaskTimeMillis());
         result.setMaxMemory(maxMemory[0]);
+        if (options.getMemoryLimit() > 0) {
+            result.setMemoryLimit(options.getMemoryLimit());
+        }
+        if (oomKillStart >= 0) {
+            long oomKillEnd = containerCgroup.readOomKillCount();
+            result.setOomKilled(oomKillEnd < 0 ? null : oomKillEnd > oomKillStart);
+        } else if (options.isTrackMemory()) {
+            boolean sigkill = exitCode != null && exitCode == SIGKILL_EXIT_CODE;
+            if (Boolean.FALSE.equals(oomKilledBefore)) {
+                // 标记在容器重启前不会清除，只有执行前未置位时才能据此判断
+                result.setOomKilled(sigkill
+                        && Boolean.TRUE.equals(readContainerOomKilled(dockerClient, containerId)));
+            } else if (memoryPeakTracker == null) {
+                // docker stats 采样的是未扣除基线的容器占用，接近上限且被 SIGKILL 结束即为 OOM
+                long memoryLimit = options.getMemoryLimit() > 0
+                        ? options.getMemoryLimit()
+                        : getDefaultLimits().getContainerMemoryBytes();
+                result.setOomKilled(sigkill && maxMemory[0] >= memoryLimit * 9 / 10);
+            }
+        }
+        if (cpuTime >= 0) {
+            result.setCpuTime(cpuTime);
+        }
+        // 最后一个轮询间隔内结束但 CPU 时间已超限的同样判定为超时
+        boolean cpuExceeded = options.isCpuTimeLimit() && cpuTime > options.getTimeoutMs();
+        result.setTimeout(!completed || cpuExceeded);
+        result.setOutputLimitExceeded(stdout.isOverflow() || stderr.isOverflow()
+                || (outputComparator != null && outputComparator.isOverflow())
+                || (outputHasher != null && outputHasher.isOverflow()));
+        if (outputComparator != null) {
+            outputComparator.finish();
+            result.setOutputMatched(outputComparator.isMatched());
+            result.setMismatchMessage(outputComparator.getMismatchMessage());
+        }
+        if (outputHasher != null) {
+            boolean matched = outputHasher.matches(options.getExpectedOutputHash());
+            result.setOutputMatched(matched);
+            result.setMismatchMessage(matched ? null : "输出哈希不一致");
+        }
         return result;
     }
 
     /**
-     * 拉取缺失镜像
+     * 按 CPU 时间等待命令结束
+     *
+     * @param callback        执行回调
+     * @param containerCgroup 容器 cgroup
+     * @param cpuStart        开始时的累计 CPU 时间（微秒）
+     * @param cpuLimitMs      CPU 时间上限
+     * @return 是否在限制内结束
+     * @throws InterruptedException 等待被中断
+     */
+    private boolean awaitWithCpuLimit(ExecStartResultCallback callback, ContainerCgroup containerCgroup,
+                                      long cpuStart, long cpuLimitMs) throws InterruptedException {
+        long wallLimitMs = (long) (cpuLimitMs * executionProperties.getWallTimeFactor());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wallLimitMs);
+        while (!callback.awaitCompletion(CPU_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+            long cpuNow = containerCgroup.readCpuUsageMicros();
+            if (cpuNow >= 0 && cpuNow - cpuStart > cpuLimitMs * 1000L) {
+                return false;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 以 root 结束容器内除保活进程外的全部进程
      *
      * @param dockerClient docker 客户端
-     * @param image        镜像名
+     * @param containerId  容器 id
      */
-    protected void ensureImageExists(DockerClient dockerClient, String image) {
+    private void killContainerProcesses(DockerClient dockerClient, String containerId) {
         try {
-            dockerClient.inspectImageCmd(image).exec();
-            return;
-        } catch (NotFoundException ignored) {
+            ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
+                    .withCmd(KILL_ALL_COMMAND)
+                    .withUser("0")
+                    .exec();
+            dockerClient.execStartCmd(execCreateCmdResponse.getId())
+                    .exec(new ExecStartResultCallback())
+                    .awaitCompletion(DEFAULT_COMPILE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("结束超时进程失败, container = {}", containerId, e);
         }
-        PullImageCmd pullImageCmd = dockerClient.pullImageCmd(image);
-        PullImageResultCallback callback = new PullImageResultCallback() {
-            @Override
-            public void onNext(com.github.dockerjava.api.model.PullResponseItem item) {
-                String id = item.getId();
-                String status = item.getStatus();
-                com.github.dockerjava.api.model.ResponseItem.ProgressDetail pd = item.getProgressDetail();
-                String percent = "";
-                if (pd != null && pd.getTotal() != null && pd.getTotal() > 0) {
-                    double p = pd.getCurrent() * 100.0 / pd.getTotal();
-                    percent = String.format(" %.1f%%", p);
-                }
-                System.out.println("拉取层 " + (id != null ? id : "?") + " : " + status + percent);
-                super.onNext(item);
-            }
+    }
 
-            @Override
-            public void onError(Throwable throwable) {
-                System.err.println("镜像拉取错误: " + throwable.getMessage());
-                throwable.printStackTrace();
-                super.onError(throwable);
-            }
-        };
+    /**
+     * 确保镜像可用，启动预拉取完成后只查询内存状态
+     *
+     * @param dockerClient docker 客户端
+     * @param image        镜像名
+     */
+    protected void ensureImageExists(DockerClient dockerClient, String image) {
+        imageManager.ensureImage(image);
+    }
 
+    /**
+     * 确保镜像可用后创建容器，镜像在运行期间被删除时清除就绪状态、重新拉取并重试一次
+     *
+     * @param creator 容器创建
+     * @return 容器 id
+     */
+    private String createWithImage(Supplier<String> creator) {
+        String image = getDockerImage();
+        checkImage(image);
         try {
-            pullImageCmd.exec(callback).awaitCompletion(PULL_TIMEOUT, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("拉取被中断", ie);
+            return timed(SandboxMetrics.PHASE_CONTAINER_CREATE, creator);
+        } catch (NotFoundException e) {
+            imageManager.invalidate(image);
+            checkImage(image);
+            return timed(SandboxMetrics.PHASE_CONTAINER_CREATE, creator);
         }
     }
 
+    private void checkImage(String image) {
+        timed(SandboxMetrics.PHASE_IMAGE_CHECK, () -> {
+            ensureImageExists(dockerClient, image);
+            return null;
+        });
+    }
+
+    private void startContainer(String containerId) {
+        timed(SandboxMetrics.PHASE_CONTAINER_START, () -> dockerClient.startContainerCmd(containerId).exec());
+    }
+
     /**
      * 构造标准输入
      *
@@ -523,48 +2277,87 @@ public abstract class DockerCodeSandboxTemplate implements CodeSandbox {
     }
 
     /**
-     * 清理容器和客户端
+     * 清理容器，共享的 docker 客户端不在此关闭
      *
      * @param dockerClient docker 客户端
      * @param containerId  容器 id
      */
     protected void cleanupContainer(DockerClient dockerClient, String containerId) {
         if (containerId != null) {
+            long startNanos = System.nanoTime();
+            String outcome = SandboxMetrics.OUTCOME_SUCCESS;
             try {
                 dockerClient.removeContainerCmd(containerId)
                         .withForce(true)
                         .exec();
             } catch (Exception ignored) {
+                outcome = SandboxMetrics.OUTCOME_FAILURE;
             }
-        }
-        try {
-            dockerClient.close();
-        } catch (Exception ignored) {
+            recordPhase(SandboxMetrics.PHASE_CLEANUP, outcome, System.nanoTime() - startNanos);
         }
     }
 
     /**
-     * 归一化输出
+     * 归一化输出，单次遍历，已归一化的输出直接返回
      *
      * @param value 原始输出
      * @return 归一化输出
      */
     protected String normalizeOutput(String value) {
-        if (value == null) {
-            return "";
-        }
-        String normalized = value.replace("\r\n", "\n").replace("\r", "\n");
-        String[] lines = normalized.split("\n", -1);
-        for (int i = 0; i < lines.length; i++) {
-            lines[i] = rtrimLine(lines[i]);
+        return OutputNormalizer.normalize(value);
+    }
+
+    /**
+     * 一次运行中各通道容器的核心绑定：每个用例运行前分配核心并绑定容器，运行后归还，
+     * 同一通道优先取回上一次的核心，核心未变时不重复绑定；运行结束后容器恢复为共享核心
+     */
+    private class LanePinning {
+
+        private final DockerClient dockerClient;
+
+        private final List<String> laneContainerIds;
+
+        private final int[] laneCores;
+
+        LanePinning(DockerClient dockerClient, List<String> laneContainerIds) {
+            this.dockerClient = dockerClient;
+            this.laneContainerIds = laneContainerIds;
+            this.laneCores = new int[laneContainerIds.size()];
+            Arrays.fill(laneCores, -1);
         }
-        int end = lines.length;
-        while (end > 0 && lines[end - 1].isEmpty()) {
-            end--;
+
+        <T> CaseExecutor.LaneTask<T> pin(CaseExecutor.LaneTask<T> task, ObjIntConsumer<T> coreRecorder) {
+            return (lane, index) -> {
+                int core = cpuCoreAllocator.acquire(laneCores[lane]);
+                try {
+                    if (laneCores[lane] != core) {
+                        laneCores[lane] = -1;
+                        updateContainerCpuset(dockerClient, laneContainerIds.get(lane), String.valueOf(core));
+                        laneCores[lane] = core;
+                    }
+                    T result = task.run(lane, index);
+                    if (result != null) {
+                        coreRecorder.accept(result, core);
+                    }
+                    return result;
+                } finally {
+                    cpuCoreAllocator.release(core);
+                }
+            };
         }
-        if (end == 0) {
-            return "";
+
+        void unpinAll() {
+            for (int lane = 0; lane < laneCores.length; lane++) {
+                if (laneCores[lane] < 0) {
+                    continue;
+                }
+                String containerId = laneContainerIds.get(lane);
+                try {
+                    updateContainerCpuset(dockerClient, containerId, cpuCoreAllocator.getSharedCpuset());
+                } catch (Exception e) {
+                    log.warn("恢复容器共享核心失败, container = {}", containerId, e);
+                }
+            }
         }
-        return String.join("\n", Arrays.copyOf(lines, end));
     }
 }
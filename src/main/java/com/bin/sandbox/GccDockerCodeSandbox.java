@@ -1,9 +1,7 @@
 package com.bin.sandbox;
 
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.lang.UUID;
+import com.bin.sandbox.constant.LanguageConstant;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
 import org.springframework.stereotype.Component;
 
 /**
@@ -12,25 +10,20 @@ import org.springframework.stereotype.Component;
 @Component("gccDockerCodeSandBox")
 public class GccDockerCodeSandbox extends DockerCodeSandboxTemplate {
 
-    private static final String GLOBAL_CODE_DIR_NAME = "tmpCode";
-
     private static final String GLOBAL_C_FILE_NAME = "main.c";
 
     private static final String EXECUTABLE_NAME = "main";
 
     private static final String DEFAULT_IMAGE = "gcc:13";
 
+    /**
+     * 获取代码文件名
+     *
+     * @return 代码文件名
+     */
     @Override
-    public File saveCodeToFile(String code) {
-        String userDir = System.getProperty("user.dir");
-        String globalCodePathName = userDir + File.separator + GLOBAL_CODE_DIR_NAME;
-        if (!FileUtil.exist(globalCodePathName)) {
-            FileUtil.mkdir(globalCodePathName);
-        }
-
-        String userCodeParentPath = globalCodePathName + File.separator + UUID.randomUUID();
-        String userCodePath = userCodeParentPath + File.separator + GLOBAL_C_FILE_NAME;
-        return FileUtil.writeString(code, userCodePath, StandardCharsets.UTF_8);
+    protected String getCodeFileName() {
+        return GLOBAL_C_FILE_NAME;
     }
 
     /**
@@ -43,6 +36,16 @@ public class GccDockerCodeSandbox extends DockerCodeSandboxTemplate {
         return DEFAULT_IMAGE;
     }
 
+    /**
+     * 获取语言标识
+     *
+     * @return 语言标识
+     */
+    @Override
+    protected String getLanguage() {
+        return LanguageConstant.GCC;
+    }
+
     /**
      * 生成编译命令
      *
@@ -1,13 +1,95 @@
 package com.bin.sandbox;
 
-import java.io.File;
+import cn.hutool.core.lang.UUID;
+import cn.hutool.core.util.StrUtil;
+import com.bin.sandbox.compile.CompileServerHandle;
+import com.bin.sandbox.compile.CompileServerManager;
+import com.bin.sandbox.config.JavaProperties;
+import com.bin.sandbox.constant.LanguageConstant;
+import com.bin.sandbox.harness.CompileServer;
+import com.bin.sandbox.harness.SandboxHarness;
+import com.bin.sandbox.judge.OutputNormalizer;
+import com.bin.sandbox.model.ExecOptions;
+import com.bin.sandbox.model.ExecResult;
+import com.bin.sandbox.model.ExecuteMessage;
+import com.bin.sandbox.model.ResourceLimits;
+import com.bin.sandbox.utils.TarUtils;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.command.ExecStartResultCallback;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.utils.IOUtils;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Component("javaDockerCodeSandBox")
 public class JavaDockerCodeSandbox extends DockerCodeSandboxTemplate {
 
     private static final String DEFAULT_IMAGE = "openjdk:8u342-jdk-slim-buster";
 
+    /**
+     * 运行器和编译服务类文件在容器内的目录，位于 /app 下随工作目录一起清理
+     */
+    private static final String HARNESS_DIR = ".harness";
+
+    /**
+     * 运行器 JVM 启动预留时间
+     */
+    private static final long HARNESS_STARTUP_TIMEOUT = 10000L;
+
+    /**
+     * 运行器内每个用例额外预留的时间（类加载、输出编码）
+     */
+    private static final long HARNESS_CASE_MARGIN = 1000L;
+
+    /**
+     * 编译服务的请求目录
+     */
+    private static final String COMPILE_SERVER_DIR = "/app/compile-server";
+
+    /**
+     * -XX:+ExitOnOutOfMemoryError 结束 JVM 时的退出码
+     */
+    static final int OUT_OF_MEMORY_EXIT_CODE = 3;
+
+    /**
+     * 启动编译服务时预热编译的代码，同时确认服务可用
+     */
+    private static final String WARMUP_SOURCE = "public class Main { public static void main(String[] args) { } }";
+
+    private static volatile byte[] harnessArchive;
+
+    @Resource
+    private JavaProperties javaProperties;
+
+    @Resource
+    private CompileServerManager compileServerManager;
+
+    /**
+     * 额外注册常驻编译服务
+     */
+    @Override
+    public void registerImage() {
+        super.registerImage();
+        if (!isNamespaceBackend() && compileServerManager != null && compileServerManager.isEnabled()) {
+            compileServerManager.registerServer(getDockerImage(), this::startCompileServer);
+        }
+    }
+
     /**
      * 获取镜像名
      *
@@ -15,7 +97,14 @@ public class JavaDockerCodeSandbox extends DockerCodeSandboxTemplate {
      */
     @Override
     protected String getDockerImage() {
-        return DEFAULT_IMAGE;
+        return javaProperties == null || StrUtil.isBlank(javaProperties.getImage())
+                ? DEFAULT_IMAGE
+                : javaProperties.getImage();
+    }
+
+    @Override
+    protected String getLanguage() {
+        return LanguageConstant.JAVA;
     }
 
     /**
@@ -26,7 +115,13 @@ public class JavaDockerCodeSandbox extends DockerCodeSandboxTemplate {
      */
     @Override
     protected String[] buildCompileCommand(File userCodeFile) {
-        return new String[]{"javac", "-encoding", "UTF-8", "/app/" + userCodeFile.getName()};
+        List<String> command = new ArrayList<>();
+        command.add("javac");
+        for (String jvmOption : getCompileJvmOptions()) {
+            command.add("-J" + jvmOption);
+        }
+        command.addAll(Arrays.asList("-encoding", "UTF-8", "/app/" + userCodeFile.getName()));
+        return command.toArray(new String[0]);
     }
 
     /**
@@ -37,6 +132,397 @@ public class JavaDockerCodeSandbox extends DockerCodeSandboxTemplate {
      */
     @Override
     protected String[] buildRunCommand(File userCodeFile) {
-        return new String[]{"java", "-cp", "/app", "Main"};
+        return buildRunCommand(userCodeFile, getDefaultLimits());
+    }
+
+    /**
+     * 按资源限制生成运行命令，堆上限设为用户程序可用内存
+     *
+     * @param userCodeFile 代码文件
+     * @param limits       资源限制
+     * @return 运行命令
+     */
+    @Override
+    protected String[] buildRunCommand(File userCodeFile, ResourceLimits limits) {
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.addAll(getRunJvmOptions(limits));
+        command.addAll(Arrays.asList("-cp", "/app", "Main"));
+        return command.toArray(new String[0]);
+    }
+
+    /**
+     * javac 的 JVM 参数：只用 C1 编译（编译任务短，C2 来不及生效），配置 CDS 归档时加载 javac 归档，
+     * 转储时 tools.jar 在引导类路径上，运行时必须一致
+     *
+     * @return JVM 参数
+     */
+    protected List<String> getCompileJvmOptions() {
+        List<String> jvmOptions = new ArrayList<>();
+        if (javaProperties == null) {
+            return jvmOptions;
+        }
+        if (javaProperties.isStartupFlags()) {
+            jvmOptions.add("-XX:TieredStopAtLevel=1");
+            jvmOptions.add("-XX:+UseSerialGC");
+        }
+        if (StrUtil.isNotBlank(javaProperties.getCdsDirectory())) {
+            addCdsOptions(jvmOptions, "javac.jsa");
+            jvmOptions.add("-Xbootclasspath/a:" + javaProperties.getJavaHome() + "/lib/tools.jar");
+        }
+        return jvmOptions;
+    }
+
+    /**
+     * 编译服务的 JVM 参数：与 javac 相同，但服务常驻，保留 C2
+     *
+     * @return JVM 参数
+     */
+    protected List<String> getCompileServerJvmOptions() {
+        List<String> jvmOptions = getCompileJvmOptions();
+        jvmOptions.remove("-XX:TieredStopAtLevel=1");
+        return jvmOptions;
+    }
+
+    /**
+     * 用户程序的 JVM 参数：不限制 JIT 层级，避免计算密集的程序变慢；堆上限取内存限制，
+     * 堆耗尽时立即以退出码 3 结束（用户代码捕获 OutOfMemoryError 也不例外），元空间、线程栈等由容器预留的开销承担。
+     * 同进程运行器同样使用这些参数，堆耗尽时运行器退出，该用例及之后的用例逐进程补跑
+     *
+     * @param limits 资源限制
+     * @return JVM 参数
+     */
+    protected List<String> getRunJvmOptions(ResourceLimits limits) {
+        List<String> jvmOptions = new ArrayList<>();
+        jvmOptions.add("-Xmx" + Math.max(limits.getMemoryLimitBytes() / (1024 * 1024), 1) + "m");
+        jvmOptions.add("-XX:+ExitOnOutOfMemoryError");
+        if (javaProperties == null) {
+            return jvmOptions;
+        }
+        if (javaProperties.isStartupFlags()) {
+            jvmOptions.add("-XX:+UseSerialGC");
+        }
+        if (StrUtil.isNotBlank(javaProperties.getCdsDirectory())) {
+            addCdsOptions(jvmOptions, "run.jsa");
+        }
+        return jvmOptions;
+    }
+
+    /**
+     * 归档缺失或与 JVM 不匹配时 -Xshare:auto 静默退回不共享，不会导致启动失败
+     */
+    private void addCdsOptions(List<String> jvmOptions, String archiveName) {
+        jvmOptions.add("-Xshare:auto");
+        jvmOptions.add("-XX:+UnlockDiagnosticVMOptions");
+        jvmOptions.add("-XX:SharedArchiveFile=" + javaProperties.getCdsDirectory() + "/" + archiveName);
+    }
+
+    /**
+     * 启用常驻编译服务时交给空闲的编译服务编译，产物和诊断信息取回后写入运行容器；
+     * 没有空闲服务或服务异常时回退为容器内 javac
+     *
+     * @param dockerClient docker 客户端
+     * @param containerId  容器 id
+     * @param userCodeFile 代码文件
+     * @return 编译信息
+     */
+    @Override
+    protected ExecuteMessage compileInContainer(DockerClient dockerClient, String containerId, File userCodeFile) {
+        CompileServerHandle handle = compileServerManager == null || !compileServerManager.isEnabled()
+                ? null
+                : compileServerManager.acquire(getDockerImage());
+        if (handle == null) {
+            return super.compileInContainer(dockerClient, containerId, userCodeFile);
+        }
+        long start = System.currentTimeMillis();
+        Map<String, byte[]> classFiles;
+        int exitCode;
+        String diagnostics;
+        boolean healthy = false;
+        try {
+            classFiles = compileOnServer(handle.getContainerId(), userCodeFile.getName(),
+                    readSource(containerId, userCodeFile));
+            String result = new String(classFiles.remove(CompileServer.RESULT_FILE), StandardCharsets.UTF_8);
+            int lineEnd = result.indexOf('\n');
+            exitCode = Integer.parseInt(result.substring(0, lineEnd));
+            diagnostics = result.substring(lineEnd + 1);
+            healthy = exitCode != CompileServer.INTERNAL_ERROR_EXIT_CODE;
+        } catch (RuntimeException e) {
+            log.warn("编译服务不可用，回退为容器内编译, server = {}", handle.getContainerId(), e);
+            return super.compileInContainer(dockerClient, containerId, userCodeFile);
+        } finally {
+            compileServerManager.release(handle, healthy);
+        }
+        if (!healthy) {
+            log.warn("编译服务内部错误，回退为容器内编译, server = {}, diagnostics = {}", handle.getContainerId(),
+                    diagnostics);
+            return super.compileInContainer(dockerClient, containerId, userCodeFile);
+        }
+        if (exitCode != 0) {
+            throw new RuntimeException(StrUtil.isBlank(diagnostics) ? "编译失败" : diagnostics);
+        }
+        writeWorkspaceArchive(containerId, TarUtils.pack(classFiles));
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setExitValue(0);
+        executeMessage.setMessage("");
+        executeMessage.setErrorMessage(diagnostics);
+        executeMessage.setTime(System.currentTimeMillis() - start);
+        return executeMessage;
+    }
+
+    /**
+     * 创建编译服务容器并启动编译服务，预热编译一次后才交给管理器
+     *
+     * @param dockerClient docker 客户端
+     * @return 容器 id
+     */
+    private String startCompileServer(DockerClient dockerClient) {
+        String containerId = createWorkspaceContainer(dockerClient, null,
+                Collections.singletonMap(CompileServerManager.SERVER_LABEL, getDockerImage()));
+        try {
+            writeWorkspaceArchive(containerId, getHarnessArchive());
+            List<String> command = new ArrayList<>();
+            command.add("java");
+            command.addAll(getCompileServerJvmOptions());
+            command.addAll(Arrays.asList("-cp", "/app/" + HARNESS_DIR, CompileServer.class.getName(),
+                    COMPILE_SERVER_DIR));
+            String execId = dockerClient.execCreateCmd(containerId)
+                    .withCmd(command.toArray(new String[0]))
+                    .withUser("0")
+                    .exec()
+                    .getId();
+            dockerClient.execStartCmd(execId).withDetach(true).exec(new ExecStartResultCallback())
+                    .awaitCompletion(HARNESS_STARTUP_TIMEOUT, TimeUnit.MILLISECONDS);
+            compileOnServer(containerId, "Main.java", WARMUP_SOURCE.getBytes(StandardCharsets.UTF_8));
+            return containerId;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cleanupContainer(dockerClient, containerId);
+            throw new RuntimeException("编译服务启动被中断", e);
+        } catch (RuntimeException e) {
+            cleanupContainer(dockerClient, containerId);
+            throw e;
+        }
+    }
+
+    /**
+     * 一次 exec 完成提交和取回：解包源码和就绪标记，等待服务写出完成标记后打包产物，最后清理请求目录
+     *
+     * @param serverContainerId 编译服务容器 id
+     * @param fileName          源文件名
+     * @param source            源码
+     * @return 产物文件名 -> 内容，包含结果文件
+     */
+    private Map<String, byte[]> compileOnServer(String serverContainerId, String fileName, byte[] source) {
+        String requestId = UUID.fastUUID().toString(true);
+        Map<String, byte[]> request = new LinkedHashMap<>();
+        request.put(requestId + "/src/" + fileName, source);
+        request.put(requestId + CompileServer.READY_SUFFIX, new byte[0]);
+        // 等待时间比 exec 超时短，超时后以非零状态退出
+        String waitSeconds = String.valueOf(Math.max(getCompileTimeoutMs() - 1000L, 1000L) / 1000.0);
+        String script = "R=" + COMPILE_SERVER_DIR + "; mkdir -p $R && tar -x -f - -C $R"
+                + " && timeout " + waitSeconds
+                + " sh -c 'until [ -e \"$0/" + CompileServer.DONE_FILE + "\" ]; do sleep 0.005; done' \"$R/$1\""
+                + " && tar -c -f - -C \"$R/$1/out\" .; s=$?; rm -rf \"$R/${1:?}\" \"$R/$1" + CompileServer.READY_SUFFIX
+                + "\"; exit $s";
+        Map<String, byte[]> output = TarUtils.unpack(execAsRoot(serverContainerId,
+                new String[]{"sh", "-c", script, "sh", requestId}, TarUtils.pack(request)));
+        if (!output.containsKey(CompileServer.RESULT_FILE)) {
+            throw new RuntimeException("编译服务未返回结果");
+        }
+        return output;
+    }
+
+    /**
+     * 读取源码：宿主机工作目录中存在时直接读取，内存工作目录从容器中读取
+     */
+    private byte[] readSource(String containerId, File userCodeFile) {
+        if (userCodeFile.isAbsolute() && userCodeFile.isFile()) {
+            try {
+                return Files.readAllBytes(userCodeFile.toPath());
+            } catch (IOException e) {
+                throw new RuntimeException("读取源码失败", e);
+            }
+        }
+        return execAsRoot(containerId, new String[]{"cat", "/app/" + userCodeFile.getName()}, null);
+    }
+
+    /**
+     * JVM 堆内存耗尽时由 -XX:+ExitOnOutOfMemoryError 以退出码 3 结束而不会被内核结束，同样判定为超出内存限制。
+     * 不根据标准错误中的 OutOfMemoryError 判定，用户程序可以自行输出该字符串
+     *
+     * @param execResult 执行结果
+     * @return 是否超出
+     */
+    @Override
+    protected boolean isMemoryLimitExceeded(ExecResult execResult) {
+        return super.isMemoryLimitExceeded(execResult)
+                || Integer.valueOf(OUT_OF_MEMORY_EXIT_CODE).equals(execResult.getExitCode());
+    }
+
+    /**
+     * 用一个 JVM 依次运行多个用例，运行器类文件随服务一起编译，运行前以 tar 写入容器 /app/.harness。
+     * 运行器报告回退、超时或异常退出后，之后的用例不在结果中，由沙箱逐进程补跑；
+     * 每次运行经标准输入传入新的随机串，输出中有伪造的结果行时整批回退
+     *
+     * @param dockerClient dockerClient
+     * @param containerId  运行容器 id
+     * @param userCodeFile 代码文件
+     * @param inputList    输入列表
+     * @param runOptions   运行选项
+     * @param limits       资源限制
+     * @return 执行结果列表
+     */
+    @Override
+    protected List<ExecResult> runCasesInProcess(DockerClient dockerClient, String containerId, File userCodeFile,
+                                                 List<String> inputList, ExecOptions runOptions,
+                                                 ResourceLimits limits) {
+        List<ExecResult> execResultList = new ArrayList<>();
+        long wallLimitMs = runOptions.isCpuTimeLimit()
+                ? (long) (runOptions.getTimeoutMs() * getWallTimeFactor())
+                : runOptions.getTimeoutMs();
+        int outputLimit = runOptions.getOutputLimit() > 0 ? runOptions.getOutputLimit() : DEFAULT_OUTPUT_LIMIT;
+        // 每个用例的输出和错误经 Base64 编码后写在一行
+        long harnessOutputLimit = (long) inputList.size() * ((outputLimit * 2L / 3 + 1) * 4 + 256);
+        ExecOptions harnessOptions = runOptions.toBuilder()
+                .timeoutMs(inputList.size() * (wallLimitMs + HARNESS_CASE_MARGIN) + HARNESS_STARTUP_TIMEOUT)
+                .cpuTimeLimit(false)
+                .outputLimit((int) Math.min(harnessOutputLimit, Integer.MAX_VALUE - 8))
+                .normalizeStdout(false)
+                .expectedOutput(null)
+                .expectedOutputHash(null)
+                .build();
+        List<String> harnessCommand = new ArrayList<>();
+        harnessCommand.add("java");
+        harnessCommand.addAll(getRunJvmOptions(limits));
+        harnessCommand.addAll(Arrays.asList("-cp", "/app/" + HARNESS_DIR, SandboxHarness.class.getName(),
+                String.valueOf(runOptions.getTimeoutMs()), String.valueOf(wallLimitMs),
+                String.valueOf(outputLimit), String.valueOf(runOptions.isCpuTimeLimit())));
+        String nonce = UUID.randomUUID().toString(true);
+        ExecResult harnessResult;
+        try {
+            writeWorkspaceArchive(containerId, getHarnessArchive());
+            harnessResult = execInContainer(dockerClient, containerId, harnessCommand.toArray(new String[0]),
+                    buildHarnessInput(nonce, inputList), harnessOptions);
+        } catch (RuntimeException e) {
+            log.warn("同进程运行失败，回退为逐进程运行, container = {}", containerId, e);
+            return new ArrayList<>();
+        }
+        return parseHarnessOutput(harnessResult, nonce, runOptions, containerId);
+    }
+
+    /**
+     * 解析运行器输出，遇到回退或超时的用例即停止；有随机串不符或下标不连续的结果行时视为伪造，整批回退
+     *
+     * @param harnessResult 运行器执行结果
+     * @param nonce         本次运行的随机串
+     * @param runOptions    运行选项
+     * @param containerId   运行容器 id，用于日志
+     * @return 执行结果列表
+     */
+    static List<ExecResult> parseHarnessOutput(ExecResult harnessResult, String nonce, ExecOptions runOptions,
+                                               String containerId) {
+        List<ExecResult> execResultList = new ArrayList<>();
+        boolean finished = false;
+        for (String line : harnessResult.getStdout().split("\n")) {
+            String[] fields = line.trim().split(" ");
+            if (!SandboxHarness.FRAME_PREFIX.equals(fields[0])) {
+                continue;
+            }
+            if (finished || fields.length != 11 || !nonce.equals(fields[1])
+                    || !String.valueOf(execResultList.size()).equals(fields[2])) {
+                // 用户代码绕过运行器写出了结果行
+                log.warn("运行器输出中有伪造的结果行，回退为逐进程运行, container = {}, line = {}", containerId,
+                        StrUtil.maxLength(line, 200));
+                return new ArrayList<>();
+            }
+            ExecResult execResult;
+            try {
+                execResult = parseHarnessFrame(fields, harnessResult, runOptions);
+            } catch (IllegalArgumentException e) {
+                log.warn("运行器结果行格式错误，回退为逐进程运行, container = {}", containerId, e);
+                return new ArrayList<>();
+            }
+            if (execResult == null || Boolean.TRUE.equals(execResult.getTimeout())) {
+                // 之后不应再有结果行，继续检查以发现伪造
+                finished = true;
+            }
+            if (execResult != null) {
+                execResultList.add(execResult);
+            }
+        }
+        return execResultList;
+    }
+
+    /**
+     * 解析运行器输出的一个用例
+     *
+     * @param fields        字段
+     * @param harnessResult 运行器执行结果
+     * @param runOptions    运行选项
+     * @return 执行结果，运行器报告回退时为 null
+     */
+    private static ExecResult parseHarnessFrame(String[] fields, ExecResult harnessResult, ExecOptions runOptions) {
+        int status = Integer.parseInt(fields[3]);
+        if (status == SandboxHarness.STATUS_FALLBACK) {
+            return null;
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] stdout = "-".equals(fields[9]) ? new byte[0] : decoder.decode(fields[9]);
+        int stdoutLength = runOptions.isNormalizeStdout()
+                ? OutputNormalizer.normalize(stdout, stdout.length)
+                : stdout.length;
+        ExecResult execResult = new ExecResult();
+        execResult.setExitCode(Integer.parseInt(fields[4]));
+        execResult.setTime(Long.parseLong(fields[5]));
+        execResult.setCpuTime(Long.parseLong(fields[6]));
+        long allocatedBytes = Long.parseLong(fields[7]);
+        execResult.setAllocatedBytes(allocatedBytes < 0 ? null : allocatedBytes);
+        execResult.setOutputLimitExceeded(Boolean.parseBoolean(fields[8]));
+        execResult.setStdout(new String(stdout, 0, stdoutLength, StandardCharsets.UTF_8));
+        execResult.setStderr("-".equals(fields[10])
+                ? "" : new String(decoder.decode(fields[10]), StandardCharsets.UTF_8));
+        // 同一进程内的用例只能取得进程整体峰值内存
+        execResult.setMaxMemory(harnessResult.getMaxMemory());
+        execResult.setMemoryLimit(harnessResult.getMemoryLimit());
+        execResult.setTimeout(status == SandboxHarness.STATUS_TIMEOUT);
+        return execResult;
+    }
+
+    /**
+     * 运行器标准输入：首行为随机串，第二行为用例数，之后每个用例一行字节数，紧跟与逐进程模式相同的输入内容
+     */
+    static String buildHarnessInput(String nonce, List<String> inputList) {
+        StringBuilder harnessInput = new StringBuilder().append(nonce).append('\n')
+                .append(inputList.size()).append('\n');
+        for (String input : inputList) {
+            String caseInput = input == null ? "" : (input.endsWith("\n") ? input : input + "\n");
+            harnessInput.append(caseInput.getBytes(StandardCharsets.UTF_8).length).append('\n').append(caseInput);
+        }
+        return harnessInput.toString();
+    }
+
+    private static byte[] getHarnessArchive() {
+        if (harnessArchive == null) {
+            Map<String, byte[]> files = new LinkedHashMap<>();
+            List<Class<?>> harnessClasses = new ArrayList<>();
+            for (Class<?> mainClass : Arrays.asList(SandboxHarness.class, CompileServer.class)) {
+                harnessClasses.add(mainClass);
+                harnessClasses.addAll(Arrays.asList(mainClass.getDeclaredClasses()));
+            }
+            for (Class<?> harnessClass : harnessClasses) {
+                String classFile = harnessClass.getName().replace('.', '/') + ".class";
+                try (InputStream inputStream = SandboxHarness.class.getClassLoader().getResourceAsStream(classFile)) {
+                    if (inputStream == null) {
+                        throw new RuntimeException("运行器类文件不存在: " + classFile);
+                    }
+                    files.put(HARNESS_DIR + "/" + classFile, IOUtils.toByteArray(inputStream));
+                } catch (IOException e) {
+                    throw new RuntimeException("读取运行器类文件失败: " + classFile, e);
+                }
+            }
+            harnessArchive = TarUtils.pack(files);
+        }
+        return harnessArchive;
     }
 }
@@ -0,0 +1,334 @@
+package com.bin.sandbox.cache;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.UUID;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.bin.sandbox.config.CompileCacheProperties;
+import com.bin.sandbox.model.CompileCacheStats;
+import com.github.dockerjava.api.DockerClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 编译产物缓存。
+ * <p>
+ * 以（语言、镜像 id、编译命令、源码）的 SHA-256 为键，把编译产物（Main.class、main 等）保存在本地磁盘，
+ * 命中时直接复制到工作目录并跳过编译。条目按最近使用顺序淘汰，目录修改时间记录最近使用时间，重启后据此恢复顺序。
+ */
+@Slf4j
+@Component
+public class CompileCache {
+
+    private static final String DEFAULT_CACHE_DIR_NAME = "compileCache";
+
+    private static final String TEMP_DIR_PREFIX = ".tmp-";
+
+    @Resource
+    private CompileCacheProperties compileCacheProperties;
+
+    @Resource
+    private DockerClient dockerClient;
+
+    /**
+     * 键 -> 条目字节数，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Long> entryMap = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, String> imageIdMap = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private long totalBytes;
+
+    private Path cacheRoot;
+
+    @PostConstruct
+    public void init() {
+        if (!compileCacheProperties.isEnabled()) {
+            return;
+        }
+        String directory = compileCacheProperties.getDirectory();
+        if (directory == null || directory.isEmpty()) {
+            directory = System.getProperty("user.dir") + File.separator + DEFAULT_CACHE_DIR_NAME;
+        }
+        cacheRoot = Paths.get(directory);
+        FileUtil.mkdir(cacheRoot.toFile());
+        File[] entryDirs = cacheRoot.toFile().listFiles(File::isDirectory);
+        if (entryDirs == null) {
+            return;
+        }
+        Arrays.sort(entryDirs, Comparator.comparingLong(File::lastModified));
+        synchronized (this) {
+            for (File entryDir : entryDirs) {
+                if (entryDir.getName().startsWith(TEMP_DIR_PREFIX)) {
+                    FileUtil.del(entryDir);
+                    continue;
+                }
+                long size = FileUtil.size(entryDir);
+                entryMap.put(entryDir.getName(), size);
+                totalBytes += size;
+            }
+            evictIfNecessary();
+        }
+        log.info("编译缓存已加载, entries = {}, bytes = {}", entryMap.size(), totalBytes);
+    }
+
+    public boolean isEnabled() {
+        return compileCacheProperties.isEnabled() && cacheRoot != null;
+    }
+
+    /**
+     * 计算缓存键，镜像不存在时返回 null 表示不使用缓存
+     *
+     * @param language       语言标识
+     * @param image          镜像名
+     * @param compileCommand 编译命令
+     * @param code           源码
+     * @return 缓存键
+     */
+    public String buildKey(String language, String image, String[] compileCommand, String code) {
+        String imageId = resolveImageId(image);
+        if (imageId == null) {
+            return null;
+        }
+        String raw = language + '\0' + imageId + '\0' + String.join("\0", compileCommand) + '\0' + code;
+        return DigestUtil.sha256Hex(raw);
+    }
+
+    /**
+     * 把缓存产物复制到工作目录
+     *
+     * @param key       缓存键
+     * @param targetDir 工作目录
+     * @return 是否命中
+     */
+    public boolean restore(String key, File targetDir) {
+        File[] artifacts = lookup(key);
+        if (artifacts == null) {
+            return false;
+        }
+        try {
+            for (File artifact : artifacts) {
+                Files.copy(artifact.toPath(), targetDir.toPath().resolve(artifact.getName()),
+                        StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+            }
+            markHit(key);
+            return true;
+        } catch (IOException e) {
+            markBroken(key, e);
+            return false;
+        }
+    }
+
+    /**
+     * 读取缓存产物，用于不落盘的工作目录
+     *
+     * @param key 缓存键
+     * @return 文件名 -> 内容，未命中时返回 null
+     */
+    public Map<String, byte[]> restoreArtifacts(String key) {
+        File[] artifacts = lookup(key);
+        if (artifacts == null) {
+            return null;
+        }
+        try {
+            Map<String, byte[]> artifactMap = new LinkedHashMap<>();
+            for (File artifact : artifacts) {
+                artifactMap.put(artifact.getName(), Files.readAllBytes(artifact.toPath()));
+            }
+            markHit(key);
+            return artifactMap;
+        } catch (IOException e) {
+            markBroken(key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 保存编译产物：工作目录下除源码外的全部文件
+     *
+     * @param key            缓存键
+     * @param sourceDir      工作目录
+     * @param sourceFileName 源码文件名
+     */
+    public void store(String key, File sourceDir, String sourceFileName) {
+        File[] artifacts = sourceDir.listFiles(file -> file.isFile() && !file.getName().equals(sourceFileName));
+        if (artifacts == null || artifacts.length == 0) {
+            return;
+        }
+        Path tempDir = cacheRoot.resolve(TEMP_DIR_PREFIX + UUID.fastUUID());
+        try {
+            Files.createDirectories(tempDir);
+            long size = 0;
+            for (File artifact : artifacts) {
+                Files.copy(artifact.toPath(), tempDir.resolve(artifact.getName()), StandardCopyOption.COPY_ATTRIBUTES);
+                size += artifact.length();
+            }
+            commitEntry(key, tempDir, size);
+        } catch (IOException e) {
+            log.warn("编译缓存写入失败, key = {}, error = {}", key, e.getMessage());
+        } finally {
+            FileUtil.del(tempDir.toFile());
+        }
+    }
+
+    /**
+     * 保存编译产物，用于不落盘的工作目录
+     *
+     * @param key       缓存键
+     * @param artifacts 文件名 -> 内容，不含源码
+     */
+    public void storeArtifacts(String key, Map<String, byte[]> artifacts) {
+        if (artifacts == null || artifacts.isEmpty()) {
+            return;
+        }
+        Path tempDir = cacheRoot.resolve(TEMP_DIR_PREFIX + UUID.fastUUID());
+        try {
+            Files.createDirectories(tempDir);
+            long size = 0;
+            for (Map.Entry<String, byte[]> artifact : artifacts.entrySet()) {
+                Files.write(tempDir.resolve(artifact.getKey()), artifact.getValue());
+                size += artifact.getValue().length;
+            }
+            commitEntry(key, tempDir, size);
+        } catch (IOException e) {
+            log.warn("编译缓存写入失败, key = {}, error = {}", key, e.getMessage());
+        } finally {
+            FileUtil.del(tempDir.toFile());
+        }
+    }
+
+    /**
+     * 镜像更新后清除其 id 记录，后续请求重新解析
+     *
+     * @param image 镜像名
+     */
+    public void invalidateImage(String image) {
+        imageIdMap.remove(image);
+    }
+
+    public synchronized CompileCacheStats getStats() {
+        CompileCacheStats compileCacheStats = new CompileCacheStats();
+        compileCacheStats.setHitCount(hitCount.get());
+        compileCacheStats.setMissCount(missCount.get());
+        compileCacheStats.setEvictionCount(evictionCount.get());
+        compileCacheStats.setEntryCount(entryMap.size());
+        compileCacheStats.setSizeBytes(totalBytes);
+        return compileCacheStats;
+    }
+
+    private String resolveImageId(String image) {
+        String imageId = imageIdMap.get(image);
+        if (imageId != null) {
+            return imageId;
+        }
+        try {
+            imageId = dockerClient.inspectImageCmd(image).exec().getId();
+        } catch (Exception e) {
+            return null;
+        }
+        imageIdMap.put(image, imageId);
+        return imageId;
+    }
+
+    /**
+     * 查找缓存条目，未命中时计数
+     *
+     * @param key 缓存键
+     * @return 条目中的产物文件，未命中时返回 null
+     */
+    private File[] lookup(String key) {
+        synchronized (this) {
+            if (entryMap.get(key) == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+        }
+        File[] artifacts = cacheRoot.resolve(key).toFile().listFiles(File::isFile);
+        if (artifacts == null || artifacts.length == 0) {
+            markBroken(key, new IOException("缓存目录不存在或为空: " + cacheRoot.resolve(key)));
+            return null;
+        }
+        return artifacts;
+    }
+
+    private void markHit(String key) {
+        cacheRoot.resolve(key).toFile().setLastModified(System.currentTimeMillis());
+        hitCount.incrementAndGet();
+    }
+
+    private void markBroken(String key, IOException e) {
+        log.warn("编译缓存读取失败, key = {}, error = {}", key, e.getMessage());
+        synchronized (this) {
+            removeEntry(key);
+        }
+        missCount.incrementAndGet();
+    }
+
+    private void commitEntry(String key, Path tempDir, long size) throws IOException {
+        synchronized (this) {
+            if (entryMap.containsKey(key)) {
+                return;
+            }
+            Files.move(tempDir, cacheRoot.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+            entryMap.put(key, size);
+            totalBytes += size;
+            evictIfNecessary();
+        }
+    }
+
+    private void evictIfNecessary() {
+        long maxBytes = compileCacheProperties.getMaxSizeMb() * 1024 * 1024;
+        Iterator<Map.Entry<String, Long>> iterator = entryMap.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            totalBytes -= entry.getValue();
+            deleteEntryDir(entry.getKey());
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private void removeEntry(String key) {
+        Long size = entryMap.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        deleteEntryDir(key);
+    }
+
+    /**
+     * 先把条目目录原子改名为临时目录再删除，并发读取只会看到完整条目或条目不存在，不会读到删了一半的产物
+     *
+     * @param key 缓存键
+     */
+    private void deleteEntryDir(String key) {
+        Path tempDir = cacheRoot.resolve(TEMP_DIR_PREFIX + UUID.fastUUID());
+        try {
+            Files.move(cacheRoot.resolve(key), tempDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            return;
+        }
+        FileUtil.del(tempDir.toFile());
+    }
+}
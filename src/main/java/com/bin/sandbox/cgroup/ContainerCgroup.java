@@ -0,0 +1,123 @@
+package com.bin.sandbox.cgroup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 容器在宿主机上的 cgroup 目录
+ */
+public class ContainerCgroup {
+
+    private static final String CPU_USAGE_KEY = "usage_usec ";
+
+    private static final String OOM_KILL_KEY = "oom_kill ";
+
+    private final Path memoryDir;
+
+    /**
+     * CPU 统计目录，cgroup v2 与内存目录相同，v1 位于 cpuacct 层级，不可访问时为 null
+     */
+    private final Path cpuDir;
+
+    private final boolean unified;
+
+    ContainerCgroup(Path memoryDir, Path cpuDir, boolean unified) {
+        this.memoryDir = memoryDir;
+        this.cpuDir = cpuDir;
+        this.unified = unified;
+    }
+
+    /**
+     * 重置峰值内存并开始跟踪
+     *
+     * @return 跟踪器，内核或权限不支持重置时返回 null
+     */
+    public MemoryPeakTracker startMemoryTracking() {
+        FileChannel peakChannel = null;
+        try {
+            long baseline = readLong(memoryDir.resolve(unified ? "memory.current" : "memory.usage_in_bytes"));
+            peakChannel = FileChannel.open(memoryDir.resolve(unified ? "memory.peak" : "memory.max_usage_in_bytes"),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            peakChannel.write(ByteBuffer.wrap((unified ? "reset\n" : "0\n").getBytes(StandardCharsets.US_ASCII)));
+            return new MemoryPeakTracker(peakChannel, baseline);
+        } catch (IOException | RuntimeException e) {
+            if (peakChannel != null) {
+                try {
+                    peakChannel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 读取容器累计 CPU 时间（用户态 + 内核态）
+     * <p>
+     * cgroup v2 取 cpu.stat 的 usage_usec，v1 取 cpuacct.usage（纳秒）
+     *
+     * @return 累计 CPU 时间（微秒），不支持时返回 -1
+     */
+    public long readCpuUsageMicros() {
+        if (cpuDir == null) {
+            return -1L;
+        }
+        try {
+            if (!unified) {
+                return readLong(cpuDir.resolve("cpuacct.usage")) / 1000L;
+            }
+            for (String line : Files.readAllLines(cpuDir.resolve("cpu.stat"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith(CPU_USAGE_KEY)) {
+                    return Long.parseLong(line.substring(CPU_USAGE_KEY.length()).trim());
+                }
+            }
+            return -1L;
+        } catch (IOException | RuntimeException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * 读取因超出内存上限被内核结束的进程数
+     * <p>
+     * cgroup v2 取 memory.events 的 oom_kill（含子目录），v1 取 memory.oom_control 的 oom_kill（内核 4.13+）
+     *
+     * @return 进程数，不支持时返回 -1
+     */
+    public long readOomKillCount() {
+        try {
+            Path eventsFile = memoryDir.resolve(unified ? "memory.events" : "memory.oom_control");
+            for (String line : Files.readAllLines(eventsFile, StandardCharsets.US_ASCII)) {
+                if (line.startsWith(OOM_KILL_KEY)) {
+                    return Long.parseLong(line.substring(OOM_KILL_KEY.length()).trim());
+                }
+            }
+            return -1L;
+        } catch (IOException | RuntimeException e) {
+            return -1L;
+        }
+    }
+
+    public Path getMemoryDir() {
+        return memoryDir;
+    }
+
+    public Path getCpuDir() {
+        return cpuDir;
+    }
+
+    public boolean isUnified() {
+        return unified;
+    }
+
+    private static long readLong(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return MemoryPeakTracker.readLong(channel);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bin.sandbox.cgroup;
+
+import com.bin.sandbox.config.CgroupProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 定位容器在宿主机上的 cgroup 目录，兼容 cgroup v1 / v2 以及 systemd / cgroupfs 两种驱动
+ */
+@Component
+public class ContainerCgroupLocator {
+
+    @Resource
+    private CgroupProperties cgroupProperties;
+
+    /**
+     * 定位容器 cgroup
+     *
+     * @param containerId 完整容器 id
+     * @return 容器 cgroup，未开启或不可访问时返回 null
+     */
+    public ContainerCgroup locate(String containerId) {
+        if (!cgroupProperties.isEnabled() || containerId == null) {
+            return null;
+        }
+        Path root = Paths.get(cgroupProperties.getRoot());
+        boolean unified = Files.exists(root.resolve("cgroup.controllers"));
+        Path memoryDir = findContainerDir(unified ? root : root.resolve("memory"), containerId);
+        if (memoryDir == null) {
+            return null;
+        }
+        Path cpuDir = unified ? memoryDir : findContainerDir(root.resolve("cpuacct"), containerId);
+        return new ContainerCgroup(memoryDir, cpuDir, unified);
+    }
+
+    private Path findContainerDir(Path base, String containerId) {
+        Path[] candidates = {
+                base.resolve("system.slice").resolve("docker-" + containerId + ".scope"),
+                base.resolve("docker").resolve(containerId)
+        };
+        for (Path candidate : candidates) {
+            if (Files.isDirectory(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
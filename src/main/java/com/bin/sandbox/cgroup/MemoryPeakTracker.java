@@ -0,0 +1,53 @@
+package com.bin.sandbox.cgroup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 单个用例的峰值内存跟踪。
+ * <p>
+ * cgroup v2 的 memory.peak 重置只对写入它的文件描述符生效，因此重置和读取必须使用同一个通道；
+ * cgroup v1 的 memory.max_usage_in_bytes 写 0 即全局重置。
+ */
+public class MemoryPeakTracker implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64;
+
+    private final FileChannel peakChannel;
+
+    private final long baseline;
+
+    MemoryPeakTracker(FileChannel peakChannel, long baseline) {
+        this.peakChannel = peakChannel;
+        this.baseline = baseline;
+    }
+
+    /**
+     * 读取重置以来的峰值内存，扣除用例开始前容器自身的占用
+     *
+     * @return 峰值内存（字节）
+     * @throws IOException 读取失败
+     */
+    public long readPeak() throws IOException {
+        return Math.max(0L, readLong(peakChannel) - baseline);
+    }
+
+    @Override
+    public void close() {
+        try {
+            peakChannel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    static long readLong(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        channel.read(buffer, 0);
+        buffer.flip();
+        String value = StandardCharsets.US_ASCII.decode(buffer).toString().trim();
+        return Long.parseLong(value);
+    }
+}
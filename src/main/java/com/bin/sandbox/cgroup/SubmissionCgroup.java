@@ -0,0 +1,240 @@
+package com.bin.sandbox.cgroup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次提交在 cgroup v2 下的目录。
+ * <p>
+ * 提交目录限制全部用例合计的内存和进程数，编译和每个用例在其下各建一个子目录，按单个用例的上限设置内存、CPU 和进程数，
+ * 结束后删除。子目录在进程启动前新建，其 cpu.stat 和 memory.peak 就是该用例的 CPU 时间和峰值内存，不需要扣除基线。
+ */
+public class SubmissionCgroup implements Closeable {
+
+    public static final String CONTROLLERS = "+cpu +memory +pids";
+
+    /**
+     * 每个用例限制为 1 核，与容器的 NanoCPUs 一致
+     */
+    private static final String CPU_MAX = "100000 100000";
+
+    private static final int REMOVE_RETRIES = 50;
+
+    private static final long REMOVE_RETRY_INTERVAL = 10L;
+
+    private final Path dir;
+
+    private final long caseMemoryLimit;
+
+    private final int casePidsLimit;
+
+    private final AtomicInteger caseSequence = new AtomicInteger();
+
+    private SubmissionCgroup(Path dir, long caseMemoryLimit, int casePidsLimit) {
+        this.dir = dir;
+        this.caseMemoryLimit = caseMemoryLimit;
+        this.casePidsLimit = casePidsLimit;
+    }
+
+    /**
+     * 新建提交目录
+     *
+     * @param root            沙箱 cgroup 目录，需已开启 cpu、memory、pids 控制器
+     * @param caseMemoryLimit 单个用例的内存上限（字节）
+     * @param laneCount       同时运行的用例数
+     * @param casePidsLimit   单个用例的进程数上限
+     * @return 提交 cgroup
+     */
+    public static SubmissionCgroup create(Path root, long caseMemoryLimit, int laneCount, int casePidsLimit) {
+        Path dir = root.resolve(UUID.randomUUID().toString());
+        try {
+            Files.createDirectory(dir);
+            write(dir.resolve("cgroup.subtree_control"), CONTROLLERS);
+            write(dir.resolve("memory.max"), String.valueOf(caseMemoryLimit * laneCount));
+            write(dir.resolve("memory.swap.max"), "0");
+            write(dir.resolve("pids.max"), String.valueOf((long) casePidsLimit * laneCount));
+        } catch (IOException e) {
+            destroy(dir);
+            throw new RuntimeException("创建 cgroup 失败: " + e.getMessage(), e);
+        }
+        return new SubmissionCgroup(dir, caseMemoryLimit, casePidsLimit);
+    }
+
+    /**
+     * 为编译或一个用例新建子目录
+     *
+     * @return 用例 cgroup
+     */
+    public Case createCase() {
+        Path caseDir = dir.resolve("case-" + caseSequence.getAndIncrement());
+        try {
+            Files.createDirectory(caseDir);
+            write(caseDir.resolve("memory.max"), String.valueOf(caseMemoryLimit));
+            write(caseDir.resolve("memory.swap.max"), "0");
+            write(caseDir.resolve("pids.max"), String.valueOf(casePidsLimit));
+            write(caseDir.resolve("cpu.max"), CPU_MAX);
+        } catch (IOException e) {
+            remove(caseDir);
+            throw new RuntimeException("创建用例 cgroup 失败: " + e.getMessage(), e);
+        }
+        return new Case(caseDir);
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * 结束提交内残留的进程并删除目录
+     */
+    @Override
+    public void close() {
+        destroy(dir);
+    }
+
+    /**
+     * 结束目录内全部进程并删除目录及子目录，用于关闭提交和清理上次异常退出遗留的目录
+     *
+     * @param dir cgroup 目录
+     */
+    public static void destroy(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        kill(dir);
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path child : children) {
+                destroy(child);
+            }
+        } catch (IOException ignored) {
+        }
+        remove(dir);
+    }
+
+    /**
+     * 经 cgroup.kill 结束目录及子目录中的全部进程（内核 5.14+）
+     *
+     * @param dir cgroup 目录
+     * @return 是否支持
+     */
+    static boolean kill(Path dir) {
+        try {
+            write(dir.resolve("cgroup.kill"), "1");
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 删除空的 cgroup 目录，进程被结束后短时间内仍计入目录，删除失败时稍后重试
+     */
+    private static void remove(Path dir) {
+        for (int i = 0; i < REMOVE_RETRIES; i++) {
+            try {
+                Files.deleteIfExists(dir);
+                return;
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(REMOVE_RETRY_INTERVAL);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void write(Path path, String value) throws IOException {
+        Files.write(path, value.getBytes(StandardCharsets.US_ASCII), StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 编译或单个用例的 cgroup
+     */
+    public static class Case implements Closeable {
+
+        private final Path dir;
+
+        private final ContainerCgroup stats;
+
+        Case(Path dir) {
+            this.dir = dir;
+            this.stats = new ContainerCgroup(dir, dir, true);
+        }
+
+        public Path getDir() {
+            return dir;
+        }
+
+        /**
+         * 读取累计 CPU 时间
+         *
+         * @return CPU 时间（微秒），读取失败时返回 -1
+         */
+        public long readCpuUsageMicros() {
+            return stats.readCpuUsageMicros();
+        }
+
+        /**
+         * 读取峰值内存（memory.peak，内核 5.19+）
+         *
+         * @return 峰值内存（字节），不支持时返回 -1
+         */
+        public long readMemoryPeak() {
+            try {
+                return Long.parseLong(new String(Files.readAllBytes(dir.resolve("memory.peak")),
+                        StandardCharsets.US_ASCII).trim());
+            } catch (IOException | RuntimeException e) {
+                return -1L;
+            }
+        }
+
+        /**
+         * 读取目录内第一个进程的 pid
+         *
+         * @return pid，没有进程或读取失败时返回 -1
+         */
+        public long readProcessId() {
+            try {
+                for (String line : Files.readAllLines(dir.resolve("cgroup.procs"), StandardCharsets.US_ASCII)) {
+                    if (!line.trim().isEmpty()) {
+                        return Long.parseLong(line.trim());
+                    }
+                }
+            } catch (IOException | RuntimeException ignored) {
+            }
+            return -1L;
+        }
+
+        /**
+         * 读取因超出内存上限被内核结束的进程数
+         *
+         * @return 进程数，读取失败时返回 0
+         */
+        public long readOomKillCount() {
+            return Math.max(stats.readOomKillCount(), 0L);
+        }
+
+        /**
+         * 结束用例内的全部进程
+         *
+         * @return 内核是否支持 cgroup.kill
+         */
+        public boolean kill() {
+            return SubmissionCgroup.kill(dir);
+        }
+
+        @Override
+        public void close() {
+            destroy(dir);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bin.sandbox.compile;
+
+import lombok.Data;
+
+/**
+ * 常驻编译服务容器
+ */
+@Data
+public class CompileServerHandle {
+
+    /**
+     * 容器 id
+     */
+    private String containerId;
+
+    /**
+     * 镜像名
+     */
+    private String image;
+
+    /**
+     * 已编译次数
+     */
+    private int compileCount;
+
+    /**
+     * 创建时间
+     */
+    private long createTime;
+}
@@ -0,0 +1,211 @@
+package com.bin.sandbox.compile;
+
+import com.bin.sandbox.config.CompileServerProperties;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常驻编译服务管理器，按镜像维护编译服务容器，后台补充并按编译次数和存活时间退役。
+ */
+@Slf4j
+@Component
+public class CompileServerManager {
+
+    /**
+     * 编译服务容器标签，用于启动时清理上次遗留的容器
+     */
+    public static final String SERVER_LABEL = "boj-sandbox.compile-server";
+
+    @Resource
+    private CompileServerProperties compileServerProperties;
+
+    @Resource
+    private DockerClient dockerClient;
+
+    private final Map<String, ServerGroup> groupMap = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService refillScheduler;
+
+    private ExecutorService maintainExecutor;
+
+    private volatile boolean closed;
+
+    @PostConstruct
+    public void init() {
+        if (!compileServerProperties.isEnabled()) {
+            return;
+        }
+        maintainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "compile-server-maintain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refillScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "compile-server-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refillScheduler.execute(this::removeOrphanContainers);
+        refillScheduler.scheduleWithFixedDelay(this::refillAll, 0,
+                compileServerProperties.getRefillIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 是否启用常驻编译服务
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return compileServerProperties.isEnabled();
+    }
+
+    /**
+     * 注册镜像对应的编译服务，同一镜像只注册一次
+     *
+     * @param image   镜像名
+     * @param starter 编译服务启动器
+     */
+    public void registerServer(String image, CompileServerStarter starter) {
+        if (!isEnabled()) {
+            return;
+        }
+        groupMap.computeIfAbsent(image, key -> new ServerGroup(starter));
+    }
+
+    /**
+     * 租用空闲的编译服务
+     *
+     * @param image 镜像名
+     * @return 编译服务，未注册或等待超时返回 null，由调用方回退为容器内编译
+     */
+    public CompileServerHandle acquire(String image) {
+        ServerGroup group = groupMap.get(image);
+        if (group == null || closed) {
+            return null;
+        }
+        try {
+            return group.idleServers.poll(compileServerProperties.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 归还编译服务，异常、编译次数或存活时间达到上限时退役
+     *
+     * @param handle  编译服务
+     * @param healthy 本次编译是否正常完成
+     */
+    public void release(CompileServerHandle handle, boolean healthy) {
+        ServerGroup group = groupMap.get(handle.getImage());
+        if (group == null) {
+            return;
+        }
+        handle.setCompileCount(handle.getCompileCount() + 1);
+        boolean expired = handle.getCompileCount() >= compileServerProperties.getMaxCompiles()
+                || System.currentTimeMillis() - handle.getCreateTime() >= compileServerProperties.getMaxAgeMs();
+        if (!healthy || expired || closed) {
+            maintainExecutor.execute(() -> retire(group, handle));
+            return;
+        }
+        group.idleServers.offer(handle);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        closed = true;
+        if (refillScheduler != null) {
+            refillScheduler.shutdownNow();
+        }
+        for (ServerGroup group : groupMap.values()) {
+            CompileServerHandle handle;
+            while ((handle = group.idleServers.poll()) != null) {
+                retire(group, handle);
+            }
+        }
+        if (maintainExecutor != null) {
+            maintainExecutor.shutdown();
+        }
+    }
+
+    private void refillAll() {
+        groupMap.forEach(this::refill);
+    }
+
+    private void refill(String image, ServerGroup group) {
+        while (!closed && group.totalCount.get() < compileServerProperties.getServerCount()) {
+            group.totalCount.incrementAndGet();
+            try {
+                CompileServerHandle handle = new CompileServerHandle();
+                handle.setContainerId(group.starter.start(dockerClient));
+                handle.setImage(image);
+                handle.setCreateTime(System.currentTimeMillis());
+                group.idleServers.offer(handle);
+            } catch (Exception e) {
+                group.totalCount.decrementAndGet();
+                log.warn("编译服务启动失败, image = {}, error = {}", image, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void retire(ServerGroup group, CompileServerHandle handle) {
+        try {
+            dockerClient.removeContainerCmd(handle.getContainerId())
+                    .withForce(true)
+                    .exec();
+        } catch (Exception e) {
+            log.warn("编译服务容器移除失败, containerId = {}, error = {}", handle.getContainerId(), e.getMessage());
+        } finally {
+            group.totalCount.decrementAndGet();
+        }
+    }
+
+    private void removeOrphanContainers() {
+        try {
+            List<Container> containers = dockerClient.listContainersCmd()
+                    .withShowAll(true)
+                    .withLabelFilter(Collections.singletonList(SERVER_LABEL))
+                    .exec();
+            for (Container container : containers) {
+                dockerClient.removeContainerCmd(container.getId()).withForce(true).exec();
+            }
+        } catch (Exception e) {
+            log.warn("清理遗留编译服务容器失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 同一镜像的编译服务
+     */
+    private static class ServerGroup {
+
+        private final CompileServerStarter starter;
+
+        private final BlockingQueue<CompileServerHandle> idleServers = new LinkedBlockingQueue<>();
+
+        private final AtomicInteger totalCount = new AtomicInteger();
+
+        ServerGroup(CompileServerStarter starter) {
+            this.starter = starter;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.bin.sandbox.compile;
+
+import com.github.dockerjava.api.DockerClient;
+
+/**
+ * 编译服务启动器，由各语言沙箱创建容器并在其中启动编译服务。
+ */
+@FunctionalInterface
+public interface CompileServerStarter {
+
+    /**
+     * 创建容器并启动编译服务
+     *
+     * @param dockerClient docker 客户端
+     * @return 容器 id
+     */
+    String start(DockerClient dockerClient);
+}
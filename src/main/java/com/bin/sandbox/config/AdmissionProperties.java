@@ -0,0 +1,47 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 提交准入配置，限制同时编译运行的提交数和容器内存总量。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.admission")
+public class AdmissionProperties {
+
+    /**
+     * 是否启用准入控制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同时执行的提交数上限
+     */
+    private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 各语言同时执行的提交数上限，键为语言（如 java、python），未配置的语言只受全局上限约束
+     */
+    private Map<String, Integer> languageMaxConcurrent = new HashMap<>();
+
+    /**
+     * 执行中提交的容器内存总量上限（MB），为 0 时取服务所在 cgroup 的内存上限或本机物理内存（取较小者）的 3/4
+     */
+    private long memoryBudgetMb = 0L;
+
+    /**
+     * 排队提交数上限，排满时直接拒绝（429）
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 最长排队时间（毫秒），超时拒绝（503）
+     */
+    private long queueTimeoutMs = 30000L;
+}
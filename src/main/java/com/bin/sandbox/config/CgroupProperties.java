@@ -0,0 +1,24 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 容器 cgroup 统计配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.cgroup")
+public class CgroupProperties {
+
+    /**
+     * 是否直接读取宿主机 cgroup 统计（要求服务与 Docker 守护进程在同一台机器且可写 cgroup 文件）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 宿主机 cgroup 挂载点
+     */
+    private String root = "/sys/fs/cgroup";
+}
@@ -0,0 +1,29 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 编译产物缓存配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.compile-cache")
+public class CompileCacheProperties {
+
+    /**
+     * 是否启用编译缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存目录，为空时使用 user.dir/compileCache
+     */
+    private String directory;
+
+    /**
+     * 缓存总大小上限（MB），超出后按最近最少使用淘汰
+     */
+    private long maxSizeMb = 1024L;
+}
@@ -0,0 +1,44 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 常驻编译服务配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.compile-server")
+public class CompileServerProperties {
+
+    /**
+     * 是否启用常驻编译服务，关闭时每次提交都在运行容器内启动编译器
+     */
+    private boolean enabled = false;
+
+    /**
+     * 每个镜像保持的编译服务容器数，同一服务同一时间只处理一个编译
+     */
+    private int serverCount = 2;
+
+    /**
+     * 单个编译服务最多编译次数，达到后退役重建，限制编译器缓存增长
+     */
+    private int maxCompiles = 500;
+
+    /**
+     * 单个编译服务最长存活时间（毫秒），达到后退役重建
+     */
+    private long maxAgeMs = 30 * 60 * 1000L;
+
+    /**
+     * 租用编译服务的最长等待时间（毫秒），超时后回退为容器内编译
+     */
+    private long acquireTimeoutMs = 2000L;
+
+    /**
+     * 后台补充编译服务的间隔（毫秒）
+     */
+    private long refillIntervalMs = 2000L;
+}
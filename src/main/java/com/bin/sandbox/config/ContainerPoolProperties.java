@@ -0,0 +1,44 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 预热容器池配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.pool")
+public class ContainerPoolProperties {
+
+    /**
+     * 是否启用容器池，关闭时每次提交都新建容器
+     */
+    private boolean enabled = false;
+
+    /**
+     * 每个镜像保持的最少空闲容器数
+     */
+    private int minIdle = 2;
+
+    /**
+     * 每个镜像允许的最大容器数（空闲 + 租用中）
+     */
+    private int maxSize = 8;
+
+    /**
+     * 单个容器最多复用次数，达到后退役重建
+     */
+    private int maxUses = 50;
+
+    /**
+     * 租用容器的最长等待时间（毫秒）
+     */
+    private long leaseTimeoutMs = 10000L;
+
+    /**
+     * 后台补充空闲容器的间隔（毫秒）
+     */
+    private long refillIntervalMs = 2000L;
+}
@@ -0,0 +1,19 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * C++ 沙箱配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.cpp")
+public class CppProperties {
+
+    /**
+     * 镜像名，使用 docker/CPP/Dockerfile 构建的镜像时才有 bits/stdc++.h 预编译头
+     */
+    private String image = "gcc:13";
+}
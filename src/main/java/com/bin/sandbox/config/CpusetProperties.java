@@ -0,0 +1,39 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * CPU 核心绑定配置，核心编号为 Docker 守护进程所在主机的编号，格式同 cpuset（如 {@code 0-3,6}）。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.cpuset")
+public class CpusetProperties {
+
+    /**
+     * 是否为每个运行中的用例独占分配一个核心
+     */
+    private boolean enabled = false;
+
+    /**
+     * 参与分配的核心，为空时使用本机全部核心
+     */
+    private String cores;
+
+    /**
+     * 预留给服务自身的核心，不分配给容器，服务进程需自行绑定（如 taskset）
+     */
+    private String reservedCores;
+
+    /**
+     * 编译专用核心，容器在编译及两个用例之间绑定到这些核心，不参与用例分配；为空时与用例核心共用
+     */
+    private String compileCores;
+
+    /**
+     * 等待空闲核心的最长时间（毫秒）
+     */
+    private long acquireTimeoutMs = 60000L;
+}
@@ -0,0 +1,26 @@
+package com.bin.sandbox.config;
+
+import com.github.dockerjava.api.DockerClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 共享 Docker 客户端配置，所有沙箱和容器池复用同一个连接池。
+ */
+@Configuration
+public class DockerClientConfig {
+
+    /**
+     * 底层 http 客户端，随 docker 客户端一起关闭
+     */
+    @Bean(destroyMethod = "")
+    public MonitoredDockerHttpClient dockerHttpClient(DockerClientProperties dockerClientProperties) {
+        return DockerClientFactory.createHttpClient(dockerClientProperties);
+    }
+
+    @Bean(destroyMethod = "close")
+    public DockerClient dockerClient(DockerClientProperties dockerClientProperties,
+                                     MonitoredDockerHttpClient dockerHttpClient) {
+        return DockerClientFactory.createClient(dockerClientProperties, dockerHttpClient);
+    }
+}
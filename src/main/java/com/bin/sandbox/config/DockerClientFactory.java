@@ -4,7 +4,6 @@ import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
-import com.github.dockerjava.transport.DockerHttpClient;
 import java.time.Duration;
 
 /**
@@ -17,20 +16,45 @@ public final class DockerClientFactory {
     private DockerClientFactory() {
     }
 
-    public static DockerClient createClient() {
-        DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
-                .withDockerHost(resolveDockerHost())
-                .build();
-        DockerHttpClient httpClient = new ApacheDockerHttpClient.Builder()
+    /**
+     * 创建带连接池统计的 Docker 客户端，客户端线程安全，应在进程内共享
+     *
+     * @param properties 客户端配置
+     * @param httpClient 底层 http 客户端
+     * @return docker 客户端
+     */
+    public static DockerClient createClient(DockerClientProperties properties, MonitoredDockerHttpClient httpClient) {
+        return DockerClientImpl.getInstance(createConfig(properties), httpClient);
+    }
+
+    /**
+     * 创建带连接池统计的 http 客户端
+     *
+     * @param properties 客户端配置
+     * @return http 客户端
+     */
+    public static MonitoredDockerHttpClient createHttpClient(DockerClientProperties properties) {
+        DefaultDockerClientConfig config = createConfig(properties);
+        ApacheDockerHttpClient httpClient = new ApacheDockerHttpClient.Builder()
                 .dockerHost(config.getDockerHost())
                 .sslConfig(config.getSSLConfig())
-                .connectionTimeout(Duration.ofSeconds(30))
-                .responseTimeout(Duration.ofMinutes(5))
+                .maxConnections(properties.getMaxConnections())
+                .connectionTimeout(Duration.ofMillis(properties.getConnectionTimeoutMs()))
+                .responseTimeout(Duration.ofMillis(properties.getResponseTimeoutMs()))
                 .build();
-        return DockerClientImpl.getInstance(config, httpClient);
+        return new MonitoredDockerHttpClient(httpClient, properties.getMaxConnections());
     }
 
-    private static String resolveDockerHost() {
+    private static DefaultDockerClientConfig createConfig(DockerClientProperties properties) {
+        return DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(resolveDockerHost(properties.getHost()))
+                .build();
+    }
+
+    private static String resolveDockerHost(String configuredHost) {
+        if (configuredHost != null && !configuredHost.isEmpty()) {
+            return configuredHost;
+        }
         String envHost = System.getenv("DOCKER_HOST");
         if (envHost == null || envHost.isEmpty()) {
             return DEFAULT_DOCKER_HOST;
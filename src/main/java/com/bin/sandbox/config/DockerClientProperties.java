@@ -0,0 +1,34 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Docker 客户端配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.docker")
+public class DockerClientProperties {
+
+    /**
+     * Docker 地址，支持 tcp:// 与 unix://，为空时读取 DOCKER_HOST 环境变量
+     */
+    private String host;
+
+    /**
+     * 连接池最大连接数；所有请求都发往同一个 Docker 守护进程，单路由上限与之相同
+     */
+    private int maxConnections = 100;
+
+    /**
+     * 建立连接超时（毫秒）
+     */
+    private long connectionTimeoutMs = 30000L;
+
+    /**
+     * 响应超时（毫秒），需覆盖镜像拉取等长耗时请求
+     */
+    private long responseTimeoutMs = 5 * 60 * 1000L;
+}
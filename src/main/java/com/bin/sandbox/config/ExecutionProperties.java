@@ -0,0 +1,77 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 代码执行配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.execution")
+public class ExecutionProperties {
+
+    /**
+     * 未启用容器池时，是否由同一个容器完成编译和运行（关闭则编译、运行各建一个容器）
+     */
+    private boolean singleContainer = true;
+
+    /**
+     * 是否使用内存工作目录：/app 挂载为容器内 tmpfs，代码和编译产物以内存 tar 经 exec 标准输入写入，
+     * 不读写宿主机目录，可对接远程 Docker 守护进程（未启用容器池时生效）
+     */
+    private boolean archiveWorkspace = false;
+
+    /**
+     * 运行阶段使用的容器内用户（uid:gid），编译阶段仍以 root 写入 /app，运行阶段降权后无法修改 /app
+     */
+    private String runUser = "65534:65534";
+
+    /**
+     * 单次提交的用例并行度，大于 1 时额外准备运行容器，每个容器同一时刻只跑一个用例并限制为 1 核，
+     * 保证每个用例的耗时和内存独立统计
+     */
+    private int caseParallelism = 1;
+
+    /**
+     * 全局同时运行的用例数上限，默认等于 CPU 核数
+     */
+    private int globalCaseParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 运行超时是否按 CPU 时间（用户态 + 内核态）判定，需要能读取宿主机 cgroup CPU 统计，否则退回墙钟时间
+     */
+    private boolean cpuTimeLimit = true;
+
+    /**
+     * 按 CPU 时间判定时的墙钟时间上限倍数，防止 sleep、阻塞读等不消耗 CPU 的程序长期占用容器
+     */
+    private double wallTimeFactor = 3.0;
+
+    /**
+     * 单个用例标准输出、标准错误各自的上限（KB），超出后立即结束进程并判定输出超限
+     */
+    private int outputLimitKb = 4096;
+
+    /**
+     * 批量提交时同一语言同时处理的提交数，每条通道复用一个容器依次处理多个提交
+     */
+    private int batchParallelism = 4;
+
+    /**
+     * 单次批量请求的提交数上限
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * 传入期望输出时只比对规范化输出的滚动哈希，不逐行比对，不给出不一致行提示
+     */
+    private boolean hashCompare = false;
+
+    /**
+     * 同进程运行多个用例（目前仅 Java）：每条通道启动一个 JVM 依次运行本组用例，每个用例使用新的类加载器，
+     * 省去逐用例的 JVM 启动；调用 System.exit、残留线程或进程异常退出的用例及其后用例自动回退为逐进程运行
+     */
+    private boolean inProcessRun = false;
+}
@@ -0,0 +1,29 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 语言镜像配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.image")
+public class ImageProperties {
+
+    /**
+     * 是否在启动时并行检查、拉取全部语言镜像，镜像就绪前 /health 返回 503
+     */
+    private boolean prepull = true;
+
+    /**
+     * 单个镜像拉取超时（毫秒）
+     */
+    private long pullTimeoutMs = 5 * 60 * 1000L;
+
+    /**
+     * 启动预拉取失败后的重试间隔（毫秒）
+     */
+    private long retryIntervalMs = 30000L;
+}
@@ -0,0 +1,34 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Java 沙箱配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.java")
+public class JavaProperties {
+
+    /**
+     * 镜像名，使用 docker/java/Dockerfile 构建的镜像时才有 CDS 归档
+     */
+    private String image = "openjdk:8u342-jdk-slim-buster";
+
+    /**
+     * 镜像内 CDS 归档目录（javac.jsa、run.jsa），为空时不指定归档
+     */
+    private String cdsDirectory;
+
+    /**
+     * 镜像内 JDK 目录，javac 归档需要把其中的 tools.jar 追加到引导类路径
+     */
+    private String javaHome = "/usr/local/openjdk-8";
+
+    /**
+     * 是否使用面向启动速度的 JVM 参数：javac 只用 C1 编译，javac 和用户程序都使用 Serial GC
+     */
+    private boolean startupFlags = true;
+}
@@ -0,0 +1,62 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 异步判题任务配置。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.job")
+public class JobProperties {
+
+    /**
+     * 执行任务的工作线程数
+     */
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 等待队列容量，队列满时提交返回 429
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 已完成任务结果的保留时间（毫秒）
+     */
+    private long resultTtlMs = 10 * 60 * 1000L;
+
+    /**
+     * 保留的已完成任务数上限，超过时先清除最早完成的任务
+     */
+    private int maxFinishedJobs = 10000;
+
+    /**
+     * 长轮询最长等待时间（毫秒）
+     */
+    private long maxWaitMs = 30000L;
+
+    /**
+     * 回调地址允许的主机，仅允许回调本机服务
+     */
+    private List<String> callbackHosts = Arrays.asList("localhost", "127.0.0.1");
+
+    /**
+     * 回调请求超时（毫秒）
+     */
+    private int callbackTimeoutMs = 5000;
+
+    /**
+     * 发送回调的线程数
+     */
+    private int callbackWorkerCount = 2;
+
+    /**
+     * 待发送回调的队列容量，队列满时放弃回调
+     */
+    private int callbackQueueCapacity = 1000;
+}
@@ -0,0 +1,69 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 资源限制配置：请求未指定时的默认限制、允许的上限，以及按语言调整限制的倍数。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.limits")
+public class LimitProperties {
+
+    /**
+     * 编译超时（毫秒）
+     */
+    private long compileTimeoutMs = 10000L;
+
+    /**
+     * 请求未指定时每个用例的时间限制（毫秒）
+     */
+    private long defaultTimeLimitMs = 5000L;
+
+    /**
+     * 请求未指定时的内存限制（MB）
+     */
+    private long defaultMemoryLimitMb = 100L;
+
+    /**
+     * 请求允许的最大时间限制（毫秒），超出时按上限执行
+     */
+    private long maxTimeLimitMs = 30000L;
+
+    /**
+     * 请求允许的最大内存限制（MB），超出时按上限执行
+     */
+    private long maxMemoryLimitMb = 1024L;
+
+    /**
+     * 语言 -> 限制倍数，键与请求中的 language 一致，未配置的语言不调整
+     */
+    private Map<String, LanguageProfile> profiles = new HashMap<>();
+
+    /**
+     * 语言限制倍数
+     */
+    @Data
+    public static class LanguageProfile {
+
+        /**
+         * 时间限制倍数
+         */
+        private double timeFactor = 1.0;
+
+        /**
+         * 内存限制倍数，JVM 语言的堆上限按倍数后的限制设置
+         */
+        private double memoryFactor = 1.0;
+
+        /**
+         * 容器内存在倍数后的限制之外额外预留的大小（MB），用于虚拟机、解释器自身的开销
+         */
+        private long memoryOverheadMb = 0L;
+    }
+}
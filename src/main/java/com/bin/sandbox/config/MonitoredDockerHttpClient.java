@@ -0,0 +1,124 @@
+package com.bin.sandbox.config;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计连接占用情况的 http 客户端。
+ * <p>
+ * 一个请求从发出到响应关闭期间占用一个连接（exec、stats 等流式请求会长时间占用），
+ * 占用数达到上限后新请求需等待连接归还，记为一次饱和。
+ */
+public class MonitoredDockerHttpClient implements DockerHttpClient {
+
+    private final DockerHttpClient delegate;
+
+    private final int maxConnections;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private final LongAdder totalRequests = new LongAdder();
+
+    private final LongAdder saturatedRequests = new LongAdder();
+
+    private final LongAdder failedRequests = new LongAdder();
+
+    public MonitoredDockerHttpClient(DockerHttpClient delegate, int maxConnections) {
+        this.delegate = delegate;
+        this.maxConnections = maxConnections;
+    }
+
+    @Override
+    public Response execute(Request request) {
+        totalRequests.increment();
+        int current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+        if (current > maxConnections) {
+            saturatedRequests.increment();
+        }
+        try {
+            return new MonitoredResponse(delegate.execute(request));
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            failedRequests.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public long getTotalRequests() {
+        return totalRequests.sum();
+    }
+
+    public long getSaturatedRequests() {
+        return saturatedRequests.sum();
+    }
+
+    public long getFailedRequests() {
+        return failedRequests.sum();
+    }
+
+    private class MonitoredResponse implements Response {
+
+        private final Response response;
+
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        MonitoredResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.getHeader(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+            response.close();
+        }
+    }
+}
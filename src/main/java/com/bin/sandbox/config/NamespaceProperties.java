@@ -0,0 +1,39 @@
+package com.bin.sandbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 命名空间执行后端配置：不经过 Docker 守护进程，直接在本机新建命名空间运行用户程序，由 cgroup v2 限制资源。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sandbox.namespace")
+public class NamespaceProperties {
+
+    /**
+     * 是否启用，启用后各语言沙箱改用命名空间后端，不再创建容器
+     */
+    private boolean enabled = false;
+
+    /**
+     * 根文件系统目录，每种语言一个子目录（如 {@code java}、{@code cpp}），由 docker/export-rootfs.sh 从语言镜像导出
+     */
+    private String rootfsDirectory = "/var/lib/code-sandbox/rootfs";
+
+    /**
+     * 沙箱使用的 cgroup v2 目录，需委派给服务用户且上级已开启 cpu、memory、pids 控制器
+     */
+    private String cgroupRoot = "/sys/fs/cgroup/code-sandbox";
+
+    /**
+     * 每个用例的进程数上限
+     */
+    private int pidsLimit = 64;
+
+    /**
+     * 命名空间内 /tmp 的 tmpfs 大小（MB）
+     */
+    private int tmpfsSizeMb = 64;
+}
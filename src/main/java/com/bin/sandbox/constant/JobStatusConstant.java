@@ -0,0 +1,16 @@
+package com.bin.sandbox.constant;
+
+/**
+ * 异步判题任务状态常量。
+ */
+public final class JobStatusConstant {
+
+    public static final String PENDING = "PENDING";
+
+    public static final String RUNNING = "RUNNING";
+
+    public static final String FINISHED = "FINISHED";
+
+    private JobStatusConstant() {
+    }
+}
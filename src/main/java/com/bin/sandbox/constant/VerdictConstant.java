@@ -0,0 +1,40 @@
+package com.bin.sandbox.constant;
+
+/**
+ * 用例判定结果常量。
+ */
+public final class VerdictConstant {
+
+    /**
+     * 答案正确
+     */
+    public static final String ACCEPTED = "AC";
+
+    /**
+     * 答案错误
+     */
+    public static final String WRONG_ANSWER = "WA";
+
+    /**
+     * 超出时间限制
+     */
+    public static final String TIME_LIMIT_EXCEEDED = "TLE";
+
+    /**
+     * 超出内存限制
+     */
+    public static final String MEMORY_LIMIT_EXCEEDED = "MLE";
+
+    /**
+     * 运行错误
+     */
+    public static final String RUNTIME_ERROR = "RE";
+
+    /**
+     * 输出超限
+     */
+    public static final String OUTPUT_LIMIT_EXCEEDED = "OLE";
+
+    private VerdictConstant() {
+    }
+}
@@ -1,15 +1,38 @@
 package com.bin.sandbox.controller;
 
+import com.bin.sandbox.cache.CompileCache;
+import com.bin.sandbox.config.ExecutionProperties;
+import com.bin.sandbox.config.JobProperties;
+import com.bin.sandbox.config.MonitoredDockerHttpClient;
+import com.bin.sandbox.image.ImageManager;
+import com.bin.sandbox.job.ExecuteJob;
+import com.bin.sandbox.job.JobManager;
 import com.bin.sandbox.manager.CodeSandboxManager;
+import com.bin.sandbox.model.AdmissionStats;
+import com.bin.sandbox.model.CompileCacheStats;
+import com.bin.sandbox.model.CpuCoreStats;
+import com.bin.sandbox.model.DockerClientStats;
 import com.bin.sandbox.model.ExecuteCodeRequest;
 import com.bin.sandbox.model.ExecuteCodeResponse;
+import com.bin.sandbox.model.JobInfo;
+import com.bin.sandbox.scheduler.AdmissionRejectedException;
+import com.bin.sandbox.scheduler.AdmissionScheduler;
+import com.bin.sandbox.scheduler.CpuCoreAllocator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController("/")
 public class MainController {
@@ -19,13 +42,105 @@ public class MainController {
 
     private static final String AUTH_REQUEST_SECRET = "secretKey";
 
+    @Resource
+    private MonitoredDockerHttpClient dockerHttpClient;
+
+    @Resource
+    private CompileCache compileCache;
+
+    @Resource
+    private JobManager jobManager;
+
+    @Resource
+    private JobProperties jobProperties;
+
+    @Resource
+    private ExecutionProperties executionProperties;
+
+    @Resource
+    private ImageManager imageManager;
+
+    @Resource
+    private CpuCoreAllocator cpuCoreAllocator;
+
+    @Resource
+    private AdmissionScheduler admissionScheduler;
+
+    /**
+     * 健康检查，语言镜像未全部就绪时返回 503
+     *
+     * @return 状态
+     */
     @GetMapping("/health")
-    public String healthCheck() {
-        return "ok";
+    public ResponseEntity<String> healthCheck() {
+        if (!imageManager.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("images not ready: " + String.join(",", imageManager.getPendingImages()));
+        }
+        return ResponseEntity.ok("ok");
+    }
+
+    /**
+     * Docker 客户端连接池统计
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/docker/stats")
+    public DockerClientStats dockerStats(HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        DockerClientStats dockerClientStats = new DockerClientStats();
+        dockerClientStats.setMaxConnections(dockerHttpClient.getMaxConnections());
+        dockerClientStats.setInFlight(dockerHttpClient.getInFlight());
+        dockerClientStats.setPeakInFlight(dockerHttpClient.getPeakInFlight());
+        dockerClientStats.setTotalRequests(dockerHttpClient.getTotalRequests());
+        dockerClientStats.setSaturatedRequests(dockerHttpClient.getSaturatedRequests());
+        dockerClientStats.setFailedRequests(dockerHttpClient.getFailedRequests());
+        return dockerClientStats;
+    }
+
+    /**
+     * 编译缓存统计
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/cache/stats")
+    public CompileCacheStats compileCacheStats(HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        return compileCache.getStats();
+    }
+
+    /**
+     * CPU 核心分配统计
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/cpuset/stats")
+    public CpuCoreStats cpuCoreStats(HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        return cpuCoreAllocator.getStats();
     }
 
     /**
-     * 执行代码
+     * 提交准入统计
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/admission/stats")
+    public AdmissionStats admissionStats(HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        return admissionScheduler.getStats();
+    }
+
+    /**
+     * 执行代码，排队已满时返回 429，排队超时返回 503
      *
      * @param executeCodeRequest
      * @return
@@ -34,15 +149,129 @@ public class MainController {
     ExecuteCodeResponse executeCode(@RequestBody ExecuteCodeRequest executeCodeRequest, HttpServletRequest request,
                                     HttpServletResponse response) {
         // 基本的认证
-        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
-        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
-            response.setStatus(403);
+        if (!checkAuth(request, response)) {
             return null;
         }
         if (executeCodeRequest == null) {
             throw new RuntimeException("请求参数为空");
         }
+        executeCodeRequest.setCaller(request.getRemoteAddr());
+        try {
+            return CodeSandboxManager.doExec(executeCodeRequest);
+        } catch (AdmissionRejectedException e) {
+            response.setStatus(e.isQueueFull() ? HttpStatus.TOO_MANY_REQUESTS.value()
+                    : HttpStatus.SERVICE_UNAVAILABLE.value());
+            return null;
+        }
+    }
+
+    /**
+     * 批量执行代码，按语言分组复用容器，结果顺序与请求一致，超过批量上限时返回 400
+     *
+     * @param executeCodeRequestList 请求列表
+     * @return 响应列表
+     */
+    @PostMapping("/executeBatch")
+    List<ExecuteCodeResponse> executeBatch(@RequestBody List<ExecuteCodeRequest> executeCodeRequestList,
+                                           HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        if (executeCodeRequestList == null) {
+            throw new RuntimeException("请求参数为空");
+        }
+        if (executeCodeRequestList.size() > executionProperties.getMaxBatchSize()) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        for (ExecuteCodeRequest executeCodeRequest : executeCodeRequestList) {
+            if (executeCodeRequest != null) {
+                executeCodeRequest.setCaller(request.getRemoteAddr());
+            }
+        }
+        return CodeSandboxManager.doBatchExec(executeCodeRequestList);
+    }
 
-        return CodeSandboxManager.doExec(executeCodeRequest);
+    /**
+     * 提交异步执行任务，队列已满时返回 429
+     *
+     * @param executeCodeRequest 执行请求
+     * @param callbackUrl        完成后回调的本机地址
+     * @return 任务信息
+     */
+    @PostMapping("/jobs")
+    JobInfo submitJob(@RequestBody ExecuteCodeRequest executeCodeRequest,
+                      @RequestParam(required = false) String callbackUrl,
+                      HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        if (executeCodeRequest == null) {
+            throw new RuntimeException("请求参数为空");
+        }
+        if (callbackUrl != null && !jobManager.isCallbackAllowed(callbackUrl)) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+        executeCodeRequest.setCaller(request.getRemoteAddr());
+        try {
+            return jobManager.submit(executeCodeRequest, callbackUrl);
+        } catch (RejectedExecutionException e) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return null;
+        }
+    }
+
+    /**
+     * 查询任务结果，waitMs 大于 0 时长轮询直到任务完成或超时
+     *
+     * @param jobId  任务 id
+     * @param waitMs 最长等待时间（毫秒）
+     * @return 任务信息
+     */
+    @GetMapping("/jobs/{jobId}")
+    DeferredResult<ResponseEntity<JobInfo>> getJob(@PathVariable String jobId,
+                                                   @RequestParam(defaultValue = "0") long waitMs,
+                                                   HttpServletRequest request, HttpServletResponse response) {
+        DeferredResult<ResponseEntity<JobInfo>> deferredResult;
+        if (!checkAuth(request, response)) {
+            deferredResult = new DeferredResult<>();
+            deferredResult.setResult(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+            return deferredResult;
+        }
+        ExecuteJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            deferredResult = new DeferredResult<>();
+            deferredResult.setResult(ResponseEntity.notFound().build());
+            return deferredResult;
+        }
+        long timeout = Math.min(Math.max(waitMs, 0), jobProperties.getMaxWaitMs());
+        if (timeout == 0 || job.isFinished()) {
+            deferredResult = new DeferredResult<>();
+            deferredResult.setResult(ResponseEntity.ok(job.toJobInfo()));
+            return deferredResult;
+        }
+        // 长轮询不占用 servlet 线程，任务完成或超时时返回当前状态
+        deferredResult = new DeferredResult<>(timeout);
+        DeferredResult<ResponseEntity<JobInfo>> result = deferredResult;
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(job.toJobInfo())));
+        job.getCompletion().thenAccept(jobInfo -> result.setResult(ResponseEntity.ok(jobInfo)));
+        return result;
+    }
+
+    /**
+     * 校验鉴权请求头，失败时写入 403
+     *
+     * @param request  请求
+     * @param response 响应
+     * @return 是否通过
+     */
+    private boolean checkAuth(HttpServletRequest request, HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(403);
+            return false;
+        }
+        return true;
     }
 }
@@ -0,0 +1,140 @@
+package com.bin.sandbox.harness;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻 Java 编译服务，在专用容器内以独立 JVM 运行，只依赖 JDK（按 Java 8 编译）。
+ * <p>
+ * 编译器和文件管理器常驻，JIT 预热和 JDK 类索引在多次编译间复用，省去每次 javac 的 JVM 启动和类加载。
+ * 请求目录下每个请求是一个子目录 {@code <id>/src}，写完源码后再创建 {@code <id>.ready} 表示就绪；
+ * 编译产物写入 {@code <id>/out}，结果文件 {@code <id>/out/.compile-result} 首行为退出码，之后为与 javac 命令行一致的诊断信息，
+ * 最后创建 {@code <id>/done}。退出码为 {@link #INTERNAL_ERROR_EXIT_CODE} 时表示服务自身出错，诊断信息为异常堆栈，
+ * 等待方应回退为容器内编译。
+ * <p>
+ * 参数：{@code 请求目录}
+ */
+public class CompileServer {
+
+    public static final String READY_SUFFIX = ".ready";
+
+    public static final String DONE_FILE = "done";
+
+    public static final String RESULT_FILE = ".compile-result";
+
+    /**
+     * 编译服务内部错误（编译器异常、读写请求目录失败）的退出码
+     */
+    public static final int INTERNAL_ERROR_EXIT_CODE = 3;
+
+    private static final long SCAN_INTERVAL = 100L;
+
+    private static final List<String> OPTIONS = Collections.unmodifiableList(Arrays.asList(
+            "-encoding", "UTF-8", "-proc:none"));
+
+    public static void main(String[] args) throws Exception {
+        Path requestDir = Paths.get(args[0]);
+        Files.createDirectories(requestDir);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            requestDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            while (true) {
+                // 事件只用于唤醒，每次都扫描目录，不会因事件溢出漏掉请求
+                WatchKey watchKey = watchService.poll(SCAN_INTERVAL, TimeUnit.MILLISECONDS);
+                if (watchKey != null) {
+                    watchKey.pollEvents();
+                    watchKey.reset();
+                }
+                File[] readyFiles = requestDir.toFile().listFiles((dir, name) -> name.endsWith(READY_SUFFIX));
+                if (readyFiles == null) {
+                    continue;
+                }
+                for (File readyFile : readyFiles) {
+                    String id = readyFile.getName().substring(0, readyFile.getName().length() - READY_SUFFIX.length());
+                    try {
+                        compile(compiler, fileManager, requestDir.resolve(id));
+                    } catch (IOException e) {
+                        writeFailure(requestDir.resolve(id), e);
+                    } finally {
+                        Files.deleteIfExists(readyFile.toPath());
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException ignored) {
+        }
+    }
+
+    private static void compile(JavaCompiler compiler, StandardJavaFileManager fileManager, Path requestPath)
+            throws IOException {
+        Path sourceDir = requestPath.resolve("src");
+        Path outputDir = requestPath.resolve("out");
+        Files.createDirectories(outputDir);
+        StringWriter diagnostics = new StringWriter();
+        int exitCode;
+        try (PrintWriter writer = new PrintWriter(diagnostics)) {
+            File[] sourceFiles = sourceDir.toFile().listFiles((dir, name) -> name.endsWith(".java"));
+            if (sourceFiles == null || sourceFiles.length == 0) {
+                writer.println("error: no source files");
+                exitCode = 2;
+            } else {
+                fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(outputDir.toFile()));
+                Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(sourceFiles);
+                boolean success = compiler.getTask(writer, fileManager, null, OPTIONS, null, units).call();
+                exitCode = success ? 0 : 1;
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace(new PrintWriter(diagnostics, true));
+            exitCode = INTERNAL_ERROR_EXIT_CODE;
+        }
+        // 诊断中的路径与容器内 javac 一致
+        String message = diagnostics.toString().replace(sourceDir.toString() + File.separator, "/app/");
+        writeResult(requestPath, exitCode, message);
+    }
+
+    /**
+     * 把异常堆栈作为诊断信息写入结果文件。服务以分离模式运行，标准错误无人读取；
+     * 请求目录已被清理时无法写入，等待方超时后同样回退为容器内编译
+     */
+    private static void writeFailure(Path requestPath, IOException e) {
+        if (Files.exists(requestPath.resolve(DONE_FILE))) {
+            return;
+        }
+        StringWriter stackTrace = new StringWriter();
+        e.printStackTrace(new PrintWriter(stackTrace, true));
+        try {
+            Files.createDirectories(requestPath.resolve("out"));
+            writeResult(requestPath, INTERNAL_ERROR_EXIT_CODE, stackTrace.toString());
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void writeResult(Path requestPath, int exitCode, String message) throws IOException {
+        Path resultTemp = requestPath.resolve(RESULT_FILE);
+        Files.write(resultTemp, (exitCode + "\n" + message).getBytes(StandardCharsets.UTF_8));
+        Files.move(resultTemp, requestPath.resolve("out").resolve(RESULT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        Files.createFile(requestPath.resolve(DONE_FILE));
+    }
+}
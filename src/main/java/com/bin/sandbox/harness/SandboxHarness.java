@@ -0,0 +1,430 @@
+package com.bin.sandbox.harness;
+
+import javax.management.MBeanPermission;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilePermission;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ManagementPermission;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ReflectPermission;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.LinkPermission;
+import java.security.AccessController;
+import java.security.CodeSource;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.security.Policy;
+import java.security.ProtectionDomain;
+import java.util.Base64;
+
+/**
+ * 多用例 Java 运行器，在容器内以独立 JVM 运行，只依赖 JDK（按 Java 8 编译）。
+ * <p>
+ * 一个 JVM 依次运行一批用例：每个用例使用新的类加载器加载 Main，丢弃加载器即重置静态状态；
+ * 标准输入、输出、错误重定向到用例自己的流，结束后统计用例线程的 CPU 时间和分配字节数。
+ * 用例调用 System.exit 或留下存活线程时报告回退并结束，剩余用例由沙箱按逐进程模式补跑；用例超时同样报告后结束。
+ * <p>
+ * 用例代码不能关闭安全管理器、修改运行器所在线程组的线程、直接写文件描述符或访问 /proc，
+ * 每行结果以沙箱经标准输入传入的随机串开头，用例无法伪造运行器的结果。
+ * <p>
+ * 标准输入：首行为随机串，第二行为用例数，之后每个用例一行字节数，紧跟输入内容。
+ * 标准输出：每个用例一行，{@code #SBH 随机串 下标 状态 退出码 耗时 CPU时间 分配字节 输出超限 输出(Base64) 错误(Base64)}。
+ * <p>
+ * 参数：{@code CPU时间上限(毫秒) 墙钟时间上限(毫秒) 输出上限(字节) 是否按CPU时间判定 [类路径目录，默认 /app/]}
+ */
+public class SandboxHarness {
+
+    public static final String FRAME_PREFIX = "#SBH";
+
+    public static final int STATUS_DONE = 0;
+
+    public static final int STATUS_FALLBACK = 1;
+
+    public static final int STATUS_TIMEOUT = 2;
+
+    private static final long POLL_INTERVAL = 5L;
+
+    private static final String DEFAULT_CLASS_PATH = "/app/";
+
+    private static final ExitTrap EXIT_TRAP = new ExitTrap();
+
+    public static void main(String[] args) throws Exception {
+        long cpuLimitNanos = Long.parseLong(args[0]) * 1000000L;
+        long wallLimitMillis = Long.parseLong(args[1]);
+        int outputLimit = Integer.parseInt(args[2]);
+        boolean cpuTimeLimit = Boolean.parseBoolean(args[3]);
+        String classPathDirectory = args.length > 4 ? args[4] : DEFAULT_CLASS_PATH;
+        InputStream stdin = System.in;
+        String nonce = readLine(stdin);
+        byte[][] inputs = new byte[Integer.parseInt(readLine(stdin))][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = readFully(stdin, Integer.parseInt(readLine(stdin)));
+        }
+        PrintStream frameOut = new PrintStream(new FileOutputStream(FileDescriptor.out), false, "UTF-8");
+        try {
+            Policy.setPolicy(new CasePolicy());
+            System.setSecurityManager(EXIT_TRAP);
+        } catch (Throwable e) {
+            // 无法拦截 System.exit 时不运行任何用例，全部回退
+            frameOut.println(FRAME_PREFIX + " " + nonce + " 0 " + STATUS_FALLBACK + " 0 0 0 0 false - -");
+            frameOut.flush();
+            return;
+        }
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        URL classPath = new File(classPathDirectory).toURI().toURL();
+        for (int index = 0; index < inputs.length; index++) {
+            CaseRunner caseRunner = new CaseRunner(classPath, outputLimit);
+            ThreadGroup threadGroup = new ThreadGroup("case-" + index);
+            Thread worker = new Thread(threadGroup, caseRunner, "main");
+            System.setIn(new ByteArrayInputStream(inputs[index]));
+            System.setOut(new PrintStream(caseRunner.stdout, true));
+            System.setErr(new PrintStream(caseRunner.stderr, true));
+            EXIT_TRAP.arm(threadGroup);
+            long start = System.nanoTime();
+            worker.start();
+            boolean timeout = false;
+            while (worker.isAlive()) {
+                worker.join(POLL_INTERVAL);
+                long cpu = threadMXBean.getThreadCpuTime(worker.getId());
+                long wall = (System.nanoTime() - start) / 1000000L;
+                if ((cpuTimeLimit && cpu > cpuLimitNanos) || wall > wallLimitMillis) {
+                    timeout = worker.isAlive();
+                    if (timeout) {
+                        caseRunner.cpuNanos = Math.max(cpu, 0);
+                    }
+                    break;
+                }
+            }
+            long wallMillis = (System.nanoTime() - start) / 1000000L;
+            boolean exitCalled = EXIT_TRAP.disarm();
+            if (timeout) {
+                writeFrame(frameOut, nonce, index, STATUS_TIMEOUT, caseRunner, wallMillis);
+                halt(frameOut);
+            }
+            if (exitCalled || threadGroup.activeCount() > 0) {
+                writeFrame(frameOut, nonce, index, STATUS_FALLBACK, caseRunner, wallMillis);
+                halt(frameOut);
+            }
+            writeFrame(frameOut, nonce, index, STATUS_DONE, caseRunner, wallMillis);
+            if (caseRunner.fatal) {
+                // 虚拟机错误后进程状态不可信，剩余用例回退
+                halt(frameOut);
+            }
+        }
+        halt(frameOut);
+    }
+
+    private static void writeFrame(PrintStream frameOut, String nonce, int index, int status, CaseRunner caseRunner,
+                                   long wallMillis) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        frameOut.println(FRAME_PREFIX + " " + nonce + " " + index + " " + status + " " + caseRunner.exitCode + " " + wallMillis
+                + " " + caseRunner.cpuNanos / 1000000L + " " + caseRunner.allocatedBytes
+                + " " + (caseRunner.stdout.overflow || caseRunner.stderr.overflow)
+                + " " + encodeOrDash(encoder, caseRunner.stdout)
+                + " " + encodeOrDash(encoder, caseRunner.stderr));
+        frameOut.flush();
+    }
+
+    private static String encodeOrDash(Base64.Encoder encoder, LimitedOutputStream outputStream) {
+        byte[] bytes = outputStream.toByteArray();
+        return bytes.length == 0 ? "-" : encoder.encodeToString(bytes);
+    }
+
+    private static void halt(PrintStream frameOut) {
+        frameOut.flush();
+        EXIT_TRAP.disarm();
+        Runtime.getRuntime().halt(0);
+    }
+
+    private static String readLine(InputStream inputStream) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = inputStream.read()) != -1 && b != '\n') {
+            line.append((char) b);
+        }
+        return line.toString().trim();
+    }
+
+    private static byte[] readFully(InputStream inputStream, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int read = inputStream.read(bytes, offset, length - offset);
+            if (read < 0) {
+                throw new IOException("用例输入不完整");
+            }
+            offset += read;
+        }
+        return bytes;
+    }
+
+    /**
+     * 在用例线程中加载并运行 Main
+     */
+    private static class CaseRunner implements Runnable {
+
+        private final URL classPath;
+
+        private final LimitedOutputStream stdout;
+
+        private final LimitedOutputStream stderr;
+
+        private volatile int exitCode;
+
+        private volatile long cpuNanos;
+
+        private volatile long allocatedBytes;
+
+        private volatile boolean fatal;
+
+        CaseRunner(URL classPath, int outputLimit) {
+            this.classPath = classPath;
+            this.stdout = new LimitedOutputStream(outputLimit);
+            this.stderr = new LimitedOutputStream(outputLimit);
+        }
+
+        @Override
+        public void run() {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long cpuStart = threadMXBean.getCurrentThreadCpuTime();
+            long allocatedStart = allocatedBytes(threadMXBean, threadId);
+            // 父加载器为扩展类加载器，Main 及其内部类每个用例重新加载
+            try (URLClassLoader classLoader = new CaseClassLoader(classPath)) {
+                Method mainMethod = classLoader.loadClass("Main").getMethod("main", String[].class);
+                mainMethod.invoke(null, (Object) new String[0]);
+                System.out.flush();
+            } catch (InvocationTargetException e) {
+                handleThrowable(e.getCause());
+            } catch (Throwable e) {
+                handleThrowable(e);
+            } finally {
+                cpuNanos = threadMXBean.getCurrentThreadCpuTime() - cpuStart;
+                long allocatedEnd = allocatedBytes(threadMXBean, threadId);
+                allocatedBytes = allocatedStart < 0 || allocatedEnd < 0 ? -1 : allocatedEnd - allocatedStart;
+            }
+        }
+
+        private void handleThrowable(Throwable throwable) {
+            if (throwable instanceof OutputLimitError || throwable instanceof ExitException) {
+                return;
+            }
+            exitCode = 1;
+            fatal = throwable instanceof VirtualMachineError;
+            try {
+                // 与 JVM 默认的未捕获异常输出一致
+                PrintStream err = new PrintStream(stderr, true);
+                err.print("Exception in thread \"main\" ");
+                throwable.printStackTrace(err);
+            } catch (OutputLimitError ignored) {
+            }
+        }
+
+        private static long allocatedBytes(ThreadMXBean threadMXBean, long threadId) {
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadId);
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 用例类加载器，加载的类不授予任何权限，安全管理器据此识别调用栈上的用例代码
+     */
+    private static class CaseClassLoader extends URLClassLoader {
+
+        CaseClassLoader(URL classPath) {
+            super(new URL[]{classPath}, ClassLoader.getSystemClassLoader().getParent());
+        }
+
+        @Override
+        protected PermissionCollection getPermissions(CodeSource codeSource) {
+            return new Permissions();
+        }
+    }
+
+    /**
+     * 用例类加载器加载的类没有任何权限，运行器和 JDK 的类拥有全部权限
+     */
+    private static class CasePolicy extends Policy {
+
+        @Override
+        public boolean implies(ProtectionDomain domain, Permission permission) {
+            return !(domain.getClassLoader() instanceof CaseClassLoader);
+        }
+    }
+
+    /**
+     * 有上限的输出流，超出后抛出 Error 结束用例，PrintStream 不会吞掉
+     */
+    private static class LimitedOutputStream extends OutputStream {
+
+        private final int limit;
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private volatile boolean overflow;
+
+        LimitedOutputStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            int writable = Math.min(length, limit - buffer.size());
+            if (writable > 0) {
+                buffer.write(bytes, offset, writable);
+            }
+            if (writable < length) {
+                overflow = true;
+                throw new OutputLimitError();
+            }
+        }
+
+        synchronized byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    private static class OutputLimitError extends Error {
+
+        OutputLimitError() {
+            super("输出超限", null, false, false);
+        }
+    }
+
+    private static class ExitException extends SecurityException {
+
+        ExitException() {
+            super("System.exit");
+        }
+    }
+
+    /**
+     * 运行用例期间拦截 System.exit，并拒绝用例代码执行可能破坏运行器的操作，其余权限全部放行。
+     * <p>
+     * 敏感权限只在调用栈上有用例代码时按 {@link AccessController} 检查：用例类没有任何权限，
+     * JDK 在 doPrivileged 中代为执行的操作（如 Enum.valueOf 内部的反射）不受影响。
+     */
+    private static class ExitTrap extends SecurityManager {
+
+        private static final RuntimePermission MODIFY_THREAD = new RuntimePermission("modifyThread");
+
+        private static final RuntimePermission MODIFY_THREAD_GROUP = new RuntimePermission("modifyThreadGroup");
+
+        private volatile boolean armed;
+
+        private volatile boolean exitCalled;
+
+        private volatile ThreadGroup caseGroup;
+
+        ExitTrap() {
+        }
+
+        void arm(ThreadGroup threadGroup) {
+            exitCalled = false;
+            caseGroup = threadGroup;
+            armed = true;
+        }
+
+        boolean disarm() {
+            armed = false;
+            return exitCalled;
+        }
+
+        @Override
+        public void checkExit(int status) {
+            if (armed) {
+                exitCalled = true;
+                throw new ExitException();
+            }
+        }
+
+        /**
+         * 运行器主线程和 JVM 系统线程所在的线程组是用例线程组的上级，用例不能修改其中的线程
+         */
+        @Override
+        public void checkAccess(Thread thread) {
+            ThreadGroup group = thread.getThreadGroup();
+            if (armed && group != null && isOutsideCaseGroup(group)) {
+                checkCasePermission(MODIFY_THREAD);
+            }
+        }
+
+        @Override
+        public void checkAccess(ThreadGroup group) {
+            if (armed && isOutsideCaseGroup(group)) {
+                checkCasePermission(MODIFY_THREAD_GROUP);
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission perm) {
+            if (armed && isSensitive(perm)) {
+                checkCasePermission(perm);
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+            checkPermission(perm);
+        }
+
+        private boolean isOutsideCaseGroup(ThreadGroup group) {
+            ThreadGroup current = caseGroup;
+            return current != null && group != current && group.parentOf(current);
+        }
+
+        /**
+         * 调用栈上有用例代码时按访问控制上下文检查，用例类没有权限即拒绝
+         */
+        private void checkCasePermission(Permission perm) {
+            for (Class<?> caller : getClassContext()) {
+                if (caller.getClassLoader() instanceof CaseClassLoader) {
+                    AccessController.checkPermission(perm);
+                    return;
+                }
+            }
+        }
+
+        private static boolean isSensitive(Permission perm) {
+            if (perm instanceof RuntimePermission) {
+                String name = perm.getName();
+                return "setSecurityManager".equals(name) || "writeFileDescriptor".equals(name)
+                        || "modifyThreadGroup".equals(name) || name.startsWith("loadLibrary.");
+            }
+            if (perm instanceof FilePermission) {
+                return perm.getActions().contains("execute") || isProcessFile(perm.getName());
+            }
+            return perm instanceof ReflectPermission || perm instanceof LinkPermission
+                    || perm instanceof ManagementPermission || perm instanceof MBeanPermission;
+        }
+
+        /**
+         * /proc 和 /dev 下的标准流可以绕过文件描述符检查直接写运行器的输出或读取进程内存
+         */
+        private static boolean isProcessFile(String name) {
+            String path = new File(name).getAbsoluteFile().toPath().normalize().toString();
+            return path.equals("/proc") || path.startsWith("/proc/") || path.startsWith("/dev/fd")
+                    || path.startsWith("/dev/std");
+        }
+    }
+}
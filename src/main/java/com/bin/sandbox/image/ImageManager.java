@@ -0,0 +1,234 @@
+package com.bin.sandbox.image;
+
+import com.bin.sandbox.cache.CompileCache;
+import com.bin.sandbox.config.ImageProperties;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.PullResponseItem;
+import com.github.dockerjava.core.command.PullImageResultCallback;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 语言镜像管理器。
+ * <p>
+ * 各语言沙箱启动时登记镜像，服务就绪后并行检查并拉取缺失镜像，结果缓存在内存中，
+ * 提交时不再逐次 inspect；镜像在运行期间被删除时通过 {@link #invalidate(String)} 清除状态后重新拉取。
+ */
+@Slf4j
+@Component
+public class ImageManager {
+
+    @Resource
+    private DockerClient dockerClient;
+
+    @Resource
+    private ImageProperties imageProperties;
+
+    @Resource
+    private CompileCache compileCache;
+
+    private final Set<String> registeredImages = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> readyImages = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, CompletableFuture<Void>> pullingMap = new HashMap<>();
+
+    private ExecutorService pullExecutor;
+
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    public void init() {
+        pullExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "image-pull");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 登记语言镜像
+     *
+     * @param image 镜像名
+     */
+    public void registerImage(String image) {
+        registeredImages.add(image);
+    }
+
+    /**
+     * 服务就绪后并行准备全部镜像，失败的镜像按间隔重试直到就绪
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepull() {
+        if (!imageProperties.isPrepull()) {
+            return;
+        }
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-prepull");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryScheduler.scheduleWithFixedDelay(this::prepullPending, 0,
+                imageProperties.getRetryIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 确保镜像可用，已就绪时直接返回，否则等待（或发起）拉取
+     *
+     * @param image 镜像名
+     */
+    public void ensureImage(String image) {
+        if (readyImages.contains(image)) {
+            return;
+        }
+        try {
+            pullAsync(image).get(imageProperties.getPullTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("镜像准备被中断: " + image, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("镜像不可用: " + image, e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("镜像拉取超时: " + image, e);
+        }
+    }
+
+    /**
+     * 镜像被删除或更新后清除就绪状态和编译缓存中的镜像 id，下次使用时重新检查
+     *
+     * @param image 镜像名
+     */
+    public void invalidate(String image) {
+        readyImages.remove(image);
+        compileCache.invalidateImage(image);
+        log.info("镜像状态已失效, image = {}", image);
+    }
+
+    /**
+     * 全部登记镜像是否就绪，未开启预拉取时按需拉取，始终视为就绪
+     *
+     * @return 是否就绪
+     */
+    public boolean isReady() {
+        return !imageProperties.isPrepull() || readyImages.containsAll(registeredImages);
+    }
+
+    /**
+     * 未就绪的镜像
+     *
+     * @return 镜像名列表
+     */
+    public List<String> getPendingImages() {
+        List<String> pendingImages = new ArrayList<>();
+        for (String image : registeredImages) {
+            if (!readyImages.contains(image)) {
+                pendingImages.add(image);
+            }
+        }
+        Collections.sort(pendingImages);
+        return pendingImages;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+        pullExecutor.shutdownNow();
+    }
+
+    private void prepullPending() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String image : getPendingImages()) {
+            futures.add(pullAsync(image));
+        }
+        if (futures.isEmpty()) {
+            retryScheduler.shutdown();
+            return;
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            log.info("语言镜像已就绪: {}", readyImages);
+        } catch (RuntimeException e) {
+            log.warn("语言镜像预拉取未完成, pending = {}, error = {}", getPendingImages(), e.getMessage());
+        }
+    }
+
+    /**
+     * 发起镜像准备，同一镜像同时只有一个拉取任务
+     *
+     * @param image 镜像名
+     * @return 拉取任务
+     */
+    private synchronized CompletableFuture<Void> pullAsync(String image) {
+        CompletableFuture<Void> future = pullingMap.get(image);
+        if (future != null && !future.isDone()) {
+            return future;
+        }
+        future = CompletableFuture.runAsync(() -> prepare(image), pullExecutor);
+        pullingMap.put(image, future);
+        return future;
+    }
+
+    private void prepare(String image) {
+        if (!exists(image)) {
+            pull(image);
+            if (!exists(image)) {
+                throw new RuntimeException("镜像拉取后仍不存在: " + image);
+            }
+        }
+        readyImages.add(image);
+    }
+
+    private boolean exists(String image) {
+        try {
+            dockerClient.inspectImageCmd(image).exec();
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    private void pull(String image) {
+        log.info("开始拉取镜像, image = {}", image);
+        PullImageResultCallback callback = new PullImageResultCallback() {
+            @Override
+            public void onNext(PullResponseItem item) {
+                log.debug("拉取层 {} : {}", item.getId() != null ? item.getId() : "?", item.getStatus());
+                super.onNext(item);
+            }
+        };
+        try {
+            boolean completed = dockerClient.pullImageCmd(image)
+                    .exec(callback)
+                    .awaitCompletion(imageProperties.getPullTimeoutMs(), TimeUnit.MILLISECONDS);
+            if (!completed) {
+                throw new RuntimeException("镜像拉取超时: " + image);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("拉取被中断", e);
+        }
+    }
+}
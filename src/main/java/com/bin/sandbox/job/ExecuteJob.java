@@ -0,0 +1,67 @@
+package com.bin.sandbox.job;
+
+import com.bin.sandbox.constant.JobStatusConstant;
+import com.bin.sandbox.model.ExecuteCodeRequest;
+import com.bin.sandbox.model.ExecuteCodeResponse;
+import com.bin.sandbox.model.JobInfo;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步判题任务
+ */
+@Getter
+public class ExecuteJob {
+
+    private final String jobId;
+
+    private final ExecuteCodeRequest executeCodeRequest;
+
+    private final String callbackUrl;
+
+    private final long submitTime = System.currentTimeMillis();
+
+    private final CompletableFuture<JobInfo> completion = new CompletableFuture<>();
+
+    private volatile String status = JobStatusConstant.PENDING;
+
+    private volatile ExecuteCodeResponse response;
+
+    private volatile Long startTime;
+
+    private volatile Long finishTime;
+
+    public ExecuteJob(String jobId, ExecuteCodeRequest executeCodeRequest, String callbackUrl) {
+        this.jobId = jobId;
+        this.executeCodeRequest = executeCodeRequest;
+        this.callbackUrl = callbackUrl;
+    }
+
+    public void markRunning() {
+        startTime = System.currentTimeMillis();
+        status = JobStatusConstant.RUNNING;
+    }
+
+    public void markFinished(ExecuteCodeResponse executeCodeResponse) {
+        response = executeCodeResponse;
+        finishTime = System.currentTimeMillis();
+        status = JobStatusConstant.FINISHED;
+        completion.complete(toJobInfo());
+    }
+
+    public boolean isFinished() {
+        return JobStatusConstant.FINISHED.equals(status);
+    }
+
+    public JobInfo toJobInfo() {
+        JobInfo jobInfo = new JobInfo();
+        jobInfo.setJobId(jobId);
+        jobInfo.setStatus(status);
+        jobInfo.setResponse(response);
+        jobInfo.setSubmitTime(submitTime);
+        jobInfo.setStartTime(startTime);
+        jobInfo.setFinishTime(finishTime);
+        return jobInfo;
+    }
+}
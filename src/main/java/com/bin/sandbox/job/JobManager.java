@@ -0,0 +1,208 @@
+package com.bin.sandbox.job;
+
+import cn.hutool.core.lang.UUID;
+import cn.hutool.http.ContentType;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.json.JSONUtil;
+import com.bin.sandbox.config.JobProperties;
+import com.bin.sandbox.manager.CodeSandboxManager;
+import com.bin.sandbox.model.ExecuteCodeRequest;
+import com.bin.sandbox.model.ExecuteCodeResponse;
+import com.bin.sandbox.model.JobInfo;
+import com.bin.sandbox.model.JudgeInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步判题任务管理器。
+ * <p>
+ * 任务进入有界队列由固定数量的工作线程执行，队列满时直接拒绝，HTTP 线程不再阻塞在编译和运行上。
+ * 回调由单独的线程发送，回调地址响应慢时不占用判题线程；已完成任务超过保留上限时先清除最早完成的任务。
+ */
+@Slf4j
+@Component
+public class JobManager {
+
+    @Resource
+    private JobProperties jobProperties;
+
+    private final Map<String, ExecuteJob> jobMap = new ConcurrentHashMap<>();
+
+    /**
+     * 已完成的任务，按完成先后排列
+     */
+    private final Deque<ExecuteJob> finishedJobs = new ArrayDeque<>();
+
+    private ThreadPoolExecutor workerExecutor;
+
+    private ThreadPoolExecutor callbackExecutor;
+
+    private ScheduledExecutorService cleanupScheduler;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        workerExecutor = new ThreadPoolExecutor(jobProperties.getWorkerCount(), jobProperties.getWorkerCount(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(jobProperties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "judge-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        AtomicInteger callbackThreadIndex = new AtomicInteger();
+        callbackExecutor = new ThreadPoolExecutor(jobProperties.getCallbackWorkerCount(),
+                jobProperties.getCallbackWorkerCount(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobProperties.getCallbackQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "judge-callback-" + callbackThreadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        cleanupScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "judge-job-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleanupScheduler.scheduleWithFixedDelay(this::removeExpiredJobs, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        cleanupScheduler.shutdownNow();
+        workerExecutor.shutdownNow();
+        callbackExecutor.shutdownNow();
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param executeCodeRequest 执行请求
+     * @param callbackUrl        完成后回调的本机地址，可为空
+     * @return 任务信息
+     * @throws RejectedExecutionException 队列已满
+     */
+    public JobInfo submit(ExecuteCodeRequest executeCodeRequest, String callbackUrl) {
+        ExecuteJob job = new ExecuteJob(UUID.fastUUID().toString(true), executeCodeRequest, callbackUrl);
+        jobMap.put(job.getJobId(), job);
+        try {
+            workerExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobMap.remove(job.getJobId());
+            throw e;
+        }
+        return job.toJobInfo();
+    }
+
+    /**
+     * 获取任务
+     *
+     * @param jobId 任务 id
+     * @return 任务，不存在或已过期时返回 null
+     */
+    public ExecuteJob getJob(String jobId) {
+        return jobMap.get(jobId);
+    }
+
+    /**
+     * 校验回调地址只指向本机服务
+     *
+     * @param callbackUrl 回调地址
+     * @return 是否合法
+     */
+    public boolean isCallbackAllowed(String callbackUrl) {
+        try {
+            URI uri = URI.create(callbackUrl);
+            String scheme = uri.getScheme();
+            if (!"http".equals(scheme) && !"https".equals(scheme)) {
+                return false;
+            }
+            return uri.getHost() != null && jobProperties.getCallbackHosts().contains(uri.getHost());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public int getQueueSize() {
+        return workerExecutor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return workerExecutor.getActiveCount();
+    }
+
+    private void runJob(ExecuteJob job) {
+        job.markRunning();
+        ExecuteCodeResponse executeCodeResponse;
+        try {
+            executeCodeResponse = CodeSandboxManager.doExec(job.getExecuteCodeRequest());
+        } catch (Exception e) {
+            executeCodeResponse = new ExecuteCodeResponse();
+            executeCodeResponse.setOutputList(new ArrayList<>());
+            executeCodeResponse.setMessage(e.getMessage());
+            executeCodeResponse.setStatus(2);
+            executeCodeResponse.setJudgeInfo(new JudgeInfo());
+        }
+        job.markFinished(executeCodeResponse);
+        addFinishedJob(job);
+        if (job.getCallbackUrl() != null) {
+            try {
+                callbackExecutor.execute(() -> sendCallback(job));
+            } catch (RejectedExecutionException e) {
+                log.warn("回调队列已满，放弃回调, jobId = {}, callbackUrl = {}", job.getJobId(), job.getCallbackUrl());
+            }
+        }
+    }
+
+    private void sendCallback(ExecuteJob job) {
+        try {
+            HttpRequest.post(job.getCallbackUrl())
+                    .body(JSONUtil.toJsonStr(job.toJobInfo()), ContentType.JSON.getValue())
+                    .timeout(jobProperties.getCallbackTimeoutMs())
+                    .execute()
+                    .close();
+        } catch (Exception e) {
+            log.warn("任务回调失败, jobId = {}, callbackUrl = {}, error = {}", job.getJobId(), job.getCallbackUrl(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * 记录已完成任务，超过保留上限时清除最早完成的任务
+     */
+    private void addFinishedJob(ExecuteJob job) {
+        synchronized (finishedJobs) {
+            finishedJobs.addLast(job);
+            while (finishedJobs.size() > jobProperties.getMaxFinishedJobs()) {
+                jobMap.remove(finishedJobs.pollFirst().getJobId());
+            }
+        }
+    }
+
+    private void removeExpiredJobs() {
+        long expireBefore = System.currentTimeMillis() - jobProperties.getResultTtlMs();
+        synchronized (finishedJobs) {
+            while (!finishedJobs.isEmpty() && finishedJobs.peekFirst().getFinishTime() < expireBefore) {
+                jobMap.remove(finishedJobs.pollFirst().getJobId());
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.bin.sandbox.judge;
+
+import com.bin.sandbox.utils.BoundedOutputBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式输出比对器。
+ * <p>
+ * 按字节逐个比对程序输出与期望输出，规则与 normalizeOutput 一致：\r\n、\r 视为换行，忽略行尾空格和制表符，
+ * 忽略末尾空行。行尾空白只记录个数和是否与期望一致，不缓存输出内容，只保留首个不一致行的前缀用于提示。
+ */
+public class OutputComparator {
+
+    private static final int SNIPPET_LIMIT = 64;
+
+    private final byte[][] expectedLines;
+
+    private final long outputLimit;
+
+    private long totalBytes;
+
+    private boolean overflow;
+
+    private int lineIndex;
+
+    /**
+     * 当前行已确认匹配的字节数
+     */
+    private int position;
+
+    /**
+     * 尚未确定是否位于行尾的空白数
+     */
+    private int pendingWhitespace;
+
+    /**
+     * 待定空白是否与期望一致
+     */
+    private boolean pendingMatched = true;
+
+    private boolean lastWasCarriageReturn;
+
+    private boolean mismatched;
+
+    /**
+     * 首个不一致行的行号（从 0 开始），未出现不一致时为 -1
+     */
+    private int mismatchLine = -1;
+
+    /**
+     * 首个不一致行的实际内容前缀
+     */
+    private String mismatchSnippet;
+
+    private final BoundedOutputBuffer currentLinePrefix = new BoundedOutputBuffer(SNIPPET_LIMIT);
+
+    private boolean finished;
+
+    /**
+     * @param normalizedExpected 已按 normalizeOutput 规范化的期望输出
+     * @param outputLimit        输出字节上限
+     */
+    public OutputComparator(String normalizedExpected, long outputLimit) {
+        this.outputLimit = outputLimit;
+        if (normalizedExpected.isEmpty()) {
+            expectedLines = new byte[0][];
+        } else {
+            String[] lines = normalizedExpected.split("\n", -1);
+            expectedLines = new byte[lines.length][];
+            for (int i = 0; i < lines.length; i++) {
+                expectedLines[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * 追加输出
+     *
+     * @param data 输出数据
+     * @return 是否仍在输出上限内
+     */
+    public synchronized boolean append(byte[] data) {
+        if (overflow || data == null) {
+            return !overflow;
+        }
+        totalBytes += data.length;
+        if (totalBytes > outputLimit) {
+            overflow = true;
+            return false;
+        }
+        for (byte b : data) {
+            accept(b);
+        }
+        return true;
+    }
+
+    /**
+     * 输出结束，处理最后一行
+     */
+    public synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (lineIndex < expectedLines.length) {
+            endLine();
+        }
+        if (!mismatched && lineIndex < expectedLines.length) {
+            markMismatch();
+            freezeSnippet();
+        }
+    }
+
+    /**
+     * 输出是否与期望一致，需先调用 {@link #finish()}
+     *
+     * @return 是否一致
+     */
+    public synchronized boolean isMatched() {
+        return finished && !mismatched && !overflow;
+    }
+
+    public synchronized boolean isOverflow() {
+        return overflow;
+    }
+
+    /**
+     * 首个不一致处的说明
+     *
+     * @return 说明，一致时返回 null
+     */
+    public synchronized String getMismatchMessage() {
+        if (!mismatched) {
+            return null;
+        }
+        String expected = mismatchLine < expectedLines.length
+                ? new String(expectedLines[mismatchLine], StandardCharsets.UTF_8)
+                : "<EOF>";
+        if (expected.length() > SNIPPET_LIMIT) {
+            expected = expected.substring(0, SNIPPET_LIMIT) + "...";
+        }
+        String actual = mismatchSnippet == null ? "" : mismatchSnippet;
+        return "第 " + (mismatchLine + 1) + " 行不一致, 期望: " + expected + ", 实际: " + actual;
+    }
+
+    private void accept(byte b) {
+        if (b == '\n' && lastWasCarriageReturn) {
+            lastWasCarriageReturn = false;
+            return;
+        }
+        lastWasCarriageReturn = b == '\r';
+        if (b == '\n' || b == '\r') {
+            endLine();
+            return;
+        }
+        if (mismatchLine == lineIndex || !mismatched) {
+            currentLinePrefix.append(b);
+        }
+        if (mismatched) {
+            return;
+        }
+        byte[] expected = lineIndex < expectedLines.length ? expectedLines[lineIndex] : null;
+        if (b == ' ' || b == '\t') {
+            int offset = position + pendingWhitespace;
+            if (expected == null || offset >= expected.length || expected[offset] != b) {
+                pendingMatched = false;
+            }
+            pendingWhitespace++;
+            return;
+        }
+        if (expected == null || !pendingMatched) {
+            markMismatch();
+            return;
+        }
+        position += pendingWhitespace;
+        pendingWhitespace = 0;
+        if (position >= expected.length || expected[position] != b) {
+            markMismatch();
+            return;
+        }
+        position++;
+    }
+
+    private void endLine() {
+        if (!mismatched && lineIndex < expectedLines.length && position != expectedLines[lineIndex].length) {
+            markMismatch();
+        }
+        if (mismatchLine == lineIndex) {
+            freezeSnippet();
+        }
+        lineIndex++;
+        position = 0;
+        pendingWhitespace = 0;
+        pendingMatched = true;
+        currentLinePrefix.reset();
+    }
+
+    private void markMismatch() {
+        mismatched = true;
+        mismatchLine = lineIndex;
+    }
+
+    private void freezeSnippet() {
+        if (mismatchSnippet == null) {
+            mismatchSnippet = currentLinePrefix.toString() + (currentLinePrefix.isOverflow() ? "..." : "");
+        }
+    }
+}
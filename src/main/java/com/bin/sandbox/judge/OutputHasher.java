@@ -0,0 +1,176 @@
+package com.bin.sandbox.judge;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+/**
+ * 流式输出哈希。
+ * <p>
+ * 按 {@link OutputNormalizer} 的规则边读取边计算规范化输出的多项式滚动哈希（模 2^61-1），不保存输出内容。
+ * 行尾空白和换行先累计在待定段中，遇到下一个非空白字符时才并入哈希，行尾空白、末尾空行因此不参与计算。
+ * 基数在进程启动时随机选取，期望输出与程序输出在同一进程内计算，程序无法针对性构造碰撞。
+ */
+public class OutputHasher {
+
+    private static final long MOD = (1L << 61) - 1;
+
+    private static final long MASK30 = (1L << 30) - 1;
+
+    private static final long MASK31 = (1L << 31) - 1;
+
+    private static final long BASE = 256 + (new SecureRandom().nextLong() >>> 4) % (MOD - 512);
+
+    private final long outputLimit;
+
+    private long totalBytes;
+
+    private boolean overflow;
+
+    private long hash;
+
+    /**
+     * 已并入哈希的规范化输出长度
+     */
+    private long length;
+
+    /**
+     * 待定的连续换行
+     */
+    private long newlineHash;
+
+    private long newlinePower = 1;
+
+    private int newlineCount;
+
+    /**
+     * 待定的行内空白
+     */
+    private long whitespaceHash;
+
+    private long whitespacePower = 1;
+
+    private int whitespaceCount;
+
+    private boolean lastWasCarriageReturn;
+
+    /**
+     * @param outputLimit 输出字节上限
+     */
+    public OutputHasher(long outputLimit) {
+        this.outputLimit = outputLimit;
+    }
+
+    /**
+     * 计算字符串规范化后的哈希，无需先规范化
+     *
+     * @param value 原始输出
+     * @return 哈希
+     */
+    public static OutputHasher of(String value) {
+        OutputHasher outputHasher = new OutputHasher(Long.MAX_VALUE);
+        if (value != null) {
+            outputHasher.append(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return outputHasher;
+    }
+
+    /**
+     * 追加输出
+     *
+     * @param data 输出数据
+     * @return 是否仍在输出上限内
+     */
+    public synchronized boolean append(byte[] data) {
+        if (overflow || data == null) {
+            return !overflow;
+        }
+        totalBytes += data.length;
+        if (totalBytes > outputLimit) {
+            overflow = true;
+            return false;
+        }
+        for (byte b : data) {
+            accept(b);
+        }
+        return true;
+    }
+
+    /**
+     * 规范化输出是否与另一份一致（哈希和长度都相同）
+     *
+     * @param other 另一份输出的哈希
+     * @return 是否一致
+     */
+    public synchronized boolean matches(OutputHasher other) {
+        return !overflow && hash == other.hash && length == other.length;
+    }
+
+    public synchronized boolean isOverflow() {
+        return overflow;
+    }
+
+    private void accept(byte b) {
+        if (b == '\n' && lastWasCarriageReturn) {
+            lastWasCarriageReturn = false;
+            return;
+        }
+        lastWasCarriageReturn = b == '\r';
+        if (b == '\n' || b == '\r') {
+            whitespaceHash = 0;
+            whitespacePower = 1;
+            whitespaceCount = 0;
+            newlineHash = mod(mulMod(newlineHash, BASE) + term((byte) '\n'));
+            newlinePower = mulMod(newlinePower, BASE);
+            newlineCount++;
+            return;
+        }
+        if (b == ' ' || b == '\t') {
+            whitespaceHash = mod(mulMod(whitespaceHash, BASE) + term(b));
+            whitespacePower = mulMod(whitespacePower, BASE);
+            whitespaceCount++;
+            return;
+        }
+        if (newlineCount > 0) {
+            hash = mod(mulMod(hash, newlinePower) + newlineHash);
+            length += newlineCount;
+            newlineHash = 0;
+            newlinePower = 1;
+            newlineCount = 0;
+        }
+        if (whitespaceCount > 0) {
+            hash = mod(mulMod(hash, whitespacePower) + whitespaceHash);
+            length += whitespaceCount;
+            whitespaceHash = 0;
+            whitespacePower = 1;
+            whitespaceCount = 0;
+        }
+        hash = mod(mulMod(hash, BASE) + term(b));
+        length++;
+    }
+
+    /**
+     * 字节取值加 1，避免 0 字节不改变哈希
+     */
+    private static long term(byte b) {
+        return (b & 0xFF) + 1;
+    }
+
+    /**
+     * 模 2^61-1 乘法，参数均小于模数
+     */
+    private static long mulMod(long a, long b) {
+        long aHigh = a >>> 31;
+        long aLow = a & MASK31;
+        long bHigh = b >>> 31;
+        long bLow = b & MASK31;
+        long middle = aLow * bHigh + aHigh * bLow;
+        long middleHigh = middle >>> 30;
+        long middleLow = middle & MASK30;
+        return mod(aHigh * bHigh * 2 + middleHigh + (middleLow << 31) + aLow * bLow);
+    }
+
+    private static long mod(long value) {
+        long result = (value >>> 61) + (value & MOD);
+        return result >= MOD ? result - MOD : result;
+    }
+}
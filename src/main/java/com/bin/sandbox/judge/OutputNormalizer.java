@@ -0,0 +1,105 @@
+package com.bin.sandbox.judge;
+
+/**
+ * 输出规范化工具类。
+ * <p>
+ * 规则：\r\n、\r 视为换行，去掉每行行尾的空格和制表符，去掉末尾空行。
+ * 单次遍历、原地写回，不拆分行、不生成中间字符串，大输出时只在最终构造字符串时复制一次。
+ */
+public final class OutputNormalizer {
+
+    private OutputNormalizer() {
+    }
+
+    /**
+     * 原地规范化字节数组，写回位置不超过读取位置，多字节 UTF-8 字符不受影响
+     *
+     * @param bytes  字节
+     * @param length 有效长度
+     * @return 规范化后的长度
+     */
+    public static int normalize(byte[] bytes, int length) {
+        int write = 0;
+        // 当前行最后一个非空白字符之后的位置
+        int lineEnd = 0;
+        // 最后一个非空白字符之后的位置
+        int contentEnd = 0;
+        for (int read = 0; read < length; read++) {
+            byte b = bytes[read];
+            if (b == '\r' || b == '\n') {
+                if (b == '\r' && read + 1 < length && bytes[read + 1] == '\n') {
+                    read++;
+                }
+                write = lineEnd;
+                bytes[write++] = '\n';
+                lineEnd = write;
+                continue;
+            }
+            bytes[write++] = b;
+            if (b != ' ' && b != '\t') {
+                lineEnd = write;
+                contentEnd = write;
+            }
+        }
+        return contentEnd;
+    }
+
+    /**
+     * 规范化字符串，已规范化时直接返回原字符串
+     *
+     * @param value 原始输出
+     * @return 规范化输出
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (isNormalized(value)) {
+            return value;
+        }
+        char[] chars = value.toCharArray();
+        int write = 0;
+        int lineEnd = 0;
+        int contentEnd = 0;
+        for (int read = 0; read < chars.length; read++) {
+            char ch = chars[read];
+            if (ch == '\r' || ch == '\n') {
+                if (ch == '\r' && read + 1 < chars.length && chars[read + 1] == '\n') {
+                    read++;
+                }
+                write = lineEnd;
+                chars[write++] = '\n';
+                lineEnd = write;
+                continue;
+            }
+            chars[write++] = ch;
+            if (ch != ' ' && ch != '\t') {
+                lineEnd = write;
+                contentEnd = write;
+            }
+        }
+        return new String(chars, 0, contentEnd);
+    }
+
+    /**
+     * 是否已满足规范化规则，只扫描不分配
+     *
+     * @param value 字符串
+     * @return 是否已规范化
+     */
+    public static boolean isNormalized(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return true;
+        }
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch == '\r' || (ch == '\n' && (previous == ' ' || previous == '\t'))) {
+                return false;
+            }
+            previous = ch;
+        }
+        return previous != '\n' && previous != ' ' && previous != '\t';
+    }
+}
@@ -4,9 +4,17 @@ import com.bin.sandbox.CodeSandbox;
 import com.bin.sandbox.constant.LanguageConstant;
 import com.bin.sandbox.model.ExecuteCodeRequest;
 import com.bin.sandbox.model.ExecuteCodeResponse;
+import com.bin.sandbox.model.JudgeInfo;
+import com.bin.sandbox.scheduler.CaseExecutor;
 import com.bin.sandbox.utils.SpringContextUtils;
 import com.bin.sandbox.utils.ThrowUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 代码沙箱管理器，根据语言选择判题系统。
  */
@@ -16,20 +24,69 @@ public final class CodeSandboxManager {
     }
 
     public static ExecuteCodeResponse doExec(ExecuteCodeRequest executeCodeRequest) {
-        CodeSandbox codeSandbox = null;
-        String language = executeCodeRequest.getLanguage();
+        CodeSandbox codeSandbox = getCodeSandbox(executeCodeRequest.getLanguage());
+        ThrowUtils.throwIf(codeSandbox == null, "编程语言非法");
+        return codeSandbox.executeCode(executeCodeRequest);
+    }
+
+    /**
+     * 批量执行，按语言分组后交给对应沙箱，各语言分组并发执行，结果顺序与请求一致，语言非法的提交单独返回错误
+     *
+     * @param executeCodeRequestList 请求列表
+     * @return 响应列表
+     */
+    public static List<ExecuteCodeResponse> doBatchExec(List<ExecuteCodeRequest> executeCodeRequestList) {
+        ExecuteCodeResponse[] responses = new ExecuteCodeResponse[executeCodeRequestList.size()];
+        Map<CodeSandbox, List<Integer>> groupMap = new LinkedHashMap<>();
+        for (int i = 0; i < executeCodeRequestList.size(); i++) {
+            ExecuteCodeRequest executeCodeRequest = executeCodeRequestList.get(i);
+            CodeSandbox codeSandbox = executeCodeRequest == null ? null
+                    : getCodeSandbox(executeCodeRequest.getLanguage());
+            if (codeSandbox == null) {
+                responses[i] = ExecuteCodeResponse.builder()
+                        .outputList(new ArrayList<>())
+                        .message("编程语言非法")
+                        .status(2)
+                        .judgeInfo(new JudgeInfo())
+                        .build();
+                continue;
+            }
+            groupMap.computeIfAbsent(codeSandbox, key -> new ArrayList<>()).add(i);
+        }
+        if (groupMap.isEmpty()) {
+            return Arrays.asList(responses);
+        }
+        List<CodeSandbox> codeSandboxList = new ArrayList<>(groupMap.keySet());
+        CaseExecutor caseExecutor = (CaseExecutor) SpringContextUtils.getBean("caseExecutor");
+        // 分组之间互不等待，慢语言（如编译耗时的 Java）不拖住其他语言
+        caseExecutor.runBatch(codeSandboxList.size(), codeSandboxList.size(), (lane, groupIndex) -> {
+            CodeSandbox codeSandbox = codeSandboxList.get(groupIndex);
+            List<Integer> indexList = groupMap.get(codeSandbox);
+            List<ExecuteCodeRequest> groupRequestList = new ArrayList<>(indexList.size());
+            for (Integer index : indexList) {
+                groupRequestList.add(executeCodeRequestList.get(index));
+            }
+            List<ExecuteCodeResponse> groupResponseList = codeSandbox.executeBatch(groupRequestList);
+            for (int i = 0; i < indexList.size(); i++) {
+                responses[indexList.get(i)] = groupResponseList.get(i);
+            }
+            return null;
+        });
+        return Arrays.asList(responses);
+    }
+
+    private static CodeSandbox getCodeSandbox(String language) {
         if (LanguageConstant.JAVA.equals(language)) {
-            codeSandbox = (CodeSandbox) SpringContextUtils.getBean("javaDockerCodeSandBox");
+            return (CodeSandbox) SpringContextUtils.getBean("javaDockerCodeSandBox");
         } else if (LanguageConstant.PYTHON.equals(language)) {
-            codeSandbox = (CodeSandbox) SpringContextUtils.getBean("pythonDockerCodeSandBox");
+            return (CodeSandbox) SpringContextUtils.getBean("pythonDockerCodeSandBox");
         } else if (LanguageConstant.JAVASCRIPT.equals(language) || LanguageConstant.JS.equals(language)) {
-            codeSandbox = (CodeSandbox) SpringContextUtils.getBean("jsDockerCodeSandBox");
+            return (CodeSandbox) SpringContextUtils.getBean("jsDockerCodeSandBox");
         } else if (LanguageConstant.GCC.equals(language)) {
-            codeSandbox = (CodeSandbox) SpringContextUtils.getBean("gccDockerCodeSandBox");
+            return (CodeSandbox) SpringContextUtils.getBean("gccDockerCodeSandBox");
         } else if (LanguageConstant.CPP.equals(language) || LanguageConstant.CPLUSPLUS.equals(language)) {
-            codeSandbox = (CodeSandbox) SpringContextUtils.getBean("cppDockerCodeSandBox");
+            return (CodeSandbox) SpringContextUtils.getBean("cppDockerCodeSandBox");
         }
-        ThrowUtils.throwIf(codeSandbox == null, "编程语言非法");
-        return codeSandbox.executeCode(executeCodeRequest);
+        return null;
     }
 }
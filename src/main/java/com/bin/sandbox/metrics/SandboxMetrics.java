@@ -0,0 +1,167 @@
+package com.bin.sandbox.metrics;
+
+import com.bin.sandbox.config.MonitoredDockerHttpClient;
+import com.bin.sandbox.job.JobManager;
+import com.bin.sandbox.scheduler.AdmissionScheduler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 沙箱执行指标，经 actuator 的 Prometheus 端点导出。
+ * <p>
+ * 每个阶段一个计时器 {@code sandbox.phase}（直方图），按阶段、语言和结果打标签；整次提交记录为 {@code sandbox.submission}。
+ * 另有执行中提交数、准入排队数、异步任务队列长度和 Docker API 请求数等仪表。
+ */
+@Component
+public class SandboxMetrics {
+
+    public static final String PHASE_QUEUE = "queue";
+
+    public static final String PHASE_SAVE = "save";
+
+    public static final String PHASE_IMAGE_CHECK = "image_check";
+
+    public static final String PHASE_CONTAINER_CREATE = "container_create";
+
+    public static final String PHASE_CONTAINER_START = "container_start";
+
+    public static final String PHASE_COMPILE = "compile";
+
+    public static final String PHASE_EXEC = "exec";
+
+    public static final String PHASE_STATS = "stats";
+
+    public static final String PHASE_CLEANUP = "cleanup";
+
+    public static final String PHASE_DELETE = "delete";
+
+    public static final String OUTCOME_SUCCESS = "success";
+
+    public static final String OUTCOME_FAILURE = "failure";
+
+    public static final String OUTCOME_ERROR = "error";
+
+    public static final String OUTCOME_CACHED = "cached";
+
+    public static final String OUTCOME_TIMEOUT = "timeout";
+
+    public static final String OUTCOME_OUTPUT_LIMIT = "output_limit";
+
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    private static final String UNKNOWN_LANGUAGE = "unknown";
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private AdmissionScheduler admissionScheduler;
+
+    @Resource
+    private JobManager jobManager;
+
+    @Resource
+    private MonitoredDockerHttpClient dockerHttpClient;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("sandbox.submissions.in_flight", inFlight, AtomicInteger::get)
+                .description("执行中的提交数")
+                .register(meterRegistry);
+        Gauge.builder("sandbox.admission.running", admissionScheduler, scheduler -> scheduler.getStats().getRunning())
+                .description("已获准入的提交数")
+                .register(meterRegistry);
+        Gauge.builder("sandbox.admission.waiting", admissionScheduler, scheduler -> scheduler.getStats().getWaiting())
+                .description("准入排队中的提交数")
+                .register(meterRegistry);
+        Gauge.builder("sandbox.jobs.queue.size", jobManager, JobManager::getQueueSize)
+                .description("异步任务队列长度")
+                .register(meterRegistry);
+        Gauge.builder("sandbox.docker.requests.in_flight", dockerHttpClient, MonitoredDockerHttpClient::getInFlight)
+                .description("进行中的 Docker API 请求数")
+                .register(meterRegistry);
+        FunctionCounter.builder("sandbox.docker.requests", dockerHttpClient, MonitoredDockerHttpClient::getTotalRequests)
+                .description("Docker API 请求数")
+                .register(meterRegistry);
+        FunctionCounter.builder("sandbox.docker.requests.failed", dockerHttpClient,
+                        MonitoredDockerHttpClient::getFailedRequests)
+                .description("失败的 Docker API 请求数")
+                .register(meterRegistry);
+    }
+
+    public void submissionStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void submissionFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 记录整次提交耗时
+     *
+     * @param language    语言
+     * @param outcome     结果
+     * @param startNanos  开始时间（{@link System#nanoTime()}）
+     */
+    public void recordSubmission(String language, String outcome, long startNanos) {
+        Timer.builder("sandbox.submission")
+                .description("提交从准入到返回的耗时")
+                .tag("language", language == null ? UNKNOWN_LANGUAGE : language)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录阶段耗时
+     *
+     * @param phase         阶段
+     * @param language      语言
+     * @param outcome       结果
+     * @param durationNanos 耗时（纳秒）
+     */
+    public void recordPhase(String phase, String language, String outcome, long durationNanos) {
+        Timer.builder("sandbox.phase")
+                .description("提交各阶段耗时")
+                .tag("phase", phase)
+                .tag("language", language == null ? UNKNOWN_LANGUAGE : language)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 计时执行阶段，抛出异常时结果为 failure
+     *
+     * @param phase    阶段
+     * @param language 语言
+     * @param action   阶段动作
+     * @param <T>      结果类型
+     * @return 动作结果
+     */
+    public <T> T timePhase(String phase, String language, Supplier<T> action) {
+        long startNanos = System.nanoTime();
+        String outcome = OUTCOME_FAILURE;
+        try {
+            T result = action.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            recordPhase(phase, language, outcome, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.bin.sandbox.model;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 提交准入统计
+ */
+@Data
+public class AdmissionStats {
+
+    /**
+     * 是否启用准入控制
+     */
+    private Boolean enabled;
+
+    /**
+     * 同时执行的提交数上限
+     */
+    private Integer maxConcurrent;
+
+    /**
+     * 执行中的提交数
+     */
+    private Integer running;
+
+    /**
+     * 各语言执行中的提交数
+     */
+    private Map<String, Integer> languageRunning;
+
+    /**
+     * 排队中的提交数
+     */
+    private Integer waiting;
+
+    /**
+     * 容器内存总量上限（字节）
+     */
+    private Long memoryBudgetBytes;
+
+    /**
+     * 执行中提交占用的容器内存（字节）
+     */
+    private Long usedMemoryBytes;
+
+    /**
+     * 累计准入次数
+     */
+    private Long admittedCount;
+
+    /**
+     * 累计因排队已满被拒绝的次数
+     */
+    private Long rejectedCount;
+
+    /**
+     * 累计排队超时次数
+     */
+    private Long timeoutCount;
+
+    /**
+     * 平均排队时间（毫秒）
+     */
+    private Long avgQueueTimeMs;
+
+    /**
+     * 最长排队时间（毫秒）
+     */
+    private Long maxQueueTimeMs;
+}
@@ -0,0 +1,35 @@
+package com.bin.sandbox.model;
+
+import lombok.Data;
+
+/**
+ * 编译缓存统计
+ */
+@Data
+public class CompileCacheStats {
+
+    /**
+     * 命中次数
+     */
+    private Long hitCount;
+
+    /**
+     * 未命中次数
+     */
+    private Long missCount;
+
+    /**
+     * 淘汰次数
+     */
+    private Long evictionCount;
+
+    /**
+     * 缓存条目数
+     */
+    private Integer entryCount;
+
+    /**
+     * 缓存占用字节数
+     */
+    private Long sizeBytes;
+}
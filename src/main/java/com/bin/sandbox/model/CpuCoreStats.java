@@ -0,0 +1,47 @@
+package com.bin.sandbox.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * CPU 核心分配统计
+ */
+@Data
+public class CpuCoreStats {
+
+    /**
+     * 是否启用核心绑定
+     */
+    private Boolean enabled;
+
+    /**
+     * 参与用例分配的核心
+     */
+    private List<Integer> runCores;
+
+    /**
+     * 编译及空闲容器使用的 cpuset
+     */
+    private String sharedCpuset;
+
+    /**
+     * 空闲核心数
+     */
+    private Integer freeCount;
+
+    /**
+     * 等待核心的用例数
+     */
+    private Integer waitingCount;
+
+    /**
+     * 累计分配次数
+     */
+    private Long acquireCount;
+
+    /**
+     * 累计需要排队的分配次数
+     */
+    private Long queuedCount;
+}
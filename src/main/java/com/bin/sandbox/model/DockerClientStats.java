@@ -0,0 +1,40 @@
+package com.bin.sandbox.model;
+
+import lombok.Data;
+
+/**
+ * Docker 客户端连接池统计
+ */
+@Data
+public class DockerClientStats {
+
+    /**
+     * 最大连接数
+     */
+    private Integer maxConnections;
+
+    /**
+     * 当前占用连接数
+     */
+    private Integer inFlight;
+
+    /**
+     * 历史峰值占用连接数
+     */
+    private Integer peakInFlight;
+
+    /**
+     * 请求总数
+     */
+    private Long totalRequests;
+
+    /**
+     * 因连接占满而需要排队的请求数
+     */
+    private Long saturatedRequests;
+
+    /**
+     * 失败请求数
+     */
+    private Long failedRequests;
+}
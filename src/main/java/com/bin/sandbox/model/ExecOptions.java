@@ -0,0 +1,67 @@
+package com.bin.sandbox.model;
+
+import com.bin.sandbox.judge.OutputHasher;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 容器命令执行选项
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecOptions {
+
+    /**
+     * 超时时间（毫秒），按 CPU 时间限制时为 CPU 时间上限
+     */
+    private long timeoutMs;
+
+    /**
+     * 是否采集峰值内存
+     */
+    private boolean trackMemory;
+
+    /**
+     * 超时是否抛出异常（编译阶段）
+     */
+    private boolean failOnTimeout;
+
+    /**
+     * 容器内用户，为空时使用镜像默认用户
+     */
+    private String user;
+
+    /**
+     * 是否按 CPU 时间判定超时，无法读取 cgroup CPU 统计时退回墙钟时间
+     */
+    private boolean cpuTimeLimit;
+
+    /**
+     * 标准输出、标准错误各自的字节上限，超出后立即结束进程，不大于 0 时使用默认上限
+     */
+    private int outputLimit;
+
+    /**
+     * 已规范化的期望输出，不为空时边读取边比对标准输出，不保留输出内容
+     */
+    private String expectedOutput;
+
+    /**
+     * 是否在输出缓冲区上原地规范化标准输出
+     */
+    private boolean normalizeStdout;
+
+    /**
+     * 期望输出的哈希，不为空时只计算标准输出的滚动哈希进行比对，不比对逐行内容
+     */
+    private OutputHasher expectedOutputHash;
+
+    /**
+     * 容器内存上限（字节），用于判定是否超出内存限制，不大于 0 时使用默认上限
+     */
+    private long memoryLimit;
+}
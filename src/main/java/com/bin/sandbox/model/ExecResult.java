@@ -32,4 +32,49 @@ public class ExecResult {
      * 峰值内存
      */
     private Long maxMemory;
+
+    /**
+     * CPU 时间（用户态 + 内核态，毫秒），无法读取 cgroup 统计时为空
+     */
+    private Long cpuTime;
+
+    /**
+     * 同进程模式下用例线程分配的堆内存字节数，逐进程模式为空
+     */
+    private Long allocatedBytes;
+
+    /**
+     * 运行时的容器内存上限（字节），为空时为默认上限
+     */
+    private Long memoryLimit;
+
+    /**
+     * 是否被内核因超出内存上限结束，无法判断时为空
+     */
+    private Boolean oomKilled;
+
+    /**
+     * 是否超时
+     */
+    private Boolean timeout;
+
+    /**
+     * 输出是否超出上限
+     */
+    private Boolean outputLimitExceeded;
+
+    /**
+     * 标准输出是否与期望输出一致，未提供期望输出时为空
+     */
+    private Boolean outputMatched;
+
+    /**
+     * 首个不一致处的说明
+     */
+    private String mismatchMessage;
+
+    /**
+     * 运行时绑定的核心，未启用核心绑定时为空
+     */
+    private Integer cpuCore;
 }
@@ -1,5 +1,6 @@
 package com.bin.sandbox.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,4 +19,30 @@ public class ExecuteCodeRequest {
     private String code;
 
     private String language;
+
+    /**
+     * 期望输出，与输入一一对应；提供时在沙箱内比对并返回每个用例的判定结果，不再返回程序输出
+     */
+    private List<String> expectedOutputList;
+
+    /**
+     * 是否快速失败：遇到首个失败用例后不再运行后续用例
+     */
+    private Boolean failFast;
+
+    /**
+     * 每个用例的时间限制（毫秒），为空时使用默认限制，实际限制再乘以语言的时间倍数
+     */
+    private Long timeLimitMs;
+
+    /**
+     * 内存限制（MB），为空时使用默认限制，实际限制再乘以语言的内存倍数
+     */
+    private Long memoryLimitMb;
+
+    /**
+     * 调用方标识，由服务端按客户端地址填写，排队时在调用方之间轮转
+     */
+    @JsonIgnore
+    private String caller;
 }
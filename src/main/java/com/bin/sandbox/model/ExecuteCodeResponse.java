@@ -15,6 +15,16 @@ public class ExecuteCodeResponse {
 
     private List<String> outputList;
 
+    /**
+     * 每个用例的判定结果（AC / WA / TLE / MLE / RE / OLE），仅在请求提供期望输出时返回
+     */
+    private List<String> verdictList;
+
+    /**
+     * 每个用例运行时绑定的核心，仅在启用核心绑定时返回
+     */
+    private List<Integer> cpuCoreList;
+
     /**
      * 接口信息
      */
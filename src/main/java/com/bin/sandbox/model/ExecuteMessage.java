@@ -17,4 +17,18 @@ public class ExecuteMessage {
     private Long time;
 
     private Long memory;
+
+    private Long cpuTime;
+
+    private Long allocatedBytes;
+
+    private Boolean timeout;
+
+    private Boolean outputLimitExceeded;
+
+    private String verdict;
+
+    private String mismatchMessage;
+
+    private Integer cpuCore;
 }
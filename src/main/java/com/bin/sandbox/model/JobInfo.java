@@ -0,0 +1,40 @@
+package com.bin.sandbox.model;
+
+import lombok.Data;
+
+/**
+ * 异步判题任务信息
+ */
+@Data
+public class JobInfo {
+
+    /**
+     * 任务 id
+     */
+    private String jobId;
+
+    /**
+     * 任务状态：PENDING / RUNNING / FINISHED
+     */
+    private String status;
+
+    /**
+     * 执行结果，任务完成后返回
+     */
+    private ExecuteCodeResponse response;
+
+    /**
+     * 提交时间
+     */
+    private Long submitTime;
+
+    /**
+     * 开始执行时间
+     */
+    private Long startTime;
+
+    /**
+     * 完成时间
+     */
+    private Long finishTime;
+}
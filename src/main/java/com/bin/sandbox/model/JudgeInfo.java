@@ -22,4 +22,14 @@ public class JudgeInfo {
      * 消耗时间（KB）
      */
     private Long time;
+
+    /**
+     * 消耗 CPU 时间（毫秒）
+     */
+    private Long cpuTime;
+
+    /**
+     * 同进程模式下用例线程分配的最大堆内存字节数，逐进程模式为空
+     */
+    private Long allocatedBytes;
 }
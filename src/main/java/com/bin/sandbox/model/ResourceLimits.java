@@ -0,0 +1,29 @@
+package com.bin.sandbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 按请求和语言限制倍数计算出的单次提交资源限制
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceLimits {
+
+    /**
+     * 每个用例的时间限制（毫秒），按 CPU 时间限制时为 CPU 时间上限
+     */
+    private long timeLimitMs;
+
+    /**
+     * 用户程序可用的内存（字节），JVM 语言的堆上限
+     */
+    private long memoryLimitBytes;
+
+    /**
+     * 容器内存上限（字节），包含虚拟机、解释器自身的开销
+     */
+    private long containerMemoryBytes;
+}
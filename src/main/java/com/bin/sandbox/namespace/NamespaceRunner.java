@@ -0,0 +1,507 @@
+package com.bin.sandbox.namespace;
+
+import com.bin.sandbox.cgroup.SubmissionCgroup;
+import com.bin.sandbox.config.ExecutionProperties;
+import com.bin.sandbox.config.NamespaceProperties;
+import com.bin.sandbox.judge.OutputComparator;
+import com.bin.sandbox.judge.OutputHasher;
+import com.bin.sandbox.model.ExecOptions;
+import com.bin.sandbox.model.ExecResult;
+import com.bin.sandbox.utils.BoundedOutputBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StopWatch;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * 命名空间执行器，不经过 Docker 守护进程直接在本机运行命令。
+ * <p>
+ * 每个提交先准备一个命名空间：以映射的 root 新建 user、mount、net、uts 命名空间，把语言根文件系统只读绑定到自身，
+ * 工作目录挂到 /app（运行阶段只读），/tmp 为 tmpfs，再绑定 /dev 下的常用设备，之后由一个常驻进程持有这些命名空间。
+ * 每条命令进入该命名空间后再新建嵌套的 user、mount、pid、ipc 命名空间，以无特权的 65534 用户 chroot 执行，
+ * 只需挂载新的 /proc，单次启动为几毫秒；pid 命名空间的 init 结束时内核结束其余全部进程，用例之间没有残留。
+ * 耗时、CPU 时间和峰值内存直接取自用例自己的 cgroup。
+ */
+@Slf4j
+@Component
+public class NamespaceRunner {
+
+    private static final String DEFAULT_PATH = "/usr/local/sbin:/usr/local/bin:/usr/sbin:/usr/bin:/sbin:/bin";
+
+    /**
+     * 把自身移入用例 cgroup 后执行后续命令，之后派生的进程都在该 cgroup 内
+     */
+    private static final String ENTER_SCRIPT = "echo 0 > \"$1/cgroup.procs\" && shift && exec \"$@\"";
+
+    private static final String READY_LINE = "ready";
+
+    /**
+     * 在新的 mount 命名空间内准备根文件系统，完成后输出 {@link #READY_LINE} 并由 sleep 常驻持有命名空间
+     */
+    private static final String PREPARE_SCRIPT = "r=$1; w=$2; m=$3; s=$4; "
+            + "mount --rbind \"$r\" \"$r\" && mount -o remount,bind,ro,nosuid,nodev \"$r\" "
+            + "&& mount --bind \"$w\" \"$r/app\" "
+            + "&& { [ \"$m\" = rw ] || mount -o remount,bind,ro,nosuid,nodev \"$r/app\"; } "
+            + "&& mount -t tmpfs -o size=\"$s\"m,nosuid,nodev tmpfs \"$r/tmp\" "
+            + "&& for d in null zero random urandom; do mount --bind \"/dev/$d\" \"$r/dev/$d\" || exit 1; done "
+            + "&& echo " + READY_LINE + " && exec sleep infinity";
+
+    private static final String[] PREPARE_OPTIONS = {"--user", "--map-root-user", "--mount", "--net", "--uts"};
+
+    private static final String[] ENTER_OPTIONS = {"--user", "--mount", "--net", "--uts"};
+
+    /**
+     * 嵌套的 user 命名空间只映射 65534，用户程序没有任何特权，无法重新挂载只读目录
+     */
+    private static final String[] EXEC_OPTIONS = {
+            "--user", "--map-user=65534", "--map-group=65534", "--mount", "--pid", "--ipc", "--fork", "--kill-child",
+            "--mount-proc=/proc"
+    };
+
+    /**
+     * pid 命名空间的 init，不 exec 用户程序，程序被信号结束时与 docker exec 一样以 128 + 信号值退出
+     */
+    private static final String[] INIT_COMMAND = {"/bin/sh", "-c", "\"$@\"", "sh"};
+
+    /**
+     * 导出根文件系统时保存的镜像环境变量，每行一个 KEY=VALUE
+     */
+    private static final String ENV_FILE_NAME = ".sandbox-env";
+
+    private static final long CPU_POLL_INTERVAL = 20L;
+
+    private static final long DRAIN_TIMEOUT = 1000L;
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private static final int DEFAULT_OUTPUT_LIMIT = 4 * 1024 * 1024;
+
+    private static final int SIGKILL_EXIT_CODE = 137;
+
+    @Resource
+    private NamespaceProperties namespaceProperties;
+
+    @Resource
+    private ExecutionProperties executionProperties;
+
+    private final Map<Path, List<String>> rootfsEnvCache = new ConcurrentHashMap<>();
+
+    private ExecutorService ioExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        Path root = Paths.get(namespaceProperties.getCgroupRoot());
+        try {
+            Files.createDirectories(root);
+            // 清理上次异常退出遗留的提交目录
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(root, Files::isDirectory)) {
+                for (Path child : children) {
+                    SubmissionCgroup.destroy(child);
+                }
+            }
+            Files.write(root.resolve("cgroup.subtree_control"),
+                    SubmissionCgroup.CONTROLLERS.getBytes(StandardCharsets.US_ASCII), StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("命名空间后端初始化失败，cgroup 目录不可用: " + root, e);
+        }
+        ioExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "namespace-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("命名空间执行后端: 根文件系统目录 = {}, cgroup = {}", namespaceProperties.getRootfsDirectory(), root);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (ioExecutor != null) {
+            ioExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 是否启用命名空间后端
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return namespaceProperties.isEnabled();
+    }
+
+    /**
+     * 为一次提交新建 cgroup
+     *
+     * @param caseMemoryLimit 单个用例的内存上限（字节）
+     * @param laneCount       同时运行的用例数
+     * @return 提交 cgroup，用完后关闭
+     */
+    public SubmissionCgroup createCgroup(long caseMemoryLimit, int laneCount) {
+        return SubmissionCgroup.create(Paths.get(namespaceProperties.getCgroupRoot()), caseMemoryLimit, laneCount,
+                namespaceProperties.getPidsLimit());
+    }
+
+    /**
+     * 为一次提交准备命名空间，挂载根文件系统和工作目录，常驻进程放在单独的子 cgroup 中
+     *
+     * @param submissionCgroup 提交 cgroup
+     * @param language         语言，对应根文件系统子目录
+     * @param workspace        挂载到 /app 的工作目录
+     * @param writable         /app 是否可写（编译阶段）
+     * @return 命名空间，用完后关闭
+     */
+    public Workspace prepare(SubmissionCgroup submissionCgroup, String language, File workspace, boolean writable) {
+        Path rootfs = getRootfs(language);
+        List<String> command = new ArrayList<>(Arrays.asList("sh", "-c", ENTER_SCRIPT, "sh"));
+        SubmissionCgroup.Case holderCgroup = submissionCgroup.createCase();
+        command.add(holderCgroup.getDir().toString());
+        command.add("unshare");
+        command.addAll(Arrays.asList(PREPARE_OPTIONS));
+        command.addAll(Arrays.asList("sh", "-c", PREPARE_SCRIPT, "sh", rootfs.toString(), workspace.getAbsolutePath(),
+                writable ? "rw" : "ro", String.valueOf(namespaceProperties.getTmpfsSizeMb())));
+        Process process = null;
+        try {
+            process = startProcess(command);
+            process.getOutputStream().close();
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            if (!READY_LINE.equals(reader.readLine())) {
+                process.waitFor(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+                throw new RuntimeException("准备命名空间失败: " + readAll(process.getErrorStream()).trim());
+            }
+            // 脚本一路 exec 到 sleep，cgroup 内只有这一个进程
+            long pid = holderCgroup.readProcessId();
+            if (pid < 0) {
+                throw new RuntimeException("准备命名空间失败: 未找到常驻进程");
+            }
+            return new Workspace(rootfs, holderCgroup, process, pid);
+        } catch (IOException e) {
+            closeQuietly(holderCgroup, process);
+            throw new RuntimeException("启动进程失败: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            closeQuietly(holderCgroup, process);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("执行被中断", e);
+        } catch (RuntimeException e) {
+            closeQuietly(holderCgroup, process);
+            throw e;
+        }
+    }
+
+    /**
+     * 在准备好的命名空间和新的用例 cgroup 中执行命令
+     * <p>
+     * 开启 CPU 时间限制时每隔 {@link #CPU_POLL_INTERVAL} 毫秒读取一次用例 cgroup 的 CPU 时间，
+     * 超过上限或墙钟时间超过上限乘以倍数即判定超时；输出超限或超时后结束用例 cgroup 内全部进程。
+     *
+     * @param submissionCgroup 提交 cgroup
+     * @param workspace        {@link #prepare} 准备的命名空间，可被多个用例同时使用
+     * @param cmd              命令
+     * @param input            标准输入，为 null 时不写入
+     * @param options          执行选项，不支持切换用户
+     * @return 执行结果
+     */
+    public ExecResult exec(SubmissionCgroup submissionCgroup, Workspace workspace, String[] cmd, String input,
+                           ExecOptions options) {
+        int outputLimit = options.getOutputLimit() > 0 ? options.getOutputLimit() : DEFAULT_OUTPUT_LIMIT;
+        BoundedOutputBuffer stdout = new BoundedOutputBuffer(outputLimit);
+        BoundedOutputBuffer stderr = new BoundedOutputBuffer(outputLimit);
+        OutputComparator outputComparator = options.getExpectedOutput() == null
+                ? null
+                : new OutputComparator(options.getExpectedOutput(), outputLimit);
+        OutputHasher outputHasher = options.getExpectedOutputHash() == null
+                ? null
+                : new OutputHasher(outputLimit);
+        Predicate<byte[]> stdoutSink;
+        if (outputComparator != null) {
+            stdoutSink = outputComparator::append;
+        } else if (outputHasher != null) {
+            stdoutSink = outputHasher::append;
+        } else {
+            stdoutSink = stdout::append;
+        }
+        AtomicBoolean overflow = new AtomicBoolean();
+
+        SubmissionCgroup.Case caseCgroup = submissionCgroup.createCase();
+        Process process = null;
+        try {
+            List<String> command = buildCommand(caseCgroup.getDir(), workspace, cmd);
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            process = startProcess(command);
+            Process started = process;
+            ioExecutor.submit(() -> writeInput(started, input));
+            Future<?> stdoutFuture = ioExecutor.submit(() -> pump(started.getInputStream(), stdoutSink, overflow));
+            Future<?> stderrFuture = ioExecutor.submit(() -> pump(started.getErrorStream(), stderr::append, overflow));
+            boolean completed = awaitProcess(process, caseCgroup, options, overflow);
+            if (!completed || overflow.get()) {
+                kill(caseCgroup, process);
+            }
+            process.waitFor();
+            stopWatch.stop();
+            drain(stdoutFuture);
+            drain(stderrFuture);
+            if (!completed && options.isFailOnTimeout()) {
+                throw new RuntimeException("执行超时");
+            }
+
+            long cpuUsage = caseCgroup.readCpuUsageMicros();
+            long memoryPeak = caseCgroup.readMemoryPeak();
+            ExecResult result = new ExecResult();
+            // 内核按内存上限结束进程时，退出码以 OOM 事件为准
+            boolean oomKilled = caseCgroup.readOomKillCount() > 0;
+            result.setOomKilled(oomKilled);
+            result.setExitCode(oomKilled ? SIGKILL_EXIT_CODE : process.exitValue());
+            result.setStdout(options.isNormalizeStdout() ? stdout.toNormalizedString() : stdout.toString());
+            result.setStderr(stderr.toString());
+            result.setTime(stopWatch.getLastTaskTimeMillis());
+            result.setMaxMemory(Math.max(memoryPeak, 0L));
+            if (options.getMemoryLimit() > 0) {
+                result.setMemoryLimit(options.getMemoryLimit());
+            }
+            long cpuTime = cpuUsage < 0 ? -1L : cpuUsage / 1000L;
+            if (cpuTime >= 0) {
+                result.setCpuTime(cpuTime);
+            }
+            // 最后一个轮询间隔内结束但 CPU 时间已超限的同样判定为超时
+            boolean cpuExceeded = options.isCpuTimeLimit() && cpuTime > options.getTimeoutMs();
+            result.setTimeout(!completed || cpuExceeded);
+            result.setOutputLimitExceeded(stdout.isOverflow() || stderr.isOverflow()
+                    || (outputComparator != null && outputComparator.isOverflow())
+                    || (outputHasher != null && outputHasher.isOverflow()));
+            if (outputComparator != null) {
+                outputComparator.finish();
+                result.setOutputMatched(outputComparator.isMatched());
+                result.setMismatchMessage(outputComparator.getMismatchMessage());
+            }
+            if (outputHasher != null) {
+                boolean matched = outputHasher.matches(options.getExpectedOutputHash());
+                result.setOutputMatched(matched);
+                result.setMismatchMessage(matched ? null : "输出哈希不一致");
+            }
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("启动进程失败: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("执行被中断", e);
+        } finally {
+            if (process != null && process.isAlive()) {
+                kill(caseCgroup, process);
+            }
+            caseCgroup.close();
+        }
+    }
+
+    /**
+     * 组装宿主机上执行的完整命令：进入用例 cgroup 和准备好的命名空间，新建嵌套命名空间后以镜像的环境变量执行命令
+     */
+    private List<String> buildCommand(Path caseDir, Workspace workspace, String[] cmd) {
+        List<String> command = new ArrayList<>(Arrays.asList("sh", "-c", ENTER_SCRIPT, "sh", caseDir.toString(),
+                "nsenter", "--target", String.valueOf(workspace.pid)));
+        command.addAll(Arrays.asList(ENTER_OPTIONS));
+        command.add("unshare");
+        command.addAll(Arrays.asList(EXEC_OPTIONS));
+        command.add("--root=" + workspace.rootfs);
+        command.add("--wd=/app");
+        command.addAll(Arrays.asList(INIT_COMMAND));
+        command.addAll(Arrays.asList("/usr/bin/env", "-i"));
+        command.addAll(getRootfsEnv(workspace.rootfs));
+        command.addAll(Arrays.asList(cmd));
+        return command;
+    }
+
+    private Process startProcess(List<String> command) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.environment().clear();
+        processBuilder.environment().put("PATH", DEFAULT_PATH);
+        return processBuilder.start();
+    }
+
+    /**
+     * 获取语言的根文件系统
+     *
+     * @param language 语言
+     * @return 根文件系统目录
+     */
+    private Path getRootfs(String language) {
+        if (language == null) {
+            throw new RuntimeException("命名空间后端不支持未指定语言的沙箱");
+        }
+        Path rootfs = Paths.get(namespaceProperties.getRootfsDirectory(), language);
+        if (!Files.isDirectory(rootfs.resolve("app"))) {
+            throw new RuntimeException("语言根文件系统不存在或未按 docker/export-rootfs.sh 导出: " + rootfs);
+        }
+        return rootfs;
+    }
+
+    /**
+     * 读取镜像的环境变量，未保存时只设置默认 PATH
+     */
+    private List<String> getRootfsEnv(Path rootfs) {
+        return rootfsEnvCache.computeIfAbsent(rootfs, key -> {
+            Path envFile = key.resolve(ENV_FILE_NAME);
+            if (!Files.isRegularFile(envFile)) {
+                return Collections.singletonList("PATH=" + DEFAULT_PATH);
+            }
+            List<String> env = new ArrayList<>();
+            try {
+                for (String line : Files.readAllLines(envFile, StandardCharsets.UTF_8)) {
+                    if (line.indexOf('=') > 0) {
+                        env.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("读取根文件系统环境变量失败: " + envFile, e);
+            }
+            return env;
+        });
+    }
+
+    /**
+     * 按 CPU 时间或墙钟时间等待进程结束，输出超限时提前返回
+     *
+     * @return 是否在限制内结束
+     */
+    private boolean awaitProcess(Process process, SubmissionCgroup.Case caseCgroup, ExecOptions options,
+                                 AtomicBoolean overflow) throws InterruptedException {
+        boolean cpuTimeLimit = options.isCpuTimeLimit();
+        long wallLimitMs = cpuTimeLimit
+                ? (long) (options.getTimeoutMs() * executionProperties.getWallTimeFactor())
+                : options.getTimeoutMs();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wallLimitMs);
+        while (!process.waitFor(CPU_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (overflow.get()) {
+                return true;
+            }
+            if (cpuTimeLimit && caseCgroup.readCpuUsageMicros() > options.getTimeoutMs() * 1000L) {
+                return false;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 结束用例内全部进程，内核不支持 cgroup.kill 时结束 unshare，由 --kill-child 带走 pid 命名空间
+     */
+    private static void kill(SubmissionCgroup.Case caseCgroup, Process process) {
+        if (!caseCgroup.kill()) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static void closeQuietly(SubmissionCgroup.Case caseCgroup, Process process) {
+        if (process != null) {
+            kill(caseCgroup, process);
+        }
+        caseCgroup.close();
+    }
+
+    private static String readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void writeInput(Process process, String input) {
+        try (OutputStream stdin = process.getOutputStream()) {
+            if (input != null) {
+                String normalized = input.endsWith("\n") ? input : input + "\n";
+                stdin.write(normalized.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException ignored) {
+            // 程序未读完输入即退出
+        }
+    }
+
+    /**
+     * 读取输出直到结束或超出上限，超出后不再读取，由等待线程结束进程
+     */
+    private void pump(InputStream inputStream, Predicate<byte[]> sink, AtomicBoolean overflow) {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (InputStream stream = inputStream) {
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                if (!sink.test(Arrays.copyOf(buffer, read))) {
+                    overflow.set(true);
+                    return;
+                }
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void drain(Future<?> future) throws InterruptedException {
+        try {
+            future.get(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 已挂载好根文件系统和工作目录的命名空间，关闭时结束常驻进程，挂载随命名空间一起释放
+     */
+    public static class Workspace implements Closeable {
+
+        private final Path rootfs;
+
+        private final SubmissionCgroup.Case holderCgroup;
+
+        private final Process process;
+
+        private final long pid;
+
+        Workspace(Path rootfs, SubmissionCgroup.Case holderCgroup, Process process, long pid) {
+            this.rootfs = rootfs;
+            this.holderCgroup = holderCgroup;
+            this.process = process;
+            this.pid = pid;
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(holderCgroup, process);
+        }
+    }
+}
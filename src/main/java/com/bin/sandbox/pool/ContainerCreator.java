@@ -0,0 +1,19 @@
+package com.bin.sandbox.pool;
+
+import com.github.dockerjava.api.DockerClient;
+
+/**
+ * 池化容器创建器，由各语言沙箱提供容器规格。
+ */
+@FunctionalInterface
+public interface ContainerCreator {
+
+    /**
+     * 创建并启动容器
+     *
+     * @param dockerClient  docker 客户端
+     * @param workspacePath 挂载到 /app 的宿主机目录
+     * @return 容器 id
+     */
+    String create(DockerClient dockerClient, String workspacePath);
+}
@@ -0,0 +1,235 @@
+package com.bin.sandbox.pool;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.UUID;
+import com.bin.sandbox.config.ContainerPoolProperties;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.core.command.ExecStartResultCallback;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个镜像的预热容器池。
+ * <p>
+ * 容器在后台预先创建并启动，提交时直接租用；归还时清理进程与工作目录后放回池中，
+ * 达到最大复用次数或执行异常的容器直接退役，由后台补充线程重建。
+ */
+@Slf4j
+public class ContainerPool {
+
+    /**
+     * 清理命令：结束除保活进程外的全部进程，清空工作目录、临时目录、共享内存和消息队列，仍有残留时以非 0 退出
+     */
+    public static final String[] SCRUB_COMMAND = {"sh", "-c",
+            "kill -9 -1 2>/dev/null; find /app /tmp /dev/shm /dev/mqueue -mindepth 1 -delete 2>/dev/null; "
+                    + "test -z \"$(find /app /tmp /dev/shm /dev/mqueue -mindepth 1 2>/dev/null | head -n 1)\""};
+
+    private static final long SCRUB_TIMEOUT = 5000L;
+
+    private final String image;
+
+    private final DockerClient dockerClient;
+
+    private final String workspaceRoot;
+
+    private final ContainerPoolProperties properties;
+
+    private final ContainerCreator containerCreator;
+
+    private final ExecutorService maintainExecutor;
+
+    private final BlockingDeque<PooledContainer> idleContainers = new LinkedBlockingDeque<>();
+
+    /**
+     * 空闲 + 租用中 + 创建中的容器总数
+     */
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    private volatile boolean closed = false;
+
+    public ContainerPool(String image, DockerClient dockerClient, String workspaceRoot,
+                         ContainerPoolProperties properties, ContainerCreator containerCreator,
+                         ExecutorService maintainExecutor) {
+        this.image = image;
+        this.dockerClient = dockerClient;
+        this.workspaceRoot = workspaceRoot;
+        this.properties = properties;
+        this.containerCreator = containerCreator;
+        this.maintainExecutor = maintainExecutor;
+    }
+
+    /**
+     * 租用容器，优先取最近归还的热容器，池未满时同步创建，否则等待归还。
+     *
+     * @return 池化容器
+     */
+    public PooledContainer lease() {
+        if (closed) {
+            throw new RuntimeException("容器池已关闭: " + image);
+        }
+        PooledContainer container = idleContainers.pollFirst();
+        if (container != null) {
+            return container;
+        }
+        if (tryReserve()) {
+            return createReserved();
+        }
+        try {
+            container = idleContainers.pollFirst(properties.getLeaseTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("租用容器被中断", e);
+        }
+        if (container == null) {
+            throw new RuntimeException("容器池繁忙，请稍后重试: " + image);
+        }
+        return container;
+    }
+
+    /**
+     * 尝试租用容器，没有空闲容器且池已满时立即返回 null
+     *
+     * @return 池化容器
+     */
+    public PooledContainer tryLease() {
+        if (closed) {
+            return null;
+        }
+        PooledContainer container = idleContainers.pollFirst();
+        if (container != null) {
+            return container;
+        }
+        return tryReserve() ? createReserved() : null;
+    }
+
+    /**
+     * 归还容器
+     *
+     * @param container 池化容器
+     * @param reusable  是否可以复用（执行过程中出现异常时不复用）
+     */
+    public void release(PooledContainer container, boolean reusable) {
+        if (container == null) {
+            return;
+        }
+        container.setUseCount(container.getUseCount() + 1);
+        if (closed || !reusable || container.getUseCount() >= properties.getMaxUses()) {
+            maintainExecutor.execute(() -> retire(container));
+            return;
+        }
+        maintainExecutor.execute(() -> {
+            if (scrub(container)) {
+                idleContainers.offerFirst(container);
+            } else {
+                retire(container);
+            }
+        });
+    }
+
+    /**
+     * 补充空闲容器至最小空闲数
+     */
+    public void refill() {
+        while (!closed && idleContainers.size() < properties.getMinIdle() && tryReserve()) {
+            try {
+                idleContainers.offerLast(createReserved());
+            } catch (Exception e) {
+                log.warn("预热容器创建失败, image = {}, error = {}", image, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 关闭容器池并移除空闲容器，租用中的容器在归还时移除
+     */
+    public void close() {
+        closed = true;
+        PooledContainer container;
+        while ((container = idleContainers.pollFirst()) != null) {
+            retire(container);
+        }
+    }
+
+    public int getIdleCount() {
+        return idleContainers.size();
+    }
+
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int current = totalCount.get();
+            if (current >= properties.getMaxSize()) {
+                return false;
+            }
+            if (totalCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledContainer createReserved() {
+        String workspacePath = workspaceRoot + File.separator + UUID.randomUUID();
+        FileUtil.mkdir(workspacePath);
+        try {
+            String containerId = containerCreator.create(dockerClient, workspacePath);
+            PooledContainer container = new PooledContainer();
+            container.setContainerId(containerId);
+            container.setImage(image);
+            container.setWorkspacePath(workspacePath);
+            container.setCreateTime(System.currentTimeMillis());
+            return container;
+        } catch (RuntimeException e) {
+            totalCount.decrementAndGet();
+            FileUtil.del(workspacePath);
+            throw e;
+        }
+    }
+
+    private boolean scrub(PooledContainer container) {
+        try {
+            ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(container.getContainerId())
+                    .withCmd(SCRUB_COMMAND)
+                    .withAttachStdout(true)
+                    .withAttachStderr(true)
+                    .exec();
+            boolean completed = dockerClient.execStartCmd(execCreateCmdResponse.getId())
+                    .exec(new ExecStartResultCallback())
+                    .awaitCompletion(SCRUB_TIMEOUT, TimeUnit.MILLISECONDS);
+            if (!completed) {
+                return false;
+            }
+            Long exitCode = dockerClient.inspectExecCmd(execCreateCmdResponse.getId()).exec().getExitCodeLong();
+            return exitCode != null && exitCode == 0 && FileUtil.isDirEmpty(new File(container.getWorkspacePath()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("容器清理失败, containerId = {}, error = {}", container.getContainerId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void retire(PooledContainer container) {
+        try {
+            dockerClient.removeContainerCmd(container.getContainerId())
+                    .withForce(true)
+                    .exec();
+        } catch (Exception e) {
+            log.warn("容器移除失败, containerId = {}, error = {}", container.getContainerId(), e.getMessage());
+        } finally {
+            FileUtil.del(container.getWorkspacePath());
+            totalCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.bin.sandbox.pool;
+
+import com.bin.sandbox.config.ContainerPoolProperties;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 容器池管理器，按镜像维护预热容器池并负责后台补充。
+ */
+@Slf4j
+@Component
+public class ContainerPoolManager {
+
+    /**
+     * 池化容器标签，用于启动时清理上次遗留的容器
+     */
+    public static final String POOL_LABEL = "boj-sandbox.pool";
+
+    private static final String GLOBAL_CODE_DIR_NAME = "tmpCode";
+
+    private static final String POOL_DIR_NAME = "pool";
+
+    @Resource
+    private ContainerPoolProperties containerPoolProperties;
+
+    @Resource
+    private DockerClient dockerClient;
+
+    private final Map<String, ContainerPool> poolMap = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService refillScheduler;
+
+    private ExecutorService maintainExecutor;
+
+    private String workspaceRoot;
+
+    @PostConstruct
+    public void init() {
+        if (!containerPoolProperties.isEnabled()) {
+            return;
+        }
+        workspaceRoot = System.getProperty("user.dir") + File.separator + GLOBAL_CODE_DIR_NAME
+                + File.separator + POOL_DIR_NAME;
+        maintainExecutor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "container-pool-maintain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refillScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "container-pool-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refillScheduler.execute(this::removeOrphanContainers);
+        refillScheduler.scheduleWithFixedDelay(this::refillAll, 0,
+                containerPoolProperties.getRefillIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 是否启用容器池
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return containerPoolProperties.isEnabled();
+    }
+
+    /**
+     * 注册镜像对应的容器池，同一镜像只注册一次
+     *
+     * @param image            镜像名
+     * @param containerCreator 容器创建器
+     */
+    public void registerPool(String image, ContainerCreator containerCreator) {
+        if (!isEnabled()) {
+            return;
+        }
+        poolMap.computeIfAbsent(image, key -> new ContainerPool(key, dockerClient, workspaceRoot,
+                containerPoolProperties, containerCreator, maintainExecutor));
+    }
+
+    /**
+     * 获取镜像对应的容器池
+     *
+     * @param image 镜像名
+     * @return 容器池
+     */
+    public ContainerPool getPool(String image) {
+        ContainerPool pool = poolMap.get(image);
+        if (pool == null) {
+            throw new RuntimeException("镜像未注册容器池: " + image);
+        }
+        return pool;
+    }
+
+    public Map<String, ContainerPool> getPools() {
+        return Collections.unmodifiableMap(poolMap);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (refillScheduler != null) {
+            refillScheduler.shutdownNow();
+        }
+        poolMap.values().forEach(ContainerPool::close);
+        if (maintainExecutor != null) {
+            maintainExecutor.shutdown();
+        }
+    }
+
+    private void refillAll() {
+        for (ContainerPool pool : poolMap.values()) {
+            pool.refill();
+        }
+    }
+
+    private void removeOrphanContainers() {
+        try {
+            List<Container> containers = dockerClient.listContainersCmd()
+                    .withShowAll(true)
+                    .withLabelFilter(Collections.singletonList(POOL_LABEL))
+                    .exec();
+            for (Container container : containers) {
+                dockerClient.removeContainerCmd(container.getId()).withForce(true).exec();
+            }
+        } catch (Exception e) {
+            log.warn("清理遗留池化容器失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.bin.sandbox.pool;
+
+import lombok.Data;
+
+/**
+ * 池化容器
+ */
+@Data
+public class PooledContainer {
+
+    /**
+     * 容器 id
+     */
+    private String containerId;
+
+    /**
+     * 镜像名
+     */
+    private String image;
+
+    /**
+     * 挂载到容器 /app 的宿主机工作目录
+     */
+    private String workspacePath;
+
+    /**
+     * 已使用次数
+     */
+    private int useCount;
+
+    /**
+     * 当前内存上限（字节），为 0 时为创建时的默认上限
+     */
+    private long memoryLimit;
+
+    /**
+     * 创建时间
+     */
+    private long createTime;
+}
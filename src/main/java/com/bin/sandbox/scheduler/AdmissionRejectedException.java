@@ -0,0 +1,21 @@
+package com.bin.sandbox.scheduler;
+
+/**
+ * 提交未获准入：排队已满或排队超时。
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    /**
+     * 是否因排队已满被拒绝，否则为排队超时
+     */
+    private final boolean queueFull;
+
+    public AdmissionRejectedException(String message, boolean queueFull) {
+        super(message);
+        this.queueFull = queueFull;
+    }
+
+    public boolean isQueueFull() {
+        return queueFull;
+    }
+}
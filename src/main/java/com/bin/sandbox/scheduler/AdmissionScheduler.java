@@ -0,0 +1,335 @@
+package com.bin.sandbox.scheduler;
+
+import com.bin.sandbox.config.AdmissionProperties;
+import com.bin.sandbox.model.AdmissionStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 提交准入调度器。
+ * <p>
+ * 每个提交编译运行前领取许可，同时受全局并发上限、语言并发上限和容器内存总量约束，不满足时排队。
+ * 排队按调用方分组轮转，同一调用方内先到先得，大量提交的调用方不会挤占其他调用方；
+ * 最早排队的提交因内存不足等待时，后到的提交不再占用内存，避免大内存提交饿死。
+ * 排队已满或排队超时直接拒绝，不拖慢执行中的提交。
+ */
+@Slf4j
+@Component
+public class AdmissionScheduler {
+
+    private static final String DEFAULT_CALLER = "";
+
+    private static final String DEFAULT_LANGUAGE = "default";
+
+    private static final String CGROUP_ROOT = "/sys/fs/cgroup";
+
+    @Resource
+    private AdmissionProperties admissionProperties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition admitted = lock.newCondition();
+
+    /**
+     * 按调用方分组的排队提交，迭代顺序即轮转顺序，调用方获准后移到末尾
+     */
+    private final LinkedHashMap<String, Deque<Permit>> callerQueues = new LinkedHashMap<>();
+
+    private final Map<String, Integer> languageRunning = new HashMap<>();
+
+    private long memoryBudget;
+
+    private long sequence;
+
+    private int running;
+
+    private int waiting;
+
+    private long usedMemory;
+
+    private long admittedCount;
+
+    private long rejectedCount;
+
+    private long timeoutCount;
+
+    private long totalQueueNanos;
+
+    private long maxQueueNanos;
+
+    @PostConstruct
+    public void init() {
+        memoryBudget = admissionProperties.getMemoryBudgetMb() > 0
+                ? admissionProperties.getMemoryBudgetMb() * 1024 * 1024
+                : getAvailableMemory() / 4 * 3;
+        if (admissionProperties.isEnabled()) {
+            log.info("准入控制: 并发上限 = {}, 内存上限 = {} MB", admissionProperties.getMaxConcurrent(),
+                    memoryBudget > 0 ? memoryBudget / 1024 / 1024 : "不限");
+        }
+    }
+
+    /**
+     * 是否启用准入控制
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return admissionProperties.isEnabled();
+    }
+
+    /**
+     * 领取执行许可，不满足条件时排队等待
+     *
+     * @param caller      调用方，为空时归入同一组
+     * @param language    语言
+     * @param memoryBytes 提交占用的容器内存（字节），超过内存上限时按上限计
+     * @return 许可，未启用时返回 null
+     * @throws AdmissionRejectedException 排队已满或排队超时
+     */
+    public Permit acquire(String caller, String language, long memoryBytes) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Permit permit = new Permit(caller == null ? DEFAULT_CALLER : caller,
+                language == null ? DEFAULT_LANGUAGE : language,
+                memoryBudget > 0 ? Math.min(memoryBytes, memoryBudget) : memoryBytes);
+        long enqueueTime = System.nanoTime();
+        lock.lock();
+        try {
+            if (waiting >= admissionProperties.getQueueCapacity()) {
+                rejectedCount++;
+                throw new AdmissionRejectedException("沙箱繁忙，排队已满", true);
+            }
+            permit.sequence = sequence++;
+            callerQueues.computeIfAbsent(permit.caller, key -> new ArrayDeque<>()).addLast(permit);
+            waiting++;
+            dispatch();
+            long nanos = TimeUnit.MILLISECONDS.toNanos(admissionProperties.getQueueTimeoutMs());
+            try {
+                while (!permit.granted) {
+                    if (nanos <= 0) {
+                        timeoutCount++;
+                        throw new AdmissionRejectedException("沙箱繁忙，排队超时", false);
+                    }
+                    nanos = admitted.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!permit.granted) {
+                    throw new RuntimeException("排队被中断", e);
+                }
+            } finally {
+                if (!permit.granted) {
+                    dequeue(permit);
+                    // 队首变化后其他提交可能满足条件
+                    dispatch();
+                }
+            }
+            long queueNanos = System.nanoTime() - enqueueTime;
+            totalQueueNanos += queueNanos;
+            maxQueueNanos = Math.max(maxQueueNanos, queueNanos);
+            return permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还许可
+     *
+     * @param permit 许可，为 null 时忽略
+     */
+    public void release(Permit permit) {
+        if (permit == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            running--;
+            usedMemory -= permit.memoryBytes;
+            languageRunning.merge(permit.language, -1, Integer::sum);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public AdmissionStats getStats() {
+        AdmissionStats admissionStats = new AdmissionStats();
+        admissionStats.setEnabled(isEnabled());
+        admissionStats.setMaxConcurrent(admissionProperties.getMaxConcurrent());
+        admissionStats.setMemoryBudgetBytes(memoryBudget);
+        lock.lock();
+        try {
+            admissionStats.setRunning(running);
+            admissionStats.setLanguageRunning(new HashMap<>(languageRunning));
+            admissionStats.setWaiting(waiting);
+            admissionStats.setUsedMemoryBytes(usedMemory);
+            admissionStats.setAdmittedCount(admittedCount);
+            admissionStats.setRejectedCount(rejectedCount);
+            admissionStats.setTimeoutCount(timeoutCount);
+            admissionStats.setAvgQueueTimeMs(admittedCount == 0 ? 0L
+                    : TimeUnit.NANOSECONDS.toMillis(totalQueueNanos / admittedCount));
+            admissionStats.setMaxQueueTimeMs(TimeUnit.NANOSECONDS.toMillis(maxQueueNanos));
+        } finally {
+            lock.unlock();
+        }
+        return admissionStats;
+    }
+
+    /**
+     * 按调用方轮转放行满足条件的排队提交，需持有锁
+     */
+    private void dispatch() {
+        boolean granted = false;
+        while (running < admissionProperties.getMaxConcurrent()) {
+            Permit oldest = null;
+            for (Deque<Permit> queue : callerQueues.values()) {
+                Permit head = queue.peekFirst();
+                if (oldest == null || head.sequence < oldest.sequence) {
+                    oldest = head;
+                }
+            }
+            if (oldest == null) {
+                break;
+            }
+            if (fitsLanguage(oldest) && !fitsMemory(oldest)) {
+                // 为最早排队的提交预留内存，等执行中的提交释放
+                break;
+            }
+            Permit next = null;
+            for (Deque<Permit> queue : callerQueues.values()) {
+                Permit head = queue.peekFirst();
+                if (fitsLanguage(head) && fitsMemory(head)) {
+                    next = head;
+                    break;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            dequeue(next);
+            if (callerQueues.containsKey(next.caller)) {
+                // 获准的调用方移到轮转末尾
+                callerQueues.put(next.caller, callerQueues.remove(next.caller));
+            }
+            next.granted = true;
+            running++;
+            usedMemory += next.memoryBytes;
+            languageRunning.merge(next.language, 1, Integer::sum);
+            admittedCount++;
+            granted = true;
+        }
+        if (granted) {
+            admitted.signalAll();
+        }
+    }
+
+    private void dequeue(Permit permit) {
+        Deque<Permit> queue = callerQueues.get(permit.caller);
+        if (queue == null || !queue.remove(permit)) {
+            return;
+        }
+        waiting--;
+        if (queue.isEmpty()) {
+            callerQueues.remove(permit.caller);
+        }
+    }
+
+    private boolean fitsLanguage(Permit permit) {
+        Integer limit = admissionProperties.getLanguageMaxConcurrent().get(permit.language);
+        return limit == null || languageRunning.getOrDefault(permit.language, 0) < limit;
+    }
+
+    private boolean fitsMemory(Permit permit) {
+        return memoryBudget <= 0 || usedMemory + permit.memoryBytes <= memoryBudget;
+    }
+
+    /**
+     * 服务所在 cgroup 有内存上限（如服务运行在容器内）时取该上限，否则取本机物理内存
+     *
+     * @return 可用内存（字节），无法获取时为 0
+     */
+    private static long getAvailableMemory() {
+        long physicalMemory = getPhysicalMemory();
+        long cgroupLimit = readCgroupMemoryLimit(Paths.get(CGROUP_ROOT));
+        if (cgroupLimit > 0 && (physicalMemory <= 0 || cgroupLimit < physicalMemory)) {
+            return cgroupLimit;
+        }
+        return physicalMemory;
+    }
+
+    /**
+     * 读取 cgroup 内存上限：v2 的 memory.max，v1 的 memory/memory.limit_in_bytes
+     *
+     * @param cgroupRoot cgroup 挂载点
+     * @return 上限（字节），不限制或无法读取时为 -1；v1 不限制时为接近 Long.MAX_VALUE 的值
+     */
+    static long readCgroupMemoryLimit(Path cgroupRoot) {
+        for (Path file : new Path[]{cgroupRoot.resolve("memory.max"),
+                cgroupRoot.resolve("memory").resolve("memory.limit_in_bytes")}) {
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            try {
+                String value = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+                return "max".equals(value) ? -1L : Long.parseLong(value);
+            } catch (IOException | NumberFormatException e) {
+                log.warn("读取 cgroup 内存上限失败, file = {}", file, e);
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * getTotalMemorySize 从 JDK 14 起才提供，服务按 Java 8 编译，只能使用已弃用的 getTotalPhysicalMemorySize
+     */
+    @SuppressWarnings("deprecation")
+    private static long getPhysicalMemory() {
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osBean).getTotalPhysicalMemorySize();
+        }
+        return 0L;
+    }
+
+    /**
+     * 执行许可
+     */
+    public static class Permit {
+
+        private final String caller;
+
+        private final String language;
+
+        private final long memoryBytes;
+
+        private long sequence;
+
+        private boolean granted;
+
+        Permit(String caller, String language, long memoryBytes) {
+            this.caller = caller;
+            this.language = language;
+            this.memoryBytes = memoryBytes;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.bin.sandbox.scheduler;
+
+import com.bin.sandbox.config.ExecutionProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 用例执行器。
+ * <p>
+ * 每条通道对应一个运行容器，通道从共享下标中领取用例依次执行；所有提交共用一个全局许可，
+ * 限制整机同时运行的用例数。结果按用例下标返回，与输入顺序一致。
+ */
+@Component
+public class CaseExecutor {
+
+    @Resource
+    private ExecutionProperties executionProperties;
+
+    private ExecutorService laneExecutor;
+
+    private Semaphore globalPermits;
+
+    @PostConstruct
+    public void init() {
+        globalPermits = new Semaphore(Math.max(1, executionProperties.getGlobalCaseParallelism()), true);
+        laneExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "case-lane");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        laneExecutor.shutdownNow();
+    }
+
+    /**
+     * 多通道执行用例，第 0 条通道在调用线程执行
+     *
+     * @param laneCount 通道数
+     * @param caseCount 用例数
+     * @param task      用例任务
+     * @param <T>       结果类型
+     * @return 按用例下标排列的结果
+     */
+    public <T> List<T> runOrdered(int laneCount, int caseCount, LaneTask<T> task) {
+        return run(laneCount, caseCount, task, true, null);
+    }
+
+    /**
+     * 多通道执行用例，某个结果满足停止条件后各通道不再领取新用例，已在运行的用例照常完成
+     *
+     * @param laneCount     通道数
+     * @param caseCount     用例数
+     * @param task          用例任务
+     * @param stopCondition 停止条件，为 null 时执行全部用例
+     * @param <T>           结果类型
+     * @return 按用例下标排列的结果，未执行的用例为 null
+     */
+    public <T> List<T> runOrdered(int laneCount, int caseCount, LaneTask<T> task, Predicate<T> stopCondition) {
+        return run(laneCount, caseCount, task, true, stopCondition);
+    }
+
+    /**
+     * 并发执行准备类任务（如创建运行容器），不占用全局用例许可
+     *
+     * @param taskCount 任务数
+     * @param task      任务
+     * @param <T>       结果类型
+     * @return 按任务下标排列的结果
+     */
+    public <T> List<T> runConcurrently(int taskCount, LaneTask<T> task) {
+        return run(taskCount, taskCount, task, false, null);
+    }
+
+    /**
+     * 多通道执行批量提交，通道本身不占用全局用例许可，提交中的用例运行时仍逐个申请许可
+     *
+     * @param laneCount 通道数
+     * @param taskCount 提交数
+     * @param task      提交任务，需自行处理异常，抛出异常会中止整批
+     * @param <T>       结果类型
+     * @return 按提交下标排列的结果
+     */
+    public <T> List<T> runBatch(int laneCount, int taskCount, LaneTask<T> task) {
+        return run(laneCount, taskCount, task, false, null);
+    }
+
+    public int getAvailablePermits() {
+        return globalPermits.availablePermits();
+    }
+
+    private <T> List<T> run(int laneCount, int caseCount, LaneTask<T> task, boolean usePermits,
+                            Predicate<T> stopCondition) {
+        Object[] results = new Object[caseCount];
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int lane = 1; lane < laneCount; lane++) {
+            int currentLane = lane;
+            futures.add(laneExecutor.submit(() -> {
+                runLane(currentLane, caseCount, task, results, nextIndex, stopped, usePermits, stopCondition);
+                return null;
+            }));
+        }
+        RuntimeException failure = null;
+        try {
+            runLane(0, caseCount, task, results, nextIndex, stopped, usePermits, stopCondition);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException("用例执行被中断", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new RuntimeException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        @SuppressWarnings("unchecked")
+        List<T> resultList = (List<T>) Arrays.asList(results);
+        return resultList;
+    }
+
+    private <T> void runLane(int lane, int caseCount, LaneTask<T> task, Object[] results, AtomicInteger nextIndex,
+                             AtomicBoolean stopped, boolean usePermits, Predicate<T> stopCondition) {
+        int index;
+        while (!stopped.get() && (index = nextIndex.getAndIncrement()) < caseCount) {
+            if (usePermits) {
+                try {
+                    globalPermits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopped.set(true);
+                    throw new RuntimeException("用例执行被中断", e);
+                }
+            }
+            try {
+                T result = task.run(lane, index);
+                results[index] = result;
+                if (stopCondition != null && stopCondition.test(result)) {
+                    stopped.set(true);
+                }
+            } catch (RuntimeException e) {
+                stopped.set(true);
+                throw e;
+            } finally {
+                if (usePermits) {
+                    globalPermits.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * 用例任务
+     *
+     * @param <T> 结果类型
+     */
+    @FunctionalInterface
+    public interface LaneTask<T> {
+
+        /**
+         * 在指定通道上执行用例
+         *
+         * @param lane  通道下标
+         * @param index 用例下标
+         * @return 执行结果
+         */
+        T run(int lane, int index);
+    }
+}
@@ -0,0 +1,209 @@
+package com.bin.sandbox.scheduler;
+
+import cn.hutool.core.util.StrUtil;
+import com.bin.sandbox.config.CpusetProperties;
+import com.bin.sandbox.model.CpuCoreStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * CPU 核心分配器。
+ * <p>
+ * 每个运行中的用例独占一个核心，容器在用例运行期间绑定到该核心，不与其他用例、编译任务和服务自身共享核心和缓存；
+ * 没有空闲核心时按到达顺序排队。同一通道优先取回上一次使用的核心，减少重新绑定。
+ */
+@Slf4j
+@Component
+public class CpuCoreAllocator {
+
+    @Resource
+    private CpusetProperties cpusetProperties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition coreReleased = lock.newCondition();
+
+    private final Set<Integer> freeCores = new LinkedHashSet<>();
+
+    private final Deque<Object> waiters = new ArrayDeque<>();
+
+    private final AtomicLong acquireCount = new AtomicLong();
+
+    private final AtomicLong queuedCount = new AtomicLong();
+
+    private final List<Integer> runCores = new ArrayList<>();
+
+    private String sharedCpuset;
+
+    @PostConstruct
+    public void init() {
+        if (!cpusetProperties.isEnabled()) {
+            return;
+        }
+        TreeSet<Integer> cores = StrUtil.isBlank(cpusetProperties.getCores())
+                ? parseCpuList("0-" + (Runtime.getRuntime().availableProcessors() - 1))
+                : parseCpuList(cpusetProperties.getCores());
+        cores.removeAll(parseCpuList(cpusetProperties.getReservedCores()));
+        TreeSet<Integer> compileCores = parseCpuList(cpusetProperties.getCompileCores());
+        TreeSet<Integer> caseCores = new TreeSet<>(cores);
+        caseCores.removeAll(compileCores);
+        if (caseCores.isEmpty()) {
+            throw new RuntimeException("cpuset 配置没有可分配给用例的核心");
+        }
+        runCores.addAll(caseCores);
+        freeCores.addAll(caseCores);
+        sharedCpuset = toCpuList(compileCores.isEmpty() ? cores : compileCores);
+        log.info("用例核心: {}, 编译及空闲容器 cpuset: {}", toCpuList(caseCores), sharedCpuset);
+    }
+
+    /**
+     * 是否启用核心绑定
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return cpusetProperties.isEnabled();
+    }
+
+    /**
+     * 编译及不在运行用例的容器使用的 cpuset
+     *
+     * @return cpuset，未启用时为 null
+     */
+    public String getSharedCpuset() {
+        return sharedCpuset;
+    }
+
+    /**
+     * 分配一个核心，没有空闲核心时按到达顺序等待
+     *
+     * @param preferredCore 优先分配的核心，小于 0 时不指定
+     * @return 核心编号
+     */
+    public int acquire(int preferredCore) {
+        acquireCount.incrementAndGet();
+        lock.lock();
+        try {
+            if (freeCores.isEmpty() || !waiters.isEmpty()) {
+                queuedCount.incrementAndGet();
+                awaitTurn();
+            }
+            int core = freeCores.contains(preferredCore) ? preferredCore : freeCores.iterator().next();
+            freeCores.remove(core);
+            if (!freeCores.isEmpty() && !waiters.isEmpty()) {
+                coreReleased.signalAll();
+            }
+            return core;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还核心
+     *
+     * @param core 核心编号
+     */
+    public void release(int core) {
+        lock.lock();
+        try {
+            freeCores.add(core);
+            coreReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CpuCoreStats getStats() {
+        CpuCoreStats cpuCoreStats = new CpuCoreStats();
+        cpuCoreStats.setEnabled(isEnabled());
+        cpuCoreStats.setRunCores(new ArrayList<>(runCores));
+        cpuCoreStats.setSharedCpuset(sharedCpuset);
+        lock.lock();
+        try {
+            cpuCoreStats.setFreeCount(freeCores.size());
+            cpuCoreStats.setWaitingCount(waiters.size());
+        } finally {
+            lock.unlock();
+        }
+        cpuCoreStats.setAcquireCount(acquireCount.get());
+        cpuCoreStats.setQueuedCount(queuedCount.get());
+        return cpuCoreStats;
+    }
+
+    /**
+     * 排在队首且有空闲核心时返回，需持有锁
+     */
+    private void awaitTurn() {
+        Object waiter = new Object();
+        waiters.addLast(waiter);
+        long nanos = TimeUnit.MILLISECONDS.toNanos(cpusetProperties.getAcquireTimeoutMs());
+        try {
+            while (waiters.peekFirst() != waiter || freeCores.isEmpty()) {
+                if (nanos <= 0) {
+                    throw new RuntimeException("等待空闲 CPU 核心超时");
+                }
+                nanos = coreReleased.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待 CPU 核心被中断", e);
+        } finally {
+            waiters.remove(waiter);
+            // 队首变化后唤醒其余等待者重新检查
+            coreReleased.signalAll();
+        }
+    }
+
+    /**
+     * 解析 cpuset 格式的核心列表，如 {@code 0-3,6}
+     *
+     * @param cpuList 核心列表，为空时返回空集合
+     * @return 核心编号
+     */
+    static TreeSet<Integer> parseCpuList(String cpuList) {
+        TreeSet<Integer> cores = new TreeSet<>();
+        if (StrUtil.isBlank(cpuList)) {
+            return cores;
+        }
+        for (String part : cpuList.split(",")) {
+            String range = part.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            try {
+                int dash = range.indexOf('-');
+                int from = Integer.parseInt(dash < 0 ? range : range.substring(0, dash).trim());
+                int to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1).trim());
+                if (from < 0 || to < from) {
+                    throw new NumberFormatException(range);
+                }
+                for (int core = from; core <= to; core++) {
+                    cores.add(core);
+                }
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("cpuset 配置格式错误: " + cpuList, e);
+            }
+        }
+        return cores;
+    }
+
+    private static String toCpuList(Set<Integer> cores) {
+        return cores.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
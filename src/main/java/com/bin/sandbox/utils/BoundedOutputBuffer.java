@@ -0,0 +1,139 @@
+package com.bin.sandbox.utils;
+
+import com.bin.sandbox.judge.OutputNormalizer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 有上限的输出缓冲区。
+ * <p>
+ * 按字节累积容器输出，结束后一次性按 UTF-8 解码，避免多字节字符被拆分到两个数据帧时解码错误；
+ * 超过上限的部分直接丢弃，截断处不完整的字符一并去掉。
+ */
+public class BoundedOutputBuffer {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int limit;
+
+    private byte[] buffer = new byte[0];
+
+    private int size;
+
+    private boolean overflow;
+
+    public BoundedOutputBuffer(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * 追加数据
+     *
+     * @param data 数据
+     * @return 是否仍在上限内
+     */
+    public synchronized boolean append(byte[] data) {
+        if (data == null || data.length == 0) {
+            return !overflow;
+        }
+        int writable = Math.min(data.length, limit - size);
+        if (writable < data.length) {
+            overflow = true;
+        }
+        if (writable > 0) {
+            ensureCapacity(size + writable);
+            System.arraycopy(data, 0, buffer, size, writable);
+            size += writable;
+        }
+        return !overflow;
+    }
+
+    /**
+     * 追加单个字节
+     *
+     * @param data 字节
+     * @return 是否仍在上限内
+     */
+    public synchronized boolean append(byte data) {
+        if (size >= limit) {
+            overflow = true;
+            return false;
+        }
+        ensureCapacity(size + 1);
+        buffer[size++] = data;
+        return true;
+    }
+
+    /**
+     * 清空内容，保留已分配的空间
+     */
+    public synchronized void reset() {
+        size = 0;
+        overflow = false;
+    }
+
+    public synchronized boolean isOverflow() {
+        return overflow;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int end = overflow ? completeLength(buffer, size) : size;
+        return new String(buffer, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 在缓冲区上原地规范化后解码，只在构造字符串时复制一次；原始内容被改写，之后只能再次取规范化结果
+     *
+     * @return 规范化输出
+     */
+    public synchronized String toNormalizedString() {
+        int end = overflow ? completeLength(buffer, size) : size;
+        size = OutputNormalizer.normalize(buffer, end);
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= buffer.length) {
+            return;
+        }
+        int newCapacity = Math.max(Math.max(buffer.length * 2, INITIAL_CAPACITY), minCapacity);
+        buffer = Arrays.copyOf(buffer, Math.min(newCapacity, limit));
+    }
+
+    /**
+     * 去掉末尾被截断的 UTF-8 字符
+     *
+     * @param bytes  字节
+     * @param length 有效长度
+     * @return 完整字符结束位置
+     */
+    static int completeLength(byte[] bytes, int length) {
+        int index = length - 1;
+        int continuation = 0;
+        while (index >= 0 && continuation < 3 && (bytes[index] & 0xC0) == 0x80) {
+            index--;
+            continuation++;
+        }
+        if (index < 0) {
+            return length;
+        }
+        int lead = bytes[index] & 0xFF;
+        int expected;
+        if (lead >= 0xF0) {
+            expected = 3;
+        } else if (lead >= 0xE0) {
+            expected = 2;
+        } else if (lead >= 0xC0) {
+            expected = 1;
+        } else {
+            return length;
+        }
+        return continuation < expected ? index : length;
+    }
+}
@@ -0,0 +1,80 @@
+package com.bin.sandbox.utils;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.utils.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 内存 tar 打包工具类，用于在不落盘的情况下向容器工作目录写入或读取文件。
+ */
+public final class TarUtils {
+
+    /**
+     * 打包文件统一使用的权限，运行用户需要读取源码、执行编译产物
+     */
+    private static final int FILE_MODE = 0755;
+
+    private TarUtils() {
+    }
+
+    /**
+     * 把文件打包为 tar
+     *
+     * @param files 文件名 -> 内容，文件名不含目录
+     * @return tar 字节
+     */
+    public static byte[] pack(Map<String, byte[]> files) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(outputStream)) {
+            tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+                entry.setSize(file.getValue().length);
+                entry.setMode(FILE_MODE);
+                entry.setModTime(System.currentTimeMillis());
+                tarOutputStream.putArchiveEntry(entry);
+                tarOutputStream.write(file.getValue());
+                tarOutputStream.closeArchiveEntry();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("打包文件失败", e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 解包 tar 中工作目录顶层的普通文件，忽略目录和子目录中的文件
+     *
+     * @param archive tar 字节
+     * @return 文件名 -> 内容
+     */
+    public static Map<String, byte[]> unpack(byte[] archive) {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        try (TarArchiveInputStream tarInputStream = new TarArchiveInputStream(new ByteArrayInputStream(archive))) {
+            TarArchiveEntry entry;
+            while ((entry = tarInputStream.getNextTarEntry()) != null) {
+                if (!entry.isFile()) {
+                    continue;
+                }
+                String name = entry.getName();
+                if (name.startsWith("./")) {
+                    name = name.substring(2);
+                }
+                if (name.isEmpty() || name.contains("/")) {
+                    continue;
+                }
+                files.put(name, IOUtils.toByteArray(tarInputStream));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("解包文件失败", e);
+        }
+        return files;
+    }
+}
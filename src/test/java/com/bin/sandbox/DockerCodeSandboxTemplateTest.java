@@ -0,0 +1,50 @@
+package com.bin.sandbox;
+
+import com.bin.sandbox.constant.VerdictConstant;
+import com.bin.sandbox.model.ExecResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DockerCodeSandboxTemplateTest {
+
+    private final DockerCodeSandboxTemplate sandbox = new CppDockerCodeSandbox();
+
+    private static ExecResult result(int exitCode, String stderr, boolean matched) {
+        ExecResult execResult = new ExecResult();
+        execResult.setExitCode(exitCode);
+        execResult.setStdout("");
+        execResult.setStderr(stderr);
+        execResult.setTimeout(false);
+        execResult.setOutputLimitExceeded(false);
+        execResult.setOutputMatched(matched);
+        return execResult;
+    }
+
+    @Test
+    void stderrDoesNotCauseRuntimeError() {
+        Assertions.assertEquals(VerdictConstant.ACCEPTED, sandbox.judgeVerdict(result(0, "debug: n = 3\n", true)));
+        Assertions.assertEquals(VerdictConstant.WRONG_ANSWER,
+                sandbox.judgeVerdict(result(0, "OpenJDK 64-Bit Server VM warning: Sharing is only supported\n", false)));
+    }
+
+    @Test
+    void runtimeErrorFromExitCodeOrSignal() {
+        Assertions.assertEquals(VerdictConstant.RUNTIME_ERROR, sandbox.judgeVerdict(result(1, "", true)));
+        Assertions.assertEquals(VerdictConstant.RUNTIME_ERROR, sandbox.judgeVerdict(result(139, "", true)));
+        // 未经 OOM 的 SIGKILL 不是内存超限
+        Assertions.assertEquals(VerdictConstant.RUNTIME_ERROR, sandbox.judgeVerdict(result(137, "", true)));
+    }
+
+    @Test
+    void limitVerdictsTakePrecedence() {
+        ExecResult oomKilled = result(137, "", false);
+        oomKilled.setOomKilled(true);
+        Assertions.assertEquals(VerdictConstant.MEMORY_LIMIT_EXCEEDED, sandbox.judgeVerdict(oomKilled));
+        ExecResult timeout = result(137, "", false);
+        timeout.setTimeout(true);
+        Assertions.assertEquals(VerdictConstant.TIME_LIMIT_EXCEEDED, sandbox.judgeVerdict(timeout));
+        ExecResult outputLimit = result(0, "", false);
+        outputLimit.setOutputLimitExceeded(true);
+        Assertions.assertEquals(VerdictConstant.OUTPUT_LIMIT_EXCEEDED, sandbox.judgeVerdict(outputLimit));
+    }
+}
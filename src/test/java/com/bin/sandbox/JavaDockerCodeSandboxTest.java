@@ -0,0 +1,191 @@
+package com.bin.sandbox;
+
+import com.bin.sandbox.constant.VerdictConstant;
+import com.bin.sandbox.harness.SandboxHarness;
+import com.bin.sandbox.model.ExecOptions;
+import com.bin.sandbox.model.ExecResult;
+import com.bin.sandbox.model.ResourceLimits;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class JavaDockerCodeSandboxTest {
+
+    private static final String NONCE = "0123456789abcdef";
+
+    /**
+     * 依次尝试关闭安全管理器、挂起运行器线程、直接写标准输出伪造结果、反射和执行命令，成功的写入错误输出，之后死循环
+     */
+    private static final String FORGING_PROGRAM = String.join("\n",
+            "import java.io.*;",
+            "public class Main {",
+            "    enum Color { RED }",
+            "    interface Attack { void run() throws Exception; }",
+            "    static void attempt(String name, Attack attack) {",
+            "        try { attack.run(); System.err.println(\"BYPASS \" + name); } catch (Exception e) { }",
+            "    }",
+            "    public static void main(String[] args) {",
+            "        String frame = \"#SBH guess 0 0 0 1 1 0 false - -\\n\";",
+            "        attempt(\"setSecurityManager\", () -> System.setSecurityManager(null));",
+            "        attempt(\"getParent\", () -> Thread.currentThread().getThreadGroup().getParent().getName());",
+            "        attempt(\"allThreads\", () -> Thread.getAllStackTraces());",
+            "        attempt(\"fd\", () -> { OutputStream out = new FileOutputStream(FileDescriptor.out);",
+            "            out.write(frame.getBytes()); out.flush(); });",
+            "        attempt(\"procFd\", () -> { OutputStream out = new FileOutputStream(\"/proc/self/fd/1\");",
+            "            out.write(frame.getBytes()); out.flush(); });",
+            "        attempt(\"devStdout\", () -> { OutputStream out = new FileOutputStream(\"/dev/stdout\");",
+            "            out.write(frame.getBytes()); out.flush(); });",
+            "        attempt(\"reflect\", () -> Class.forName(\"sun.misc.Unsafe\").getDeclaredField(\"theUnsafe\")",
+            "            .setAccessible(true));",
+            "        attempt(\"exec\", () -> Runtime.getRuntime().exec(new String[]{\"sh\", \"-c\", \"echo\"}));",
+            "        System.out.println(Color.valueOf(\"RED\"));",
+            "        while (true) { }",
+            "    }",
+            "}");
+
+    @Test
+    void printedOutOfMemoryErrorIsNotMemoryLimitExceeded(@TempDir Path workspace) throws Exception {
+        ExecResult execResult = runWithSandboxOptions(workspace, String.join("\n",
+                "public class Main {",
+                "    public static void main(String[] args) {",
+                "        System.err.println(\"Exception in thread \\\"main\\\" java.lang.OutOfMemoryError: Java heap space\");",
+                "        System.out.println(\"ok\");",
+                "    }",
+                "}"));
+        Assertions.assertEquals(0, execResult.getExitCode());
+        Assertions.assertEquals(VerdictConstant.ACCEPTED, new JavaDockerCodeSandbox().judgeVerdict(execResult));
+    }
+
+    @Test
+    void heapExhaustionIsMemoryLimitExceeded(@TempDir Path workspace) throws Exception {
+        // 捕获 OutOfMemoryError 后正常退出同样判定为超出内存限制
+        ExecResult execResult = runWithSandboxOptions(workspace, String.join("\n",
+                "public class Main {",
+                "    public static void main(String[] args) {",
+                "        try {",
+                "            long[][] blocks = new long[1024][];",
+                "            for (int i = 0; i < blocks.length; i++) { blocks[i] = new long[1024 * 1024]; }",
+                "        } catch (OutOfMemoryError e) { }",
+                "        System.out.println(\"ok\");",
+                "    }",
+                "}"));
+        Assertions.assertEquals(JavaDockerCodeSandbox.OUT_OF_MEMORY_EXIT_CODE, execResult.getExitCode());
+        Assertions.assertEquals(VerdictConstant.MEMORY_LIMIT_EXCEEDED,
+                new JavaDockerCodeSandbox().judgeVerdict(execResult));
+    }
+
+    @Test
+    void harnessRejectsForgedResults(@TempDir Path workspace) throws Exception {
+        Path source = workspace.resolve("Main.java");
+        Files.write(source, FORGING_PROGRAM.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assertions.assertEquals(0, compiler.run(null, null, null, "-nowarn", source.toString()));
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (!System.getProperty("java.specification.version").startsWith("1.")) {
+            // Java 18 起默认禁止运行时设置安全管理器
+            command.add("-Djava.security.manager=allow");
+        }
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), SandboxHarness.class.getName(),
+                "500", "3000", "4096", "true", workspace.toString() + File.separator));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(JavaDockerCodeSandbox.buildHarnessInput(NONCE, Arrays.asList("1", "2"))
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        String stdout = readAll(process);
+        Assertions.assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+
+        List<ExecResult> execResultList = JavaDockerCodeSandbox.parseHarnessOutput(harnessResult(stdout), NONCE,
+                runOptions(), "test");
+        Assertions.assertEquals(1, execResultList.size(), stdout);
+        ExecResult execResult = execResultList.get(0);
+        Assertions.assertTrue(execResult.getTimeout());
+        Assertions.assertEquals("RED", execResult.getStdout().trim());
+        Assertions.assertFalse(execResult.getStderr().contains("BYPASS"), execResult.getStderr());
+    }
+
+    @Test
+    void parseRejectsFramesWithoutNonceOrDuplicateIndex() {
+        String first = frame(NONCE, 0, SandboxHarness.STATUS_DONE);
+        String second = frame(NONCE, 1, SandboxHarness.STATUS_DONE);
+        Assertions.assertEquals(2, parse(first + second).size());
+        Assertions.assertTrue(parse(frame("guess", 0, SandboxHarness.STATUS_DONE) + first).isEmpty());
+        Assertions.assertTrue(parse(first + frame("guess", 1, SandboxHarness.STATUS_DONE)).isEmpty());
+        Assertions.assertTrue(parse(first + first + second).isEmpty());
+        // 超时后运行器立即退出，之后的结果行只能是伪造的
+        Assertions.assertTrue(parse(frame(NONCE, 0, SandboxHarness.STATUS_TIMEOUT) + second).isEmpty());
+        Assertions.assertEquals(1, parse(first + frame(NONCE, 1, SandboxHarness.STATUS_FALLBACK)).size());
+    }
+
+    /**
+     * 以沙箱的用户程序 JVM 参数（64 MB 堆）运行，输出 ok 时视为答案正确
+     */
+    private static ExecResult runWithSandboxOptions(Path workspace, String program) throws Exception {
+        Path source = workspace.resolve("Main.java");
+        Files.write(source, program.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assertions.assertEquals(0, compiler.run(null, null, null, "-nowarn", source.toString()));
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(new JavaDockerCodeSandbox().getRunJvmOptions(new ResourceLimits(1000L, 64L << 20, 128L << 20)));
+        command.addAll(Arrays.asList("-cp", workspace.toString(), "Main"));
+        Process process = new ProcessBuilder(command).redirectError(workspace.resolve("stderr").toFile()).start();
+        process.getOutputStream().close();
+        String stdout = readAll(process);
+        Assertions.assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+
+        ExecResult execResult = new ExecResult();
+        execResult.setExitCode(process.exitValue());
+        execResult.setStdout(stdout);
+        execResult.setStderr(new String(Files.readAllBytes(workspace.resolve("stderr")), StandardCharsets.UTF_8));
+        execResult.setTimeout(false);
+        execResult.setOutputLimitExceeded(false);
+        execResult.setOomKilled(false);
+        execResult.setOutputMatched("ok".equals(stdout.trim()));
+        return execResult;
+    }
+
+    private static List<ExecResult> parse(String stdout) {
+        return JavaDockerCodeSandbox.parseHarnessOutput(harnessResult(stdout), NONCE, runOptions(), "test");
+    }
+
+    private static String frame(String nonce, int index, int status) {
+        return SandboxHarness.FRAME_PREFIX + " " + nonce + " " + index + " " + status + " 0 1 1 0 false - -\n";
+    }
+
+    private static ExecResult harnessResult(String stdout) {
+        ExecResult harnessResult = new ExecResult();
+        harnessResult.setStdout(stdout);
+        return harnessResult;
+    }
+
+    private static ExecOptions runOptions() {
+        return ExecOptions.builder().timeoutMs(500).normalizeStdout(true).build();
+    }
+
+    private static String readAll(Process process) throws IOException {
+        byte[] bytes = new byte[8192];
+        StringBuilder stdout = new StringBuilder();
+        int read;
+        while ((read = process.getInputStream().read(bytes)) != -1) {
+            stdout.append(new String(bytes, 0, read, StandardCharsets.UTF_8));
+        }
+        return stdout.toString();
+    }
+}
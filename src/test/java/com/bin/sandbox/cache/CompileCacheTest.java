@@ -0,0 +1,195 @@
+package com.bin.sandbox.cache;
+
+import cn.hutool.core.io.FileUtil;
+import com.bin.sandbox.config.CompileCacheProperties;
+import com.bin.sandbox.model.CompileCacheStats;
+import com.github.dockerjava.api.DockerClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class CompileCacheTest {
+
+    private static final int KB = 1024;
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void buildKeyFromImageIdAndInputs() {
+        DockerClient dockerClient = Mockito.mock(DockerClient.class, Answers.RETURNS_DEEP_STUBS);
+        Mockito.when(dockerClient.inspectImageCmd("gcc:latest").exec().getId()).thenReturn("sha256:1", "sha256:2");
+        Mockito.when(dockerClient.inspectImageCmd("missing").exec()).thenThrow(new RuntimeException("not found"));
+        CompileCache cache = cache(1024L, dockerClient);
+        String[] command = {"g++", "main.cpp"};
+
+        String key = cache.buildKey("cpp", "gcc:latest", command, "int main(){}");
+        Assertions.assertEquals(64, key.length());
+        Assertions.assertEquals(key, cache.buildKey("cpp", "gcc:latest", command, "int main(){}"));
+        Assertions.assertNotEquals(key, cache.buildKey("cpp", "gcc:latest", command, "int main(){ }"));
+        Assertions.assertNotEquals(key, cache.buildKey("cpp", "gcc:latest", new String[]{"g++", "-O2", "main.cpp"},
+                "int main(){}"));
+        Assertions.assertNotEquals(key, cache.buildKey("c", "gcc:latest", command, "int main(){}"));
+        Assertions.assertNull(cache.buildKey("cpp", "missing", command, "int main(){}"));
+
+        // 镜像更新后重新解析 id，旧条目不再命中
+        cache.invalidateImage("gcc:latest");
+        Assertions.assertNotEquals(key, cache.buildKey("cpp", "gcc:latest", command, "int main(){}"));
+    }
+
+    @Test
+    void evictLeastRecentlyUsedBySize() {
+        CompileCache cache = cache(1L, null);
+        cache.storeArtifacts("a", artifacts(400 * KB));
+        cache.storeArtifacts("b", artifacts(400 * KB));
+        Assertions.assertNotNull(cache.restoreArtifacts("a"));
+        cache.storeArtifacts("c", artifacts(400 * KB));
+
+        Assertions.assertNull(cache.restoreArtifacts("b"));
+        Assertions.assertFalse(Files.exists(cacheDir.resolve("b")));
+        Assertions.assertNotNull(cache.restoreArtifacts("a"));
+        Assertions.assertNotNull(cache.restoreArtifacts("c"));
+        CompileCacheStats stats = cache.getStats();
+        Assertions.assertEquals(1L, stats.getEvictionCount());
+        Assertions.assertEquals(2, stats.getEntryCount());
+        Assertions.assertEquals(800L * KB, stats.getSizeBytes());
+        Assertions.assertEquals(3L, stats.getHitCount());
+        Assertions.assertEquals(1L, stats.getMissCount());
+    }
+
+    @Test
+    void rebuildOrderFromModifiedTimeOnRestart() throws Exception {
+        CompileCache cache = cache(2L, null);
+        cache.storeArtifacts("a", artifacts(400 * KB));
+        cache.storeArtifacts("b", artifacts(400 * KB));
+        cache.storeArtifacts("c", artifacts(400 * KB));
+        long now = System.currentTimeMillis();
+        Assertions.assertTrue(cacheDir.resolve("b").toFile().setLastModified(now - 30000));
+        Assertions.assertTrue(cacheDir.resolve("c").toFile().setLastModified(now - 20000));
+        Assertions.assertTrue(cacheDir.resolve("a").toFile().setLastModified(now - 10000));
+        Files.createDirectories(cacheDir.resolve(".tmp-unfinished"));
+
+        CompileCache restarted = cache(1L, null);
+        Assertions.assertFalse(Files.exists(cacheDir.resolve(".tmp-unfinished")));
+        Assertions.assertFalse(Files.exists(cacheDir.resolve("b")));
+        Assertions.assertEquals(2, restarted.getStats().getEntryCount());
+        Assertions.assertEquals(800L * KB, restarted.getStats().getSizeBytes());
+
+        restarted.storeArtifacts("d", artifacts(400 * KB));
+        Assertions.assertNull(restarted.restoreArtifacts("c"));
+        Assertions.assertNotNull(restarted.restoreArtifacts("a"));
+        Assertions.assertNotNull(restarted.restoreArtifacts("d"));
+    }
+
+    @Test
+    void restoreCopiesArtifactsToWorkspace(@TempDir Path workspace) throws Exception {
+        CompileCache cache = cache(1L, null);
+        Map<String, byte[]> artifacts = artifacts(KB);
+        cache.storeArtifacts("a", artifacts);
+
+        Assertions.assertTrue(cache.restore("a", workspace.toFile()));
+        for (Map.Entry<String, byte[]> artifact : artifacts.entrySet()) {
+            Assertions.assertArrayEquals(artifact.getValue(), Files.readAllBytes(workspace.resolve(artifact.getKey())));
+        }
+        Assertions.assertFalse(cache.restore("b", workspace.toFile()));
+    }
+
+    @Test
+    void markBrokenWhenEntryRemovedBehindLookup() {
+        CompileCache cache = cache(1L, null);
+        cache.storeArtifacts("a", artifacts(100 * KB));
+        cache.storeArtifacts("b", artifacts(200 * KB));
+        // 条目仍在索引中但目录已被删除，等同于查找索引后、读取产物前被淘汰
+        FileUtil.del(cacheDir.resolve("a").toFile());
+
+        Assertions.assertNull(cache.restoreArtifacts("a"));
+        CompileCacheStats stats = cache.getStats();
+        Assertions.assertEquals(1, stats.getEntryCount());
+        Assertions.assertEquals(200L * KB, stats.getSizeBytes());
+        Assertions.assertEquals(1L, stats.getMissCount());
+
+        cache.storeArtifacts("a", artifacts(100 * KB));
+        Assertions.assertNotNull(cache.restoreArtifacts("a"));
+        Assertions.assertEquals(300L * KB, cache.getStats().getSizeBytes());
+    }
+
+    @Test
+    void concurrentLookupDuringEvictionNeverSeesPartialEntry() throws Exception {
+        CompileCache cache = cache(1L, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean stop = new AtomicBoolean();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    cache.storeArtifacts("k" + i % 10, artifacts(150 * KB));
+                }
+                stop.set(true);
+            });
+            Future<?>[] readers = new Future<?>[3];
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = executor.submit(() -> {
+                    int i = 0;
+                    while (!stop.get()) {
+                        Map<String, byte[]> restored = cache.restoreArtifacts("k" + i++ % 10);
+                        if (restored != null) {
+                            Assertions.assertEquals(artifacts(150 * KB).keySet(), restored.keySet());
+                            Assertions.assertEquals(150 * KB, restored.get("main").length);
+                        }
+                    }
+                    return null;
+                });
+            }
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            stop.set(true);
+            executor.shutdownNow();
+        }
+
+        File[] entryDirs = cacheDir.toFile().listFiles(File::isDirectory);
+        Assertions.assertNotNull(entryDirs);
+        long diskBytes = Arrays.stream(entryDirs).mapToLong(FileUtil::size).sum();
+        CompileCacheStats stats = cache.getStats();
+        Assertions.assertEquals(entryDirs.length, stats.getEntryCount());
+        Assertions.assertEquals(diskBytes, stats.getSizeBytes());
+        Assertions.assertTrue(stats.getSizeBytes() <= 1024L * KB);
+    }
+
+    private CompileCache cache(long maxSizeMb, DockerClient dockerClient) {
+        CompileCacheProperties compileCacheProperties = new CompileCacheProperties();
+        compileCacheProperties.setDirectory(cacheDir.toString());
+        compileCacheProperties.setMaxSizeMb(maxSizeMb);
+        CompileCache cache = new CompileCache();
+        ReflectionTestUtils.setField(cache, "compileCacheProperties", compileCacheProperties);
+        ReflectionTestUtils.setField(cache, "dockerClient", dockerClient);
+        cache.init();
+        return cache;
+    }
+
+    /**
+     * 两个产物文件，main 为指定大小，main.sym 为 0 字节
+     */
+    private static Map<String, byte[]> artifacts(int size) {
+        Map<String, byte[]> artifacts = new LinkedHashMap<>();
+        artifacts.put("main", new byte[size]);
+        artifacts.put("main.sym", new byte[0]);
+        return artifacts;
+    }
+}
@@ -0,0 +1,126 @@
+package com.bin.sandbox.cgroup;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class ContainerCgroupTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void trackPeakAboveBaselineOnV2() throws Exception {
+        Path dir = Files.createDirectories(root.resolve("system.slice").resolve("docker-abc.scope"));
+        write(dir, "memory.current", "10485760\n");
+        write(dir, "memory.peak", "52428800\n");
+        ContainerCgroup containerCgroup = new ContainerCgroup(dir, dir, true);
+
+        try (MemoryPeakTracker tracker = containerCgroup.startMemoryTracking()) {
+            Assertions.assertNotNull(tracker);
+            Assertions.assertTrue(read(dir, "memory.peak").startsWith("reset\n"));
+            // 内核在重置后重新记录峰值
+            write(dir, "memory.peak", "27262976\n");
+            Assertions.assertEquals(16777216L, tracker.readPeak());
+            // 峰值低于基线（基线内的页被回收）时记为 0
+            write(dir, "memory.peak", "4194304\n");
+            Assertions.assertEquals(0L, tracker.readPeak());
+        }
+    }
+
+    @Test
+    void trackPeakAboveBaselineOnV1() throws Exception {
+        Path dir = Files.createDirectories(root.resolve("memory").resolve("docker").resolve("abc"));
+        write(dir, "memory.usage_in_bytes", "10485760\n");
+        write(dir, "memory.max_usage_in_bytes", "52428800\n");
+        ContainerCgroup containerCgroup = new ContainerCgroup(dir, null, false);
+
+        try (MemoryPeakTracker tracker = containerCgroup.startMemoryTracking()) {
+            Assertions.assertNotNull(tracker);
+            Assertions.assertTrue(read(dir, "memory.max_usage_in_bytes").startsWith("0\n"));
+            write(dir, "memory.max_usage_in_bytes", "15728640\n");
+            Assertions.assertEquals(5242880L, tracker.readPeak());
+        }
+    }
+
+    @Test
+    void noTrackingWithoutPeakFile() throws Exception {
+        Path dir = Files.createDirectories(root.resolve("docker-abc.scope"));
+        Assertions.assertNull(new ContainerCgroup(dir, dir, true).startMemoryTracking());
+
+        // 内核 5.19 以前没有 memory.peak
+        write(dir, "memory.current", "10485760\n");
+        Assertions.assertNull(new ContainerCgroup(dir, dir, true).startMemoryTracking());
+
+        write(dir, "memory.usage_in_bytes", "max\n");
+        write(dir, "memory.max_usage_in_bytes", "0\n");
+        Assertions.assertNull(new ContainerCgroup(dir, null, false).startMemoryTracking());
+    }
+
+    @Test
+    void readOomKillCountOnV2() throws Exception {
+        Path dir = Files.createDirectories(root.resolve("docker-abc.scope"));
+        ContainerCgroup containerCgroup = new ContainerCgroup(dir, dir, true);
+        Assertions.assertEquals(-1L, containerCgroup.readOomKillCount());
+
+        write(dir, "memory.events", "low 0\nhigh 0\nmax 12\noom 2\noom_kill 2\noom_group_kill 0\n");
+        Assertions.assertEquals(2L, containerCgroup.readOomKillCount());
+
+        // oom_group_kill 不应被当作 oom_kill
+        write(dir, "memory.events", "low 0\nhigh 0\nmax 0\noom 0\noom_group_kill 1\n");
+        Assertions.assertEquals(-1L, containerCgroup.readOomKillCount());
+    }
+
+    @Test
+    void readOomKillCountOnV1() throws Exception {
+        Path dir = Files.createDirectories(root.resolve("docker").resolve("abc"));
+        ContainerCgroup containerCgroup = new ContainerCgroup(dir, null, false);
+        write(dir, "memory.oom_control", "oom_kill_disable 0\nunder_oom 0\noom_kill 3\n");
+        Assertions.assertEquals(3L, containerCgroup.readOomKillCount());
+
+        // 内核 4.13 以前 memory.oom_control 没有 oom_kill
+        write(dir, "memory.oom_control", "oom_kill_disable 0\nunder_oom 0\n");
+        Assertions.assertEquals(-1L, containerCgroup.readOomKillCount());
+    }
+
+    @Test
+    void readCpuUsageOnV2() throws Exception {
+        Path dir = Files.createDirectories(root.resolve("system.slice").resolve("docker-abc.scope"));
+        ContainerCgroup containerCgroup = new ContainerCgroup(dir, dir, true);
+        Assertions.assertEquals(-1L, containerCgroup.readCpuUsageMicros());
+
+        write(dir, "cpu.stat", "usage_usec 2500123\nuser_usec 2000000\nsystem_usec 500123\n"
+                + "nr_periods 0\nnr_throttled 0\nthrottled_usec 0\n");
+        Assertions.assertEquals(2500123L, containerCgroup.readCpuUsageMicros());
+
+        write(dir, "cpu.stat", "user_usec 2000000\nsystem_usec 500123\n");
+        Assertions.assertEquals(-1L, containerCgroup.readCpuUsageMicros());
+    }
+
+    @Test
+    void readCpuUsageOnV1() throws Exception {
+        Path memoryDir = Files.createDirectories(root.resolve("memory").resolve("docker").resolve("abc"));
+        Path cpuDir = Files.createDirectories(root.resolve("cpuacct").resolve("docker").resolve("abc"));
+        ContainerCgroup containerCgroup = new ContainerCgroup(memoryDir, cpuDir, false);
+        Assertions.assertEquals(-1L, containerCgroup.readCpuUsageMicros());
+
+        // cpuacct.usage 以纳秒计，不足 1 微秒的部分舍去
+        write(cpuDir, "cpuacct.usage", "2500123999\n");
+        Assertions.assertEquals(2500123L, containerCgroup.readCpuUsageMicros());
+
+        // 不可访问 cpuacct 层级时不读取
+        Assertions.assertEquals(-1L, new ContainerCgroup(memoryDir, null, false).readCpuUsageMicros());
+    }
+
+    private static void write(Path dir, String name, String value) throws Exception {
+        Files.write(dir.resolve(name), value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String read(Path dir, String name) throws Exception {
+        return new String(Files.readAllBytes(dir.resolve(name)), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,88 @@
+package com.bin.sandbox.cgroup;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+class SubmissionCgroupTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void readCaseStats() throws Exception {
+        Path caseDir = Files.createDirectory(root.resolve("case-0"));
+        write(caseDir, "cpu.stat", "usage_usec 123456\nuser_usec 100000\nsystem_usec 23456\n");
+        write(caseDir, "memory.peak", "8388608\n");
+        write(caseDir, "memory.events", "low 0\nhigh 0\nmax 4\noom 1\noom_kill 1\noom_group_kill 0\n");
+        write(caseDir, "cgroup.procs", "\n4242\n4243\n");
+
+        SubmissionCgroup.Case caseCgroup = new SubmissionCgroup.Case(caseDir);
+        Assertions.assertEquals(caseDir, caseCgroup.getDir());
+        Assertions.assertEquals(123456L, caseCgroup.readCpuUsageMicros());
+        Assertions.assertEquals(8388608L, caseCgroup.readMemoryPeak());
+        Assertions.assertEquals(1L, caseCgroup.readOomKillCount());
+        Assertions.assertEquals(4242L, caseCgroup.readProcessId());
+    }
+
+    @Test
+    void missingOrMalformedStats() throws Exception {
+        Path caseDir = Files.createDirectory(root.resolve("case-0"));
+        SubmissionCgroup.Case caseCgroup = new SubmissionCgroup.Case(caseDir);
+        Assertions.assertEquals(-1L, caseCgroup.readCpuUsageMicros());
+        Assertions.assertEquals(-1L, caseCgroup.readMemoryPeak());
+        Assertions.assertEquals(0L, caseCgroup.readOomKillCount());
+        Assertions.assertEquals(-1L, caseCgroup.readProcessId());
+
+        write(caseDir, "cpu.stat", "user_usec 100000\n");
+        write(caseDir, "memory.peak", "max\n");
+        write(caseDir, "memory.events", "oom_kill x\n");
+        write(caseDir, "cgroup.procs", "\n");
+        Assertions.assertEquals(-1L, caseCgroup.readCpuUsageMicros());
+        Assertions.assertEquals(-1L, caseCgroup.readMemoryPeak());
+        Assertions.assertEquals(0L, caseCgroup.readOomKillCount());
+        Assertions.assertEquals(-1L, caseCgroup.readProcessId());
+    }
+
+    @Test
+    void killThroughCgroupKill() throws Exception {
+        Path caseDir = Files.createDirectory(root.resolve("case-0"));
+        SubmissionCgroup.Case caseCgroup = new SubmissionCgroup.Case(caseDir);
+        // 内核不支持 cgroup.kill 时没有该文件
+        Assertions.assertFalse(caseCgroup.kill());
+
+        write(caseDir, "cgroup.kill", "0");
+        Assertions.assertTrue(caseCgroup.kill());
+        Assertions.assertEquals("1", new String(Files.readAllBytes(caseDir.resolve("cgroup.kill")),
+                StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void destroyRemovesNestedDirectories() throws Exception {
+        Path submissionDir = Files.createDirectory(root.resolve("submission"));
+        Files.createDirectories(submissionDir.resolve("case-0"));
+        Files.createDirectories(submissionDir.resolve("case-1"));
+
+        SubmissionCgroup.destroy(submissionDir);
+        Assertions.assertFalse(Files.exists(submissionDir));
+        SubmissionCgroup.destroy(submissionDir);
+    }
+
+    @Test
+    void createFailureLeavesNoDirectory() throws Exception {
+        // 普通目录没有 cgroup 控制文件，写入失败后删除已建的提交目录
+        Assertions.assertThrows(RuntimeException.class, () -> SubmissionCgroup.create(root, 64L << 20, 2, 64));
+        try (Stream<Path> children = Files.list(root)) {
+            Assertions.assertEquals(0L, children.count());
+        }
+    }
+
+    private static void write(Path dir, String name, String value) throws Exception {
+        Files.write(dir.resolve(name), value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,160 @@
+package com.bin.sandbox.job;
+
+import com.bin.sandbox.config.JobProperties;
+import com.bin.sandbox.model.ExecuteCodeRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+class JobManagerTest {
+
+    private JobManager jobManager;
+
+    @AfterEach
+    void destroy() {
+        if (jobManager != null) {
+            jobManager.destroy();
+        }
+    }
+
+    @Test
+    void rejectedJobRemovedFromMap() throws Exception {
+        JobProperties jobProperties = properties();
+        jobProperties.setWorkerCount(1);
+        jobProperties.setQueueCapacity(1);
+        jobManager = jobManager(jobProperties);
+        // 占满工作线程和等待队列
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor workerExecutor = (ThreadPoolExecutor) ReflectionTestUtils.getField(jobManager,
+                "workerExecutor");
+        CountDownLatch started = new CountDownLatch(1);
+        workerExecutor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        workerExecutor.execute(() -> await(release));
+
+        try {
+            Assertions.assertThrows(RejectedExecutionException.class,
+                    () -> jobManager.submit(new ExecuteCodeRequest(), null));
+            Assertions.assertTrue(jobMap().isEmpty());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void finishedJobsExpireAfterTtl() throws Exception {
+        JobProperties jobProperties = properties();
+        jobProperties.setResultTtlMs(0L);
+        jobManager = jobManager(jobProperties);
+        String jobId = submitAndWait().getJobId();
+        Assertions.assertNotNull(jobManager.getJob(jobId));
+
+        Thread.sleep(5);
+        ReflectionTestUtils.invokeMethod(jobManager, "removeExpiredJobs");
+        Assertions.assertNull(jobManager.getJob(jobId));
+    }
+
+    @Test
+    void unfinishedJobsNeverExpire() throws Exception {
+        JobProperties jobProperties = properties();
+        jobProperties.setResultTtlMs(0L);
+        jobManager = jobManager(jobProperties);
+        ExecuteJob pending = new ExecuteJob("pending", new ExecuteCodeRequest(), null);
+        jobMap().put(pending.getJobId(), pending);
+        String finishedJobId = submitAndWait().getJobId();
+
+        Thread.sleep(5);
+        ReflectionTestUtils.invokeMethod(jobManager, "removeExpiredJobs");
+        Assertions.assertNull(jobManager.getJob(finishedJobId));
+        Assertions.assertSame(pending, jobManager.getJob("pending"));
+    }
+
+    @Test
+    void evictOldestFinishedJobsAboveLimit() throws Exception {
+        JobProperties jobProperties = properties();
+        jobProperties.setWorkerCount(1);
+        jobProperties.setMaxFinishedJobs(2);
+        jobManager = jobManager(jobProperties);
+        String first = submitAndWait().getJobId();
+        String second = submitAndWait().getJobId();
+        String third = submitAndWait().getJobId();
+
+        Assertions.assertNull(jobManager.getJob(first));
+        Assertions.assertNotNull(jobManager.getJob(second));
+        Assertions.assertNotNull(jobManager.getJob(third));
+        Assertions.assertEquals(2, jobMap().size());
+    }
+
+    @Test
+    void callbackOnlyToConfiguredHosts() {
+        jobManager = jobManager(properties());
+        Assertions.assertTrue(jobManager.isCallbackAllowed("http://localhost:8080/judge/callback"));
+        Assertions.assertTrue(jobManager.isCallbackAllowed("https://127.0.0.1/callback"));
+        Assertions.assertFalse(jobManager.isCallbackAllowed("http://example.com/callback"));
+        Assertions.assertFalse(jobManager.isCallbackAllowed("http://localhost.example.com/callback"));
+        Assertions.assertFalse(jobManager.isCallbackAllowed("http://example.com@evil.com/callback"));
+        Assertions.assertFalse(jobManager.isCallbackAllowed("file://localhost/etc/passwd"));
+        Assertions.assertFalse(jobManager.isCallbackAllowed("localhost:8080/callback"));
+        Assertions.assertFalse(jobManager.isCallbackAllowed("http://local host/callback"));
+    }
+
+    /**
+     * 提交语言为空的请求，工作线程执行失败后立即完成，等到任务计入已完成列表后返回
+     */
+    private ExecuteJob submitAndWait() throws Exception {
+        String jobId = jobManager.submit(new ExecuteCodeRequest(), null).getJobId();
+        ExecuteJob job = jobManager.getJob(jobId);
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(Integer.valueOf(2), job.getResponse().getStatus());
+        Deque<?> finishedJobs = (Deque<?>) ReflectionTestUtils.getField(jobManager, "finishedJobs");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!containsJob(finishedJobs, job)) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "任务未计入已完成列表");
+            Thread.sleep(5);
+        }
+        return job;
+    }
+
+    private static boolean containsJob(Deque<?> finishedJobs, ExecuteJob job) {
+        synchronized (finishedJobs) {
+            return finishedJobs.contains(job);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ExecuteJob> jobMap() {
+        return (Map<String, ExecuteJob>) ReflectionTestUtils.getField(jobManager, "jobMap");
+    }
+
+    private static JobProperties properties() {
+        JobProperties jobProperties = new JobProperties();
+        jobProperties.setWorkerCount(2);
+        return jobProperties;
+    }
+
+    private static JobManager jobManager(JobProperties jobProperties) {
+        JobManager jobManager = new JobManager();
+        ReflectionTestUtils.setField(jobManager, "jobProperties", jobProperties);
+        jobManager.init();
+        return jobManager;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.bin.sandbox.judge;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class OutputComparatorTest {
+
+    private static OutputComparator compare(String expected, String... frames) {
+        OutputComparator outputComparator = new OutputComparator(expected, 1024);
+        for (String frame : frames) {
+            outputComparator.append(frame.getBytes(StandardCharsets.UTF_8));
+        }
+        outputComparator.finish();
+        return outputComparator;
+    }
+
+    @Test
+    void ignoreTrailingWhitespaceAndEmptyLines() {
+        Assertions.assertTrue(compare("1 2\n3", "1 2 \t\r\n", "3\r", "\n\n  \n").isMatched());
+        Assertions.assertTrue(compare("", " \n\n").isMatched());
+        Assertions.assertTrue(compare("a\n\nb", "a\n\nb").isMatched());
+    }
+
+    @Test
+    void detectMismatch() {
+        Assertions.assertFalse(compare("1 2", "1  2").isMatched());
+        Assertions.assertFalse(compare("1 2", "1 2\n3").isMatched());
+        Assertions.assertFalse(compare("1 2\n3", "1 2\n").isMatched());
+        Assertions.assertFalse(compare("12", "1").isMatched());
+        OutputComparator outputComparator = compare("ok\nyes", "ok\nno way\n");
+        Assertions.assertFalse(outputComparator.isMatched());
+        Assertions.assertEquals("第 2 行不一致, 期望: yes, 实际: no way", outputComparator.getMismatchMessage());
+    }
+
+    @Test
+    void overflowWhenExceedingLimit() {
+        OutputComparator outputComparator = new OutputComparator("a", 4);
+        Assertions.assertFalse(outputComparator.append("aaaaa".getBytes(StandardCharsets.UTF_8)));
+        outputComparator.finish();
+        Assertions.assertTrue(outputComparator.isOverflow());
+        Assertions.assertFalse(outputComparator.isMatched());
+    }
+}
@@ -0,0 +1,113 @@
+package com.bin.sandbox.judge;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+class OutputHasherTest {
+
+    private static final long MOD = (1L << 61) - 1;
+
+    private static final String[] SAMPLES = {
+            "1\r\n2\r\n",
+            "1\r2\r",
+            "1\r\r\n2",
+            "1 \t\n2\t \n",
+            "a\n  \t \nb",
+            "\n\n  \na\nb\n\n \n\t",
+            "\r\n\r\n",
+            " \t ",
+            "中文 \r\n结果\t\r",
+            "a\u0000 \n\u0000"
+    };
+
+    @Test
+    void matchNormalizedOutput() {
+        for (String sample : SAMPLES) {
+            Assertions.assertTrue(OutputHasher.of(sample).matches(OutputHasher.of(OutputNormalizer.normalize(sample))),
+                    sample);
+        }
+    }
+
+    @Test
+    void matchRegardlessOfChunkBoundaries() {
+        for (String sample : SAMPLES) {
+            byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+            for (int split = 0; split <= bytes.length; split++) {
+                OutputHasher outputHasher = new OutputHasher(1024);
+                outputHasher.append(Arrays.copyOfRange(bytes, 0, split));
+                outputHasher.append(Arrays.copyOfRange(bytes, split, bytes.length));
+                Assertions.assertTrue(outputHasher.matches(OutputHasher.of(OutputNormalizer.normalize(sample))),
+                        sample + " @ " + split);
+            }
+        }
+    }
+
+    @Test
+    void mismatchDifferentOutput() {
+        Assertions.assertFalse(OutputHasher.of("a b").matches(OutputHasher.of("ab")));
+        Assertions.assertFalse(OutputHasher.of("a\n\nb").matches(OutputHasher.of("a\nb")));
+        Assertions.assertFalse(OutputHasher.of("\na").matches(OutputHasher.of("a")));
+        Assertions.assertFalse(OutputHasher.of("a\tb").matches(OutputHasher.of("a b")));
+        Assertions.assertFalse(OutputHasher.of("12").matches(OutputHasher.of("21")));
+        Assertions.assertTrue(OutputHasher.of(null).matches(OutputHasher.of(" \r\n")));
+    }
+
+    @Test
+    void overflowNeverMatches() {
+        OutputHasher outputHasher = new OutputHasher(4);
+        Assertions.assertTrue(outputHasher.append("ab".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertTrue(outputHasher.append("cd".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertFalse(outputHasher.isOverflow());
+        Assertions.assertTrue(outputHasher.matches(OutputHasher.of("abcd")));
+
+        Assertions.assertFalse(outputHasher.append("\n".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertTrue(outputHasher.isOverflow());
+        Assertions.assertFalse(outputHasher.append(new byte[0]));
+        Assertions.assertFalse(outputHasher.matches(OutputHasher.of("abcd")));
+    }
+
+    @Test
+    void mulModMatchesBigInteger() {
+        Random random = new Random(42);
+        long[] values = new long[64];
+        values[0] = 0;
+        values[1] = 1;
+        values[2] = MOD - 1;
+        values[3] = MOD - 2;
+        values[4] = 1L << 31;
+        values[5] = (1L << 31) - 1;
+        values[6] = 1L << 60;
+        for (int i = 7; i < values.length; i++) {
+            values[i] = (random.nextLong() >>> 3) % MOD;
+        }
+        BigInteger mod = BigInteger.valueOf(MOD);
+        for (long a : values) {
+            for (long b : values) {
+                long expected = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).mod(mod).longValue();
+                Long actual = ReflectionTestUtils.invokeMethod(OutputHasher.class, "mulMod", a, b);
+                Assertions.assertEquals(expected, actual, a + " * " + b);
+            }
+        }
+    }
+
+    @Test
+    void hashIsPolynomialOverNormalizedBytes() {
+        String output = "1 2\n\n中文";
+        long base = (Long) ReflectionTestUtils.getField(OutputHasher.class, "BASE");
+        BigInteger mod = BigInteger.valueOf(MOD);
+        BigInteger expected = BigInteger.ZERO;
+        for (byte b : output.getBytes(StandardCharsets.UTF_8)) {
+            expected = expected.multiply(BigInteger.valueOf(base)).add(BigInteger.valueOf((b & 0xFF) + 1)).mod(mod);
+        }
+        OutputHasher outputHasher = OutputHasher.of("1 2 \r\n\t\r\n中文\r\n\r\n");
+        Assertions.assertEquals(expected.longValue(), (long) (Long) ReflectionTestUtils.getField(outputHasher, "hash"));
+        Assertions.assertEquals((long) output.getBytes(StandardCharsets.UTF_8).length,
+                (long) (Long) ReflectionTestUtils.getField(outputHasher, "length"));
+    }
+}
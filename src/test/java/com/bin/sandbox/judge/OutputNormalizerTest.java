@@ -0,0 +1,44 @@
+package com.bin.sandbox.judge;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class OutputNormalizerTest {
+
+    private static final String[] SAMPLES = {
+            "", " \n\n", "1 2 \t\r\n3\r\n\n  \n", "a\n\nb", "  \nx", "a\r\rb\r", "中文 \n结果\t", "x \r\n"
+    };
+
+    private static final String[] EXPECTED = {
+            "", "", "1 2\n3", "a\n\nb", "\nx", "a\n\nb", "中文\n结果", "x"
+    };
+
+    @Test
+    void normalizeStringAndBytes() {
+        for (int i = 0; i < SAMPLES.length; i++) {
+            Assertions.assertEquals(EXPECTED[i], OutputNormalizer.normalize(SAMPLES[i]));
+            byte[] bytes = SAMPLES[i].getBytes(StandardCharsets.UTF_8);
+            int length = OutputNormalizer.normalize(bytes, bytes.length);
+            Assertions.assertEquals(EXPECTED[i], new String(bytes, 0, length, StandardCharsets.UTF_8));
+            Assertions.assertTrue(OutputNormalizer.isNormalized(EXPECTED[i]));
+        }
+        String normalized = "1 2\n3";
+        Assertions.assertSame(normalized, OutputNormalizer.normalize(normalized));
+    }
+
+    @Test
+    void hashFollowsNormalization() {
+        for (int i = 0; i < SAMPLES.length; i++) {
+            OutputHasher outputHasher = new OutputHasher(1024);
+            for (byte b : SAMPLES[i].getBytes(StandardCharsets.UTF_8)) {
+                outputHasher.append(new byte[]{b});
+            }
+            Assertions.assertTrue(outputHasher.matches(OutputHasher.of(EXPECTED[i])));
+        }
+        Assertions.assertFalse(OutputHasher.of("1 2").matches(OutputHasher.of("1  2")));
+        Assertions.assertFalse(OutputHasher.of("a\nb").matches(OutputHasher.of("a\n\nb")));
+        Assertions.assertFalse(OutputHasher.of("").matches(OutputHasher.of("\u0000")));
+    }
+}
@@ -0,0 +1,149 @@
+package com.bin.sandbox.manager;
+
+import com.bin.sandbox.CodeSandbox;
+import com.bin.sandbox.config.ExecutionProperties;
+import com.bin.sandbox.model.ExecuteCodeRequest;
+import com.bin.sandbox.model.ExecuteCodeResponse;
+import com.bin.sandbox.scheduler.CaseExecutor;
+import com.bin.sandbox.utils.SpringContextUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class CodeSandboxManagerTest {
+
+    private ApplicationContext previousContext;
+
+    private StaticApplicationContext context;
+
+    private CaseExecutor caseExecutor;
+
+    /**
+     * 两种语言的分组都进入执行后才返回，分组串行执行时会等待超时
+     */
+    private final CountDownLatch groupsStarted = new CountDownLatch(2);
+
+    private final List<List<String>> batchCodeList = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        previousContext = (ApplicationContext) ReflectionTestUtils.getField(SpringContextUtils.class,
+                "applicationContext");
+        ExecutionProperties executionProperties = new ExecutionProperties();
+        caseExecutor = new CaseExecutor();
+        ReflectionTestUtils.setField(caseExecutor, "executionProperties", executionProperties);
+        caseExecutor.init();
+        context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("caseExecutor", caseExecutor);
+        context.getBeanFactory().registerSingleton("javaDockerCodeSandBox", new FakeCodeSandbox("java"));
+        context.getBeanFactory().registerSingleton("pythonDockerCodeSandBox", new FakeCodeSandbox("python"));
+        context.refresh();
+        new SpringContextUtils().setApplicationContext(context);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(SpringContextUtils.class, "applicationContext", previousContext);
+        context.close();
+        caseExecutor.destroy();
+    }
+
+    @Test
+    void keepRequestOrderAcrossLanguageGroups() {
+        List<ExecuteCodeRequest> requestList = Arrays.asList(
+                request("java", "j0"), request("python", "p1"), request("java", "j2"),
+                request("python", "p3"), request("java", "j4"));
+
+        List<ExecuteCodeResponse> responseList = CodeSandboxManager.doBatchExec(requestList);
+
+        Assertions.assertEquals(Arrays.asList("java:j0", "python:p1", "java:j2", "python:p3", "java:j4"),
+                responseList.stream().map(ExecuteCodeResponse::getMessage).collect(Collectors.toList()));
+        Assertions.assertTrue(responseList.stream().allMatch(response -> response.getStatus() == 1),
+                "语言分组未并发执行");
+        Assertions.assertEquals(2, batchCodeList.size());
+        Assertions.assertTrue(batchCodeList.contains(Arrays.asList("j0", "j2", "j4")));
+        Assertions.assertTrue(batchCodeList.contains(Arrays.asList("p1", "p3")));
+    }
+
+    @Test
+    void rejectInvalidLanguageWithoutAffectingOthers() {
+        groupsStarted.countDown();
+        List<ExecuteCodeRequest> requestList = Arrays.asList(
+                request("cobol", "c0"), request("java", "j1"), null, request(null, "n3"), request("java", "j4"));
+
+        List<ExecuteCodeResponse> responseList = CodeSandboxManager.doBatchExec(requestList);
+
+        Assertions.assertEquals(5, responseList.size());
+        for (int index : new int[]{0, 2, 3}) {
+            Assertions.assertEquals(2, responseList.get(index).getStatus());
+            Assertions.assertEquals("编程语言非法", responseList.get(index).getMessage());
+            Assertions.assertTrue(responseList.get(index).getOutputList().isEmpty());
+        }
+        Assertions.assertEquals("java:j1", responseList.get(1).getMessage());
+        Assertions.assertEquals("java:j4", responseList.get(4).getMessage());
+        Assertions.assertEquals(Collections.singletonList(Arrays.asList("j1", "j4")), batchCodeList);
+    }
+
+    @Test
+    void allInvalidLanguagesSkipExecution() {
+        List<ExecuteCodeResponse> responseList = CodeSandboxManager.doBatchExec(
+                Arrays.asList(request("cobol", "c0"), request("", "c1")));
+
+        Assertions.assertEquals(2, responseList.size());
+        Assertions.assertTrue(responseList.stream().allMatch(response -> response.getStatus() == 2));
+        Assertions.assertTrue(batchCodeList.isEmpty());
+    }
+
+    private static ExecuteCodeRequest request(String language, String code) {
+        return ExecuteCodeRequest.builder().language(language).code(code).inputList(Collections.emptyList()).build();
+    }
+
+    /**
+     * 以语言和源码作为响应信息，等待另一种语言的分组开始执行后才返回
+     */
+    private class FakeCodeSandbox implements CodeSandbox {
+
+        private final String language;
+
+        FakeCodeSandbox(String language) {
+            this.language = language;
+        }
+
+        @Override
+        public ExecuteCodeResponse executeCode(ExecuteCodeRequest executeCodeRequest) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ExecuteCodeResponse> executeBatch(List<ExecuteCodeRequest> executeCodeRequestList) {
+            batchCodeList.add(executeCodeRequestList.stream().map(ExecuteCodeRequest::getCode)
+                    .collect(Collectors.toList()));
+            groupsStarted.countDown();
+            boolean concurrent;
+            try {
+                concurrent = groupsStarted.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            int status = concurrent ? 1 : 2;
+            return executeCodeRequestList.stream()
+                    .map(executeCodeRequest -> ExecuteCodeResponse.builder()
+                            .message(language + ":" + executeCodeRequest.getCode())
+                            .status(status)
+                            .build())
+                    .collect(Collectors.toList());
+        }
+    }
+}
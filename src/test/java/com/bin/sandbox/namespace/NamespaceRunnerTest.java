@@ -0,0 +1,79 @@
+package com.bin.sandbox.namespace;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class NamespaceRunnerTest {
+
+    private static final String DEFAULT_PATH = "/usr/local/sbin:/usr/local/bin:/usr/sbin:/usr/bin:/sbin:/bin";
+
+    @TempDir
+    Path rootfs;
+
+    @Test
+    void buildCommandLayout() throws Exception {
+        writeEnv("PATH=/opt/java/openjdk/bin:/usr/bin", "JAVA_HOME=/opt/java/openjdk");
+        Path caseDir = rootfs.resolve("cgroup").resolve("case-3");
+        NamespaceRunner.Workspace workspace = new NamespaceRunner.Workspace(rootfs, null, null, 4242L);
+
+        List<String> command = ReflectionTestUtils.invokeMethod(new NamespaceRunner(), "buildCommand", caseDir,
+                workspace, new String[]{"java", "-cp", "/app", "Main"});
+
+        String enterScript = (String) ReflectionTestUtils.getField(NamespaceRunner.class, "ENTER_SCRIPT");
+        List<String> expected = new ArrayList<>();
+        // 宿主机上进入用例 cgroup
+        expected.addAll(Arrays.asList("sh", "-c", enterScript, "sh", caseDir.toString()));
+        // 进入常驻进程持有的命名空间
+        expected.addAll(Arrays.asList("nsenter", "--target", "4242", "--user", "--mount", "--net", "--uts"));
+        // 新建嵌套命名空间，以 65534 chroot 到根文件系统
+        expected.addAll(Arrays.asList("unshare", "--user", "--map-user=65534", "--map-group=65534", "--mount",
+                "--pid", "--ipc", "--fork", "--kill-child", "--mount-proc=/proc", "--root=" + rootfs, "--wd=/app"));
+        // pid 命名空间的 init，以镜像环境变量执行命令
+        expected.addAll(Arrays.asList("/bin/sh", "-c", "\"$@\"", "sh", "/usr/bin/env", "-i",
+                "PATH=/opt/java/openjdk/bin:/usr/bin", "JAVA_HOME=/opt/java/openjdk"));
+        expected.addAll(Arrays.asList("java", "-cp", "/app", "Main"));
+        Assertions.assertEquals(expected, command);
+    }
+
+    @Test
+    void parseRootfsEnv() throws Exception {
+        writeEnv("PATH=/usr/local/bin:/usr/bin", "", "LANG=C.UTF-8", "=invalid", "NO_VALUE", "EMPTY=",
+                "JAVA_TOOL_OPTIONS=-Dfile.encoding=UTF-8");
+
+        List<String> env = ReflectionTestUtils.invokeMethod(new NamespaceRunner(), "getRootfsEnv", rootfs);
+        Assertions.assertEquals(Arrays.asList("PATH=/usr/local/bin:/usr/bin", "LANG=C.UTF-8", "EMPTY=",
+                "JAVA_TOOL_OPTIONS=-Dfile.encoding=UTF-8"), env);
+    }
+
+    @Test
+    void defaultPathWithoutEnvFile() {
+        List<String> env = ReflectionTestUtils.invokeMethod(new NamespaceRunner(), "getRootfsEnv", rootfs);
+        Assertions.assertEquals(Collections.singletonList("PATH=" + DEFAULT_PATH), env);
+    }
+
+    @Test
+    void rootfsEnvReadOnce() throws Exception {
+        NamespaceRunner namespaceRunner = new NamespaceRunner();
+        writeEnv("LANG=C.UTF-8");
+        List<String> env = ReflectionTestUtils.invokeMethod(namespaceRunner, "getRootfsEnv", rootfs);
+
+        writeEnv("LANG=en_US.UTF-8");
+        Assertions.assertEquals(env, ReflectionTestUtils.invokeMethod(namespaceRunner, "getRootfsEnv", rootfs));
+        Assertions.assertEquals(Collections.singletonList("LANG=en_US.UTF-8"),
+                ReflectionTestUtils.invokeMethod(new NamespaceRunner(), "getRootfsEnv", rootfs));
+    }
+
+    private void writeEnv(String... lines) throws Exception {
+        Files.write(rootfs.resolve(".sandbox-env"), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}
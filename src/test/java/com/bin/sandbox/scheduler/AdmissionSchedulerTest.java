@@ -0,0 +1,187 @@
+package com.bin.sandbox.scheduler;
+
+import com.bin.sandbox.config.AdmissionProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class AdmissionSchedulerTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final List<String> grantOrder = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fifoWithinCallerAndRotateAcrossCallers() throws Exception {
+        AdmissionScheduler scheduler = scheduler(properties(1, 1024L));
+        AdmissionScheduler.Permit running = scheduler.acquire("x", "java", MB);
+        Future<AdmissionScheduler.Permit> a1 = submit(scheduler, "a1", "a", "java", MB);
+        Future<AdmissionScheduler.Permit> a2 = submit(scheduler, "a2", "a", "java", MB);
+        Future<AdmissionScheduler.Permit> a3 = submit(scheduler, "a3", "a", "java", MB);
+        Future<AdmissionScheduler.Permit> b1 = submit(scheduler, "b1", "b", "java", MB);
+
+        scheduler.release(running);
+        scheduler.release(get(a1));
+        scheduler.release(get(b1));
+        scheduler.release(get(a2));
+        scheduler.release(get(a3));
+        Assertions.assertEquals(Arrays.asList("a1", "b1", "a2", "a3"), grantOrder);
+        Assertions.assertEquals(0, scheduler.getStats().getRunning());
+    }
+
+    @Test
+    void largeMemoryWaiterNotStarved() throws Exception {
+        AdmissionScheduler scheduler = scheduler(properties(10, 100L));
+        AdmissionScheduler.Permit running = scheduler.acquire("x", "java", 60 * MB);
+        Future<AdmissionScheduler.Permit> large = submit(scheduler, "large", "a", "java", 80 * MB);
+        // 小内存提交放得下，但最早排队的大内存提交在等内存，不能插队
+        Future<AdmissionScheduler.Permit> small = submit(scheduler, "small", "b", "java", 10 * MB);
+        Assertions.assertEquals(2, scheduler.getStats().getWaiting());
+        Assertions.assertTrue(grantOrder.isEmpty());
+
+        scheduler.release(running);
+        get(large);
+        get(small);
+        Assertions.assertEquals(Arrays.asList("large", "small"), grantOrder);
+        Assertions.assertEquals(90 * MB, scheduler.getStats().getUsedMemoryBytes());
+    }
+
+    @Test
+    void languageCapDoesNotBlockOtherLanguages() throws Exception {
+        AdmissionProperties admissionProperties = properties(4, 1024L);
+        admissionProperties.getLanguageMaxConcurrent().put("java", 1);
+        AdmissionScheduler scheduler = scheduler(admissionProperties);
+        AdmissionScheduler.Permit running = scheduler.acquire("x", "java", MB);
+        Future<AdmissionScheduler.Permit> java = submit(scheduler, "java", "a", "java", MB);
+        Future<AdmissionScheduler.Permit> python = submit(scheduler, "python", "b", "python", MB);
+        get(python);
+        Assertions.assertEquals(Collections.singletonList("python"), grantOrder);
+        Assertions.assertEquals(1, scheduler.getStats().getWaiting());
+
+        scheduler.release(running);
+        get(java);
+        Assertions.assertEquals(Arrays.asList("python", "java"), grantOrder);
+        Assertions.assertEquals(1, scheduler.getStats().getLanguageRunning().get("java"));
+    }
+
+    @Test
+    void rejectWhenQueueFull() throws Exception {
+        AdmissionProperties admissionProperties = properties(1, 1024L);
+        admissionProperties.setQueueCapacity(1);
+        AdmissionScheduler scheduler = scheduler(admissionProperties);
+        AdmissionScheduler.Permit running = scheduler.acquire("x", "java", MB);
+        Future<AdmissionScheduler.Permit> waiter = submit(scheduler, "waiter", "a", "java", MB);
+
+        AdmissionRejectedException e = Assertions.assertThrows(AdmissionRejectedException.class,
+                () -> scheduler.acquire("b", "java", MB));
+        Assertions.assertTrue(e.isQueueFull());
+        Assertions.assertEquals(1, scheduler.getStats().getRejectedCount());
+
+        scheduler.release(running);
+        get(waiter);
+    }
+
+    @Test
+    void rejectWhenQueueTimeout() {
+        AdmissionProperties admissionProperties = properties(1, 1024L);
+        admissionProperties.setQueueTimeoutMs(100L);
+        AdmissionScheduler scheduler = scheduler(admissionProperties);
+        scheduler.acquire("x", "java", MB);
+
+        AdmissionRejectedException e = Assertions.assertThrows(AdmissionRejectedException.class,
+                () -> scheduler.acquire("a", "java", MB));
+        Assertions.assertFalse(e.isQueueFull());
+        Assertions.assertEquals(1, scheduler.getStats().getTimeoutCount());
+        Assertions.assertEquals(0, scheduler.getStats().getWaiting());
+    }
+
+    @Test
+    void disabledReturnsNullPermit() {
+        AdmissionProperties admissionProperties = properties(1, 1024L);
+        admissionProperties.setEnabled(false);
+        AdmissionScheduler scheduler = scheduler(admissionProperties);
+        Assertions.assertNull(scheduler.acquire("x", "java", MB));
+        Assertions.assertNull(scheduler.acquire("x", "java", MB));
+        scheduler.release(null);
+    }
+
+    @Test
+    void readCgroupMemoryLimit(@TempDir Path cgroupRoot) throws Exception {
+        Assertions.assertEquals(-1L, AdmissionScheduler.readCgroupMemoryLimit(cgroupRoot));
+
+        // cgroup v1：不限制时为接近 Long.MAX_VALUE 的值，由调用方与物理内存取较小者
+        Path memoryDir = Files.createDirectories(cgroupRoot.resolve("memory"));
+        Files.write(memoryDir.resolve("memory.limit_in_bytes"),
+                "9223372036854771712\n".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(9223372036854771712L, AdmissionScheduler.readCgroupMemoryLimit(cgroupRoot));
+
+        // cgroup v2 优先
+        Files.write(cgroupRoot.resolve("memory.max"), "max\n".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(-1L, AdmissionScheduler.readCgroupMemoryLimit(cgroupRoot));
+        Files.write(cgroupRoot.resolve("memory.max"), "2147483648\n".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(2147483648L, AdmissionScheduler.readCgroupMemoryLimit(cgroupRoot));
+
+        Files.write(cgroupRoot.resolve("memory.max"), "bad".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(9223372036854771712L, AdmissionScheduler.readCgroupMemoryLimit(cgroupRoot));
+    }
+
+    private static AdmissionProperties properties(int maxConcurrent, long memoryBudgetMb) {
+        AdmissionProperties admissionProperties = new AdmissionProperties();
+        admissionProperties.setMaxConcurrent(maxConcurrent);
+        admissionProperties.setMemoryBudgetMb(memoryBudgetMb);
+        admissionProperties.setQueueTimeoutMs(10000L);
+        return admissionProperties;
+    }
+
+    private static AdmissionScheduler scheduler(AdmissionProperties admissionProperties) {
+        AdmissionScheduler scheduler = new AdmissionScheduler();
+        ReflectionTestUtils.setField(scheduler, "admissionProperties", admissionProperties);
+        scheduler.init();
+        return scheduler;
+    }
+
+    /**
+     * 在新线程中领取许可，等到该提交进入排队后返回，保证排队顺序与调用顺序一致
+     */
+    private Future<AdmissionScheduler.Permit> submit(AdmissionScheduler scheduler, String name, String caller,
+                                                     String language, long memoryBytes) throws InterruptedException {
+        int waiting = scheduler.getStats().getWaiting();
+        int granted = grantOrder.size();
+        Future<AdmissionScheduler.Permit> future = executor.submit(() -> {
+            AdmissionScheduler.Permit permit = scheduler.acquire(caller, language, memoryBytes);
+            grantOrder.add(name);
+            return permit;
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getStats().getWaiting() == waiting && grantOrder.size() == granted) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "提交未进入排队");
+            Thread.sleep(5);
+        }
+        return future;
+    }
+
+    private static AdmissionScheduler.Permit get(Future<AdmissionScheduler.Permit> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
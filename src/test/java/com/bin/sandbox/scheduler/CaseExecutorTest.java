@@ -0,0 +1,165 @@
+package com.bin.sandbox.scheduler;
+
+import com.bin.sandbox.config.ExecutionProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class CaseExecutorTest {
+
+    private CaseExecutor caseExecutor;
+
+    @AfterEach
+    void destroy() {
+        if (caseExecutor != null) {
+            caseExecutor.destroy();
+        }
+    }
+
+    @Test
+    void keepCaseOrderAcrossLanes() {
+        caseExecutor = caseExecutor(8);
+        Set<Integer> usedLanes = ConcurrentHashMap.newKeySet();
+        String callerThread = Thread.currentThread().getName();
+        // 下标小的用例运行更久，完成顺序与输入顺序相反
+        List<String> results = caseExecutor.runOrdered(4, 12, (lane, index) -> {
+            usedLanes.add(lane);
+            if (lane == 0) {
+                Assertions.assertEquals(callerThread, Thread.currentThread().getName());
+            }
+            sleep((12 - index) * 5L);
+            return "case" + index;
+        });
+
+        Assertions.assertEquals(IntStream.range(0, 12).mapToObj(index -> "case" + index).collect(Collectors.toList()),
+                results);
+        Assertions.assertTrue(usedLanes.size() > 1);
+        Assertions.assertEquals(8, caseExecutor.getAvailablePermits());
+    }
+
+    @Test
+    void globalPermitsCapParallelismAcrossSubmissions() throws Exception {
+        caseExecutor = caseExecutor(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CaseExecutor.LaneTask<Integer> task = (lane, index) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return index;
+        };
+        ExecutorService submissions = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<List<Integer>>> futures = IntStream.range(0, 3)
+                    .mapToObj(i -> submissions.submit(() -> caseExecutor.runOrdered(4, 8, task)))
+                    .collect(Collectors.toList());
+            for (Future<List<Integer>> future : futures) {
+                Assertions.assertEquals(8, future.get(30, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            submissions.shutdownNow();
+        }
+
+        Assertions.assertEquals(2, maxRunning.get());
+        Assertions.assertEquals(2, caseExecutor.getAvailablePermits());
+    }
+
+    @Test
+    void stopConditionLeavesRemainingSlotsNull() {
+        caseExecutor = caseExecutor(4);
+        AtomicInteger executed = new AtomicInteger();
+        List<Integer> results = caseExecutor.runOrdered(1, 10, (lane, index) -> {
+            executed.incrementAndGet();
+            return index;
+        }, result -> result == 3);
+
+        Assertions.assertEquals(4, executed.get());
+        for (int index = 0; index < results.size(); index++) {
+            Assertions.assertEquals(index <= 3 ? Integer.valueOf(index) : null, results.get(index));
+        }
+    }
+
+    @Test
+    void stopConditionStopsAllLanes() {
+        caseExecutor = caseExecutor(4);
+        AtomicInteger executed = new AtomicInteger();
+        List<Integer> results = caseExecutor.runOrdered(3, 30, (lane, index) -> {
+            executed.incrementAndGet();
+            sleep(10);
+            return index;
+        }, result -> result == 0);
+
+        // 停止时其他通道正在运行的用例照常完成，之后不再领取
+        Assertions.assertTrue(executed.get() < 30);
+        long finished = results.stream().filter(result -> result != null).count();
+        Assertions.assertEquals(executed.get(), finished);
+        Assertions.assertNull(results.get(29));
+    }
+
+    @Test
+    void failureStopsLanesAndReleasesPermits() {
+        caseExecutor = caseExecutor(2);
+        AtomicInteger executed = new AtomicInteger();
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class,
+                () -> caseExecutor.runOrdered(2, 20, (lane, index) -> {
+                    executed.incrementAndGet();
+                    if (index == 1) {
+                        throw new RuntimeException("boom");
+                    }
+                    sleep(10);
+                    return index;
+                }));
+
+        Assertions.assertEquals("boom", e.getMessage());
+        Assertions.assertTrue(executed.get() < 20);
+        Assertions.assertEquals(2, caseExecutor.getAvailablePermits());
+    }
+
+    @Test
+    void batchLanesDoNotHoldPermits() {
+        caseExecutor = caseExecutor(1);
+        CountDownLatch allStarted = new CountDownLatch(3);
+        List<Boolean> results = caseExecutor.runBatch(3, 3, (lane, index) -> {
+            allStarted.countDown();
+            try {
+                return allStarted.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        Assertions.assertFalse(results.contains(false));
+        Assertions.assertEquals(1, caseExecutor.getAvailablePermits());
+    }
+
+    private static CaseExecutor caseExecutor(int globalCaseParallelism) {
+        ExecutionProperties executionProperties = new ExecutionProperties();
+        executionProperties.setGlobalCaseParallelism(globalCaseParallelism);
+        CaseExecutor caseExecutor = new CaseExecutor();
+        ReflectionTestUtils.setField(caseExecutor, "executionProperties", executionProperties);
+        caseExecutor.init();
+        return caseExecutor;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.bin.sandbox.scheduler;
+
+import com.bin.sandbox.config.CpusetProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class CpuCoreAllocatorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waitersServedInArrivalOrder() throws Exception {
+        CpuCoreAllocator allocator = allocator(properties("0"));
+        int core = allocator.acquire(-1);
+        Future<Integer> first = submit(allocator);
+        Future<Integer> second = submit(allocator);
+        Assertions.assertEquals(2, allocator.getStats().getWaitingCount());
+
+        allocator.release(core);
+        Assertions.assertEquals(0, first.get(5, TimeUnit.SECONDS));
+        Assertions.assertFalse(second.isDone());
+        allocator.release(0);
+        Assertions.assertEquals(0, second.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2L, allocator.getStats().getQueuedCount());
+    }
+
+    @Test
+    void preferPreviousCore() {
+        CpuCoreAllocator allocator = allocator(properties("0-3"));
+        Assertions.assertEquals(2, allocator.acquire(2));
+        Assertions.assertEquals(0, allocator.acquire(2));
+        allocator.release(2);
+        Assertions.assertEquals(2, allocator.acquire(2));
+        Assertions.assertEquals(1, allocator.acquire(-1));
+        Assertions.assertEquals(1, allocator.getStats().getFreeCount());
+    }
+
+    @Test
+    void timeoutWhenNoFreeCore() {
+        CpusetProperties cpusetProperties = properties("0");
+        cpusetProperties.setAcquireTimeoutMs(100L);
+        CpuCoreAllocator allocator = allocator(cpusetProperties);
+        allocator.acquire(-1);
+
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> allocator.acquire(-1));
+        Assertions.assertEquals("等待空闲 CPU 核心超时", e.getMessage());
+        Assertions.assertEquals(0, allocator.getStats().getWaitingCount());
+        allocator.release(0);
+        Assertions.assertEquals(0, allocator.acquire(-1));
+    }
+
+    @Test
+    void excludeReservedAndCompileCores() {
+        CpusetProperties cpusetProperties = properties("0-3,6");
+        cpusetProperties.setReservedCores("0");
+        cpusetProperties.setCompileCores("6");
+        CpuCoreAllocator allocator = allocator(cpusetProperties);
+        Assertions.assertEquals(Arrays.asList(1, 2, 3), allocator.getStats().getRunCores());
+        Assertions.assertEquals("6", allocator.getSharedCpuset());
+    }
+
+    @Test
+    void rejectWhenNoCaseCoreLeft() {
+        CpusetProperties reserved = properties("0-1");
+        reserved.setReservedCores("0-1");
+        Assertions.assertThrows(RuntimeException.class, () -> allocator(reserved));
+
+        CpusetProperties compile = properties("0-1");
+        compile.setCompileCores("0,1");
+        Assertions.assertThrows(RuntimeException.class, () -> allocator(compile));
+    }
+
+    @Test
+    void parseCpuList() {
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3, 6), Arrays.asList(
+                CpuCoreAllocator.parseCpuList("0-3,6").toArray(new Integer[0])));
+        Assertions.assertEquals(Arrays.asList(1, 2), Arrays.asList(
+                CpuCoreAllocator.parseCpuList(" 2 , 1-1 ,").toArray(new Integer[0])));
+        Assertions.assertTrue(CpuCoreAllocator.parseCpuList(null).isEmpty());
+        Assertions.assertTrue(CpuCoreAllocator.parseCpuList(" ").isEmpty());
+        Assertions.assertThrows(RuntimeException.class, () -> CpuCoreAllocator.parseCpuList("3-1"));
+        Assertions.assertThrows(RuntimeException.class, () -> CpuCoreAllocator.parseCpuList("-1"));
+        Assertions.assertThrows(RuntimeException.class, () -> CpuCoreAllocator.parseCpuList("0-a"));
+    }
+
+    private static CpusetProperties properties(String cores) {
+        CpusetProperties cpusetProperties = new CpusetProperties();
+        cpusetProperties.setEnabled(true);
+        cpusetProperties.setCores(cores);
+        cpusetProperties.setAcquireTimeoutMs(10000L);
+        return cpusetProperties;
+    }
+
+    private static CpuCoreAllocator allocator(CpusetProperties cpusetProperties) {
+        CpuCoreAllocator allocator = new CpuCoreAllocator();
+        ReflectionTestUtils.setField(allocator, "cpusetProperties", cpusetProperties);
+        allocator.init();
+        return allocator;
+    }
+
+    /**
+     * 在新线程中申请核心，等到该线程进入排队后返回，保证排队顺序与调用顺序一致
+     */
+    private Future<Integer> submit(CpuCoreAllocator allocator) throws InterruptedException {
+        int waiting = allocator.getStats().getWaitingCount();
+        Future<Integer> future = executor.submit(() -> allocator.acquire(-1));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (allocator.getStats().getWaitingCount() == waiting && !future.isDone()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "申请未进入排队");
+            Thread.sleep(5);
+        }
+        return future;
+    }
+}
@@ -0,0 +1,29 @@
+package com.bin.sandbox.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class BoundedOutputBufferTest {
+
+    @Test
+    void decodeCharacterSplitAcrossFrames() {
+        byte[] bytes = "你好".getBytes(StandardCharsets.UTF_8);
+        BoundedOutputBuffer buffer = new BoundedOutputBuffer(1024);
+        buffer.append(Arrays.copyOfRange(bytes, 0, 2));
+        buffer.append(Arrays.copyOfRange(bytes, 2, bytes.length));
+        Assertions.assertEquals("你好", buffer.toString());
+        Assertions.assertFalse(buffer.isOverflow());
+    }
+
+    @Test
+    void truncateAtLimitWithoutBrokenCharacter() {
+        BoundedOutputBuffer buffer = new BoundedOutputBuffer(5);
+        Assertions.assertFalse(buffer.append("a你好".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertTrue(buffer.isOverflow());
+        Assertions.assertEquals(5, buffer.size());
+        Assertions.assertEquals("a你", buffer.toString());
+    }
+}